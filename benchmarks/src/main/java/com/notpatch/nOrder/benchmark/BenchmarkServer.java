@@ -0,0 +1,199 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.LanguageLoader;
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.Settings;
+import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.database.MemoryStore;
+import com.notpatch.nOrder.database.StorageBackend;
+import com.notpatch.nOrder.manager.EscrowManager;
+import com.notpatch.nOrder.manager.MainThreadWatchdog;
+import com.notpatch.nOrder.manager.MetricsRegistry;
+import com.notpatch.nOrder.manager.OrderLogger;
+import com.notpatch.nOrder.manager.PlayerNameIndex;
+import com.notpatch.nOrder.model.Message;
+import com.notpatch.nlib.NLib;
+import com.notpatch.nlib.util.ColorUtil;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Boots just enough of the plugin to benchmark it: a MockBukkit server, NLib and a stubbed {@link NOrder}
+ * carrying the bundled config and language. Collaborators that would do I/O (escrow, order log) are
+ * Mockito stubs, so their dispatch cost is part of every score; compare runs with each other, not with
+ * absolute budgets.
+ */
+public final class BenchmarkServer {
+
+    private static NOrder plugin;
+    private static JavaPlugin hostPlugin;
+    private static File dataFolder;
+    private static DatabaseManager databaseManager;
+
+    private BenchmarkServer() {
+    }
+
+    public static synchronized NOrder start() {
+        if (plugin != null) return plugin;
+
+        ServerMock server = MockBukkit.mock();
+        hostPlugin = MockBukkit.createMockPlugin("NOrder");
+        NLib.initialize(hostPlugin);
+
+        try {
+            dataFolder = Files.createTempDirectory("norder-bench").toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        YamlConfiguration config = loadResource("config.yml");
+        YamlConfiguration messages = loadResource("languages/en_US.yml");
+
+        plugin = mock(NOrder.class, withSettings().stubOnly());
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getMorePaperLib()).thenReturn(NLib.getMorePaperLib());
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        when(plugin.getMetricsRegistry()).thenReturn(metricsRegistry);
+        when(plugin.getMainThreadWatchdog()).thenReturn(new MainThreadWatchdog(metricsRegistry));
+
+        PlayerNameIndex playerNameIndex = new PlayerNameIndex();
+        when(plugin.getPlayerNameIndex()).thenReturn(playerNameIndex);
+        when(plugin.getEscrowManager()).thenReturn(mock(EscrowManager.class, withSettings().stubOnly()));
+        when(plugin.getOrderLogger()).thenReturn(mock(OrderLogger.class, withSettings().stubOnly()));
+
+        Map<String, Message> compiled = new ConcurrentHashMap<>();
+        Function<String, Message> message = path -> compiled.computeIfAbsent(path,
+                key -> Message.compile(ColorUtil.hexColor(messages.getString(key, ""))));
+        LanguageLoader languageLoader = mock(LanguageLoader.class, withSettings().stubOnly());
+        when(languageLoader.get(anyString())).thenAnswer(call -> message.apply(call.getArgument(0)).getText());
+        when(languageLoader.format(anyString(), any(String[].class)))
+                .thenAnswer(call -> message.apply(call.getArgument(0)).fill(null, (String[]) call.getRawArguments()[1]));
+        when(plugin.getLanguageLoader()).thenReturn(languageLoader);
+
+        setInstance(plugin);
+        Settings.loadSettings();
+        useStubDatabase();
+        return plugin;
+    }
+
+    /**
+     * Orders and statistics go to the in-memory store, so writes complete immediately without touching disk.
+     * For benchmarks of in-memory work.
+     */
+    public static void useStubDatabase() {
+        MemoryStore store = new MemoryStore(Runnable::run);
+
+        DatabaseManager stub = mock(DatabaseManager.class, withSettings().stubOnly());
+        when(stub.getStorageBackend()).thenReturn(StorageBackend.MEMORY);
+        when(stub.getOrderStore()).thenReturn(store);
+        when(stub.getStatsStore()).thenReturn(store);
+        when(stub.isConnectionValid()).thenReturn(true);
+        when(plugin.getDatabaseManager()).thenReturn(stub);
+    }
+
+    /**
+     * Connects a real SQLite database in the temporary data folder, running every schema migration.
+     */
+    public static DatabaseManager useSQLite() {
+        return connect();
+    }
+
+    /**
+     * Connects to a MySQL server, running every schema migration. Like the plugin, this falls back to
+     * SQLite when the server cannot be reached, so check {@link DatabaseManager#isUsingSQLite()}.
+     */
+    public static DatabaseManager useMySQL(String host, int port, String database, String username, String password) {
+        YamlConfiguration config = (YamlConfiguration) plugin.getConfig();
+        config.set("database.type", "mysql");
+        config.set("database.host", host);
+        config.set("database.port", port);
+        config.set("database.database", database);
+        config.set("database.username", username);
+        config.set("database.password", password);
+        return connect();
+    }
+
+    /**
+     * The mock plugin NLib runs on, for APIs that need an enabled plugin such as permission attachments.
+     */
+    public static JavaPlugin host() {
+        return hostPlugin;
+    }
+
+    private static DatabaseManager connect() {
+        if (databaseManager == null) {
+            databaseManager = new DatabaseManager(plugin);
+            databaseManager.connect();
+            databaseManager.createTables();
+        }
+        when(plugin.getDatabaseManager()).thenReturn(databaseManager);
+        return databaseManager;
+    }
+
+    public static synchronized void stop() {
+        if (plugin == null) return;
+        if (databaseManager != null) {
+            databaseManager.disconnect();
+            databaseManager = null;
+        }
+        MockBukkit.unmock();
+        deleteRecursively(dataFolder);
+        plugin = null;
+        hostPlugin = null;
+    }
+
+    private static YamlConfiguration loadResource(String path) {
+        InputStream stream = NOrder.class.getClassLoader().getResourceAsStream(path);
+        if (stream == null) {
+            throw new IllegalStateException("Missing bundled resource " + path);
+        }
+        try (InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return YamlConfiguration.loadConfiguration(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void setInstance(NOrder instance) {
+        try {
+            Field field = NOrder.class.getDeclaredField("instance");
+            field.setAccessible(true);
+            field.set(null, instance);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot install the benchmark plugin instance", e);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+}
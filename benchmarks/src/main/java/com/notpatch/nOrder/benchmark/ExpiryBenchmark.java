@@ -0,0 +1,57 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.manager.OrderManager;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One expiry sweep over the market with a tenth of the orders expired. Database writes are stubbed,
+ * so this is the in-memory scan, refund and archive bookkeeping only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ExpiryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int orders;
+
+    private NOrder plugin;
+    private List<Order> market;
+    private OrderManager orderManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = BenchmarkServer.start();
+        market = OrderFixtures.generate(orders, 0.1, 42);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillMarket() {
+        orderManager = new OrderManager(plugin);
+        for (Order order : market) {
+            order.setStatus(OrderStatus.ACTIVE);
+            orderManager.addOrderAdmin(order);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public OrderManager cleanExpiredOrders() {
+        orderManager.cleanExpiredOrders();
+        return orderManager;
+    }
+
+}
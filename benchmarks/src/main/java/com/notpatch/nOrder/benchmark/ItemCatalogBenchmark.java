@@ -0,0 +1,87 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.model.EnchantTable;
+import com.notpatch.nOrder.model.ItemCatalog;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item select menu searches: a query seen for the first time goes through the n-gram index, repeats
+ * and page clicks hit the per-query cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemCatalogBenchmark {
+
+    private static final String[] QUERIES = {"diamond", "sword", "oak", "stone", "redstone", "netherite", "glass", "wool"};
+
+    private List<Material> materials;
+    private EnchantTable enchantTable;
+    private ItemCatalog catalog;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkServer.start();
+        materials = Arrays.stream(Material.values())
+                .filter(m -> !m.isAir() && m.isItem() && !m.isLegacy())
+                .toList();
+        enchantTable = EnchantTable.build(materials, null);
+        catalog = ItemCatalog.build(materials, List.of(), enchantTable, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public EnchantTable buildEnchantTable() {
+        return EnchantTable.build(materials, null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ItemCatalog build() {
+        return ItemCatalog.build(materials, List.of(), enchantTable, null, null);
+    }
+
+    // A fresh catalog per call so every query misses the cache
+    @Benchmark
+    public List<ItemCatalog.Entry> uncachedSearch(FreshCatalog fresh) {
+        return fresh.catalog.search(QUERIES[nextQuery()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public List<ItemCatalog.Entry> cachedSearch() {
+        return catalog.search(QUERIES[nextQuery()]);
+    }
+
+    private int nextQuery() {
+        next = next + 1 == QUERIES.length ? 0 : next + 1;
+        return next;
+    }
+
+    @State(Scope.Thread)
+    public static class FreshCatalog {
+
+        private ItemCatalog catalog;
+
+        @Setup(Level.Invocation)
+        public void setUp(ItemCatalogBenchmark benchmark) {
+            catalog = ItemCatalog.build(benchmark.materials, List.of(), benchmark.enchantTable, null, null);
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.util.ItemStackHelper;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ItemStackHelper#isSameItem} runs once per inventory slot on every delivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItemMatchBenchmark {
+
+    private ItemStack diamond;
+    private ItemStack otherDiamond;
+    private ItemStack ironIngot;
+    private ItemStack book;
+    private ItemStack sameBook;
+    private ItemStack weakerBook;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkServer.start();
+        diamond = new ItemStack(Material.DIAMOND, 64);
+        otherDiamond = new ItemStack(Material.DIAMOND, 12);
+        ironIngot = new ItemStack(Material.IRON_INGOT, 64);
+        book = OrderFixtures.enchantedBook(5);
+        sameBook = OrderFixtures.enchantedBook(5);
+        weakerBook = OrderFixtures.enchantedBook(4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public boolean plainMatch() {
+        return ItemStackHelper.isSameItem(diamond, otherDiamond);
+    }
+
+    @Benchmark
+    public boolean plainMismatch() {
+        return ItemStackHelper.isSameItem(diamond, ironIngot);
+    }
+
+    @Benchmark
+    public boolean enchantedMatch() {
+        return ItemStackHelper.isSameItem(book, sameBook);
+    }
+
+    @Benchmark
+    public boolean enchantedMismatch() {
+        return ItemStackHelper.isSameItem(book, weakerBook);
+    }
+
+}
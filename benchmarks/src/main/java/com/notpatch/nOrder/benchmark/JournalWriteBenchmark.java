@@ -0,0 +1,73 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.database.JournalStore;
+import com.notpatch.nOrder.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-change writes to the journal backend, as done after every delivery and collection. With fsync
+ * the writes of one invocation share group commits; compare with {@link SQLiteWriteBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JournalWriteBenchmark {
+
+    private static final int WRITES = 200;
+    private static final int ORDERS = 10_000;
+
+    @Param({"true", "false"})
+    public boolean fsync;
+
+    private Path directory;
+    private JournalStore store;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        NOrder plugin = BenchmarkServer.start();
+        directory = Files.createTempDirectory("norder-journal");
+        store = new JournalStore(Runnable::run, directory, 64L * 1024 * 1024, fsync, plugin.getMetricsRegistry());
+        store.open();
+
+        List<Order> generated = OrderFixtures.generate(ORDERS, 0, 42);
+        store.saveOrders(generated).join();
+        orders = generated.toArray(Order[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITES)
+    public void recordChange() {
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[WRITES];
+        for (int i = 0; i < WRITES; i++) {
+            Order order = orders[next];
+            next = next + 1 == orders.length ? 0 : next + 1;
+            writes[i] = store.recordChange(order);
+        }
+        CompletableFuture.allOf(writes).join();
+    }
+
+}
@@ -0,0 +1,480 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.Settings;
+import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.manager.EscrowManager;
+import com.notpatch.nOrder.manager.MetricsRegistry;
+import com.notpatch.nOrder.manager.OrderLogger;
+import com.notpatch.nOrder.manager.OrderManager;
+import com.notpatch.nOrder.manager.PlayerStatisticsManager;
+import com.notpatch.nOrder.manager.WebhookManager;
+import com.notpatch.nOrder.model.LatencyHistogram;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderSort;
+import com.notpatch.nOrder.model.OrderSortIndex;
+import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.util.Money;
+import com.notpatch.nOrder.util.StringUtil;
+import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Headless load test of the order market. Synthetic players create, browse, deliver to, collect from,
+ * cancel and let expire orders through the real {@link OrderManager}, escrow ledger, statistics and order
+ * log, against SQLite or MySQL. The calling thread plays the server thread and ticks every 50ms; escrow
+ * settlement, autosave, statistics flushes and expiry sweeps run on a background thread like the
+ * plugin's async tasks.
+ * <p>
+ * Options are {@code key=value} arguments, see {@link Options#parse}:
+ * {@code mvn -f benchmarks/pom.xml package exec:exec@simulate -Dsim.args="rate=2000 duration=120"}
+ */
+public final class LoadSimulator {
+
+    private static final long TICK_NANOS = 50_000_000L;
+    private static final int PAGE_SIZE = 28;
+    private static final int BROWSED_PAGES = 5;
+    private static final int ORDER_LIMIT = 100_000;
+
+    enum Operation {
+        CREATE, BROWSE, DELIVER, COLLECT, CANCEL, EXPIRE
+    }
+
+    private final Options options;
+    private final NOrder plugin;
+    private final ServerMock server;
+    private final DatabaseManager database;
+    private final OrderManager orderManager;
+    private final EscrowManager escrowManager;
+    private final PlayerStatisticsManager statsManager;
+    private final List<PlayerMock> players = new ArrayList<>();
+    private final List<String> lore;
+
+    // Orders neither archived nor cancelled. Only touched by the simulated server thread.
+    private final List<Order> market = new ArrayList<>();
+    private final SplittableRandom random;
+    private final Operation[] mixTable;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> idle = new EnumMap<>(Operation.class);
+    private final LatencyHistogram tickTimes = new LatencyHistogram();
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "norder-sim-async");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int nextId;
+    private long lateTicks;
+    private long sink;
+
+    public static void main(String[] args) {
+        Options options = Options.parse(args);
+        LoadSimulator simulator = new LoadSimulator(options);
+        try {
+            simulator.run();
+        } finally {
+            simulator.background.shutdownNow();
+            BenchmarkServer.stop();
+        }
+    }
+
+    private LoadSimulator(Options options) {
+        this.options = options;
+        this.random = new SplittableRandom(options.seed());
+        this.mixTable = options.mixTable();
+        this.plugin = BenchmarkServer.start();
+        this.server = MockBukkit.getMock();
+
+        database = options.database().equalsIgnoreCase("mysql")
+                ? BenchmarkServer.useMySQL(options.mysqlHost(), options.mysqlPort(), options.mysqlDatabase(), options.mysqlUser(), options.mysqlPassword())
+                : BenchmarkServer.useSQLite();
+
+        Economy economy = mock(Economy.class, withSettings().stubOnly());
+        when(economy.getBalance(any(OfflinePlayer.class))).thenReturn(1e12);
+        when(economy.withdrawPlayer(any(OfflinePlayer.class), anyDouble())).thenAnswer(call ->
+                new EconomyResponse(call.getArgument(1), 1e12, EconomyResponse.ResponseType.SUCCESS, null));
+        when(economy.depositPlayer(any(OfflinePlayer.class), anyDouble())).thenAnswer(call ->
+                new EconomyResponse(call.getArgument(1), 1e12, EconomyResponse.ResponseType.SUCCESS, null));
+        when(plugin.getEconomy()).thenReturn(economy);
+
+        WebhookManager webhookManager = mock(WebhookManager.class, withSettings().stubOnly());
+        when(webhookManager.getWebhooks()).thenReturn(new HashMap<>());
+        when(plugin.getWebhookManager()).thenReturn(webhookManager);
+
+        OrderLogger orderLogger = new OrderLogger(plugin);
+        when(plugin.getOrderLogger()).thenReturn(orderLogger);
+        escrowManager = new EscrowManager(plugin);
+        when(plugin.getEscrowManager()).thenReturn(escrowManager);
+        statsManager = new PlayerStatisticsManager(plugin);
+        when(plugin.getPlayerStatsManager()).thenReturn(statsManager);
+        statsManager.loadStatistics();
+        orderManager = new OrderManager(plugin);
+        when(plugin.getOrderManager()).thenReturn(orderManager);
+
+        for (int i = 0; i < options.players(); i++) {
+            PlayerMock player = server.addPlayer("Sim" + i);
+            player.addAttachment(BenchmarkServer.host(), Settings.current().getOrderLimitPermission() + "." + ORDER_LIMIT, true);
+            player.addAttachment(BenchmarkServer.host(), Settings.current().getOrderCancelPermission(), true);
+            players.add(player);
+        }
+
+        InputStream stream = Order.class.getClassLoader().getResourceAsStream("menu.yml");
+        try (InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            lore = YamlConfiguration.loadConfiguration(reader).getStringList("main-order-menu.order-item-template.lore");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            idle.put(operation, 0L);
+        }
+    }
+
+    private void run() {
+        for (int i = 0; i < options.initialOrders(); i++) {
+            create(false);
+        }
+        drainPlayers();
+
+        long escrowMillis = Math.max(50, plugin.getConfig().getLong("escrow.settlement-interval-ms", 1000));
+        schedule("escrow settlement", escrowManager::settle, escrowMillis, TimeUnit.MILLISECONDS);
+        schedule("autosave", () -> orderManager.saveOrders().join(), options.autosaveSeconds(), TimeUnit.SECONDS);
+        schedule("statistics flush", () -> statsManager.saveStatistics().whenComplete((saved, error) -> statsManager.evictOffline()).join(),
+                options.statsFlushSeconds(), TimeUnit.SECONDS);
+        schedule("expiry sweep", orderManager::cleanExpiredOrders, options.sweepSeconds(), TimeUnit.SECONDS);
+
+        int warmupTicks = options.warmupSeconds() * 20;
+        int totalTicks = warmupTicks + options.durationSeconds() * 20;
+        double perTick = options.rate() / 20.0;
+        double carry = 0;
+
+        long heapBefore = 0;
+        long measureStart = 0;
+        long next = System.nanoTime();
+        for (int tick = 0; tick < totalTicks; tick++) {
+            boolean measuring = tick >= warmupTicks;
+            if (tick == warmupTicks) {
+                plugin.getMetricsRegistry().reset();
+                heapBefore = usedHeapAfterGc();
+                measureStart = System.nanoTime();
+                next = measureStart;
+            }
+
+            long tickStart = System.nanoTime();
+            carry += perTick;
+            int operations = (int) carry;
+            carry -= operations;
+            for (int i = 0; i < operations; i++) {
+                runOperation(mixTable[random.nextInt(mixTable.length)], measuring);
+            }
+            server.getScheduler().performOneTick();
+            if (measuring) tickTimes.record(System.nanoTime() - tickStart);
+
+            if (tick % 20 == 0) drainPlayers();
+
+            // A late tick is not made up for, so the achieved rate drops below the target under overload.
+            next += TICK_NANOS;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            } else {
+                if (measuring) lateTicks++;
+                next = System.nanoTime();
+            }
+        }
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+        background.shutdown();
+        try {
+            background.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        orderManager.saveOrders().join();
+        statsManager.saveStatistics().join();
+        escrowManager.settle();
+        server.getScheduler().performTicks(20);
+        drainPlayers();
+
+        report(seconds, heapBefore, usedHeapAfterGc());
+    }
+
+    private void runOperation(Operation operation, boolean measuring) {
+        long start = System.nanoTime();
+        boolean done = switch (operation) {
+            case CREATE -> create(false);
+            case EXPIRE -> create(true);
+            case BROWSE -> browse();
+            case DELIVER -> deliver();
+            case COLLECT -> collect();
+            case CANCEL -> cancel();
+        };
+        if (!measuring) return;
+        if (done) {
+            latencies.get(operation).record(System.nanoTime() - start);
+        } else {
+            idle.merge(operation, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * A new order from a random player. Expiring orders run out after {@code expire-after} seconds and are
+     * refunded by the next expiry sweep.
+     */
+    private boolean create(boolean expiring) {
+        PlayerMock owner = players.get(random.nextInt(players.size()));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = expiring ? now.plusSeconds(options.expireAfterSeconds()) : now.plusDays(7);
+        ItemStack item = random.nextInt(20) == 0
+                ? OrderFixtures.enchantedBook(1 + random.nextInt(5))
+                : new ItemStack(OrderFixtures.material(random));
+
+        Order order = new Order("s" + OrderFixtures.id(nextId++), owner.getUniqueId(), owner.getName(), item, null,
+                64 + random.nextInt(2048), Money.SCALE / 10 + random.nextInt(50_000), now, expiresAt, random.nextInt(10) == 0);
+        orderManager.addOrder(order);
+        if (orderManager.findOrder(order.getId()) != order) return false;
+        market.add(order);
+        return true;
+    }
+
+    /**
+     * One page of the main menu in a random sort order, paged through from the first page with cursors
+     * like the menu does, and the lore of every order on it. Most players stay on the first few pages.
+     */
+    private boolean browse() {
+        OrderSort sort = OrderSort.values()[random.nextInt(OrderSort.values().length)];
+        OrderSortIndex.Page page = orderManager.firstPage(sort, PAGE_SIZE);
+        if (page.entries().isEmpty()) return false;
+        int pages = random.nextInt(BROWSED_PAGES);
+        for (int i = 0; i < pages && page.hasNext(); i++) {
+            page = orderManager.nextPage(sort, page, PAGE_SIZE);
+        }
+        for (Order order : page.orders()) {
+            for (String line : lore) {
+                sink += StringUtil.replaceOrderPlaceholders(line, order).length();
+            }
+        }
+        return true;
+    }
+
+    private boolean deliver() {
+        Order order = pickOrder(OrderStatus.ACTIVE);
+        if (order == null) return false;
+        PlayerMock supplier = players.get(random.nextInt(players.size()));
+        if (supplier.getUniqueId().equals(order.getPlayerId()) || !order.tryLock()) return false;
+        try {
+            if (order.getStatus() != OrderStatus.ACTIVE) return false;
+            int amount = Math.min(order.getRemaining(), 1 + random.nextInt(640));
+            orderManager.deliver(order, supplier.getUniqueId(), supplier.getName(), amount);
+            return true;
+        } finally {
+            order.unlock();
+        }
+    }
+
+    private boolean collect() {
+        for (int attempt = 0; attempt < 8; attempt++) {
+            Order order = pickOrder(null);
+            if (order == null) return false;
+            int available = order.getDelivered() - order.getCollected();
+            if (available <= 0) continue;
+            orderManager.collect(order, available);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean cancel() {
+        Order order = pickOrder(OrderStatus.ACTIVE);
+        if (order == null) return false;
+        orderManager.cancelOrder(order);
+        return order.getStatus() == OrderStatus.CANCELLED;
+    }
+
+    /**
+     * A random order from the market with the wanted status, or any live one when {@code wanted} is null.
+     * Archived and cancelled orders met on the way are dropped from the market.
+     */
+    private Order pickOrder(OrderStatus wanted) {
+        for (int attempt = 0; attempt < 8 && !market.isEmpty(); attempt++) {
+            int index = random.nextInt(market.size());
+            Order order = market.get(index);
+            OrderStatus status = order.getStatus();
+            if (status == OrderStatus.ARCHIVED || status == OrderStatus.CANCELLED) {
+                Order last = market.removeLast();
+                if (index < market.size()) market.set(index, last);
+                continue;
+            }
+            if (wanted == null || status == wanted) return order;
+        }
+        return null;
+    }
+
+    private void schedule(String name, Runnable task, long period, TimeUnit unit) {
+        background.scheduleAtFixedRate(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Simulated " + name + " failed: " + e);
+            }
+        }, period, period, unit);
+    }
+
+    // MockBukkit keeps every message and sound a player receives; clear them so they do not count as heap growth.
+    private void drainPlayers() {
+        for (PlayerMock player : players) {
+            while (player.nextMessage() != null) {
+                // discard
+            }
+            player.getHeardSounds().clear();
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private void report(double seconds, long heapBefore, long heapAfter) {
+        MetricsRegistry metrics = plugin.getMetricsRegistry();
+        Map<String, Long> counters = metrics.getCounters();
+        Map<String, LatencyHistogram.Snapshot> timers = metrics.getTimers();
+
+        long completed = latencies.values().stream().mapToLong(LatencyHistogram::getCount).sum();
+        long skipped = idle.values().stream().mapToLong(Long::longValue).sum();
+
+        StringBuilder out = new StringBuilder();
+        out.append("\nNOrder load simulation\n");
+        out.append(String.format(Locale.ROOT, "  backend      %s, %d players, %d orders at start, seed %d%n",
+                database.isUsingSQLite() ? "SQLite" : "MySQL", options.players(), options.initialOrders(), options.seed()));
+        out.append(String.format(Locale.ROOT, "  throughput   %d operations in %.1fs = %.1f ops/s (target %d), %d idle, %d late ticks%n",
+                completed, seconds, completed / seconds, options.rate(), skipped, lateTicks));
+        out.append(String.format(Locale.ROOT, "%n  %-10s %9s %7s %10s %10s %10s %10s%n", "operation", "count", "idle", "p50", "p90", "p99", "max"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot snapshot = latencies.get(operation).snapshot();
+            out.append(String.format(Locale.ROOT, "  %-10s %9d %7d %10s %10s %10s %10s%n", operation.name().toLowerCase(Locale.ROOT),
+                    snapshot.count(), idle.get(operation), MetricsRegistry.formatMillis(snapshot.p50()), MetricsRegistry.formatMillis(snapshot.p90()),
+                    MetricsRegistry.formatMillis(snapshot.p99()), MetricsRegistry.formatMillis(snapshot.max())));
+        }
+        line(out, "tick", tickTimes.snapshot());
+        for (String timer : List.of("db.write", "db.task", "db.wait", "orders.autosave", "orders.expiry", "log.write")) {
+            LatencyHistogram.Snapshot snapshot = timers.get(timer);
+            if (snapshot != null) line(out, timer, snapshot);
+        }
+
+        long rows = counters.getOrDefault("db.rows-written", 0L);
+        out.append(String.format(Locale.ROOT, "%n  database     %d rows written (%.1f rows/s), %d errors%n",
+                rows, rows / seconds, counters.getOrDefault("db.errors", 0L)));
+        out.append(String.format(Locale.ROOT, "  orders       %d tracked, %d created, %d cancelled, %d expired, %d items delivered%n",
+                orderManager.getTrackedOrders().size(), counters.getOrDefault("orders.created", 0L), counters.getOrDefault("orders.cancelled", 0L),
+                counters.getOrDefault("orders.expired", 0L), counters.getOrDefault("orders.delivered-items", 0L)));
+        out.append(String.format(Locale.ROOT, "  heap         %.1f MB after warmup, %.1f MB at the end, %+.1f MB growth%n",
+                heapBefore / 1048576.0, heapAfter / 1048576.0, (heapAfter - heapBefore) / 1048576.0));
+        System.out.print(out);
+    }
+
+    private static void line(StringBuilder out, String name, LatencyHistogram.Snapshot snapshot) {
+        out.append(String.format(Locale.ROOT, "  %-10s %9d %7s %10s %10s %10s %10s%n", name, snapshot.count(), "",
+                MetricsRegistry.formatMillis(snapshot.p50()), MetricsRegistry.formatMillis(snapshot.p90()),
+                MetricsRegistry.formatMillis(snapshot.p99()), MetricsRegistry.formatMillis(snapshot.max())));
+    }
+
+    record Options(int players, int rate, int durationSeconds, int warmupSeconds, int initialOrders,
+                   Map<Operation, Integer> mix, int expireAfterSeconds, int sweepSeconds, int autosaveSeconds,
+                   int statsFlushSeconds, long seed, String database, String mysqlHost, int mysqlPort,
+                   String mysqlDatabase, String mysqlUser, String mysqlPassword) {
+
+        private static final String DEFAULT_MIX = "create:15,browse:50,deliver:20,collect:8,cancel:2,expire:5";
+
+        /**
+         * Reads {@code key=value} arguments. Keys: players, rate (operations per second), duration and warmup
+         * (seconds), initial-orders, mix (operation:weight list), expire-after, sweep-interval,
+         * autosave-interval and stats-flush-interval (seconds), seed, database (sqlite or mysql) and
+         * mysql-host, mysql-port, mysql-database, mysql-user, mysql-password.
+         */
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (split <= 0) {
+                    throw new IllegalArgumentException("Expected key=value, got " + arg);
+                }
+                values.put(arg.substring(0, split).toLowerCase(Locale.ROOT), arg.substring(split + 1));
+            }
+
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            for (String entry : values.getOrDefault("mix", DEFAULT_MIX).split(",")) {
+                String[] parts = entry.trim().split(":");
+                mix.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+            }
+
+            return new Options(
+                    positive(values, "players", 200),
+                    positive(values, "rate", 500),
+                    positive(values, "duration", 60),
+                    Integer.parseInt(values.getOrDefault("warmup", "10")),
+                    Integer.parseInt(values.getOrDefault("initial-orders", "2000")),
+                    mix,
+                    positive(values, "expire-after", 30),
+                    positive(values, "sweep-interval", 10),
+                    positive(values, "autosave-interval", 30),
+                    positive(values, "stats-flush-interval", 30),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    values.getOrDefault("database", "sqlite"),
+                    values.getOrDefault("mysql-host", "localhost"),
+                    Integer.parseInt(values.getOrDefault("mysql-port", "3306")),
+                    values.getOrDefault("mysql-database", "norder_sim"),
+                    values.getOrDefault("mysql-user", "root"),
+                    values.getOrDefault("mysql-password", ""));
+        }
+
+        private static int positive(Map<String, String> values, String key, int defaultValue) {
+            int value = Integer.parseInt(values.getOrDefault(key, String.valueOf(defaultValue)));
+            if (value <= 0) {
+                throw new IllegalArgumentException(key + " must be positive");
+            }
+            return value;
+        }
+
+        /**
+         * Operations repeated by weight, so a uniform index picks them in the configured mix.
+         */
+        Operation[] mixTable() {
+            List<Operation> table = new ArrayList<>();
+            mix.forEach((operation, weight) -> table.addAll(Collections.nCopies(Math.max(0, weight), operation)));
+            if (table.isEmpty()) {
+                throw new IllegalArgumentException("The operation mix needs at least one positive weight");
+            }
+            return table.toArray(Operation[]::new);
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic synthetic markets: the same seed always produces the same orders, so runs compare.
+ */
+public final class OrderFixtures {
+
+    private static final Material[] MATERIALS = {
+            Material.DIAMOND, Material.IRON_INGOT, Material.GOLD_INGOT, Material.OAK_LOG, Material.COBBLESTONE,
+            Material.WHEAT, Material.ENDER_PEARL, Material.SLIME_BALL, Material.REDSTONE, Material.NETHERITE_SCRAP,
+            Material.DIAMOND_SWORD, Material.ELYTRA, Material.SHULKER_SHELL, Material.BLAZE_ROD, Material.EMERALD
+    };
+
+    private static final int ORDERS_PER_PLAYER = 5;
+
+    private OrderFixtures() {
+    }
+
+    /**
+     * Creates {@code count} active orders. About one in ten is highlighted, one in twenty is an enchanted
+     * book and {@code expiredRatio} of them are already past their expiration date.
+     */
+    public static List<Order> generate(int count, double expiredRatio, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int playerIndex = i / ORDERS_PER_PLAYER;
+            UUID playerId = new UUID(seed, playerIndex);
+
+            ItemStack item = i % 20 == 0 ? enchantedBook(1 + random.nextInt(5)) : new ItemStack(material(random));
+            int amount = 64 + random.nextInt(2048);
+            long price = 1 + random.nextInt(50_000);
+            LocalDateTime createdAt = now.minusMinutes(random.nextInt(60 * 24 * 7));
+            LocalDateTime expiresAt = random.nextDouble() < expiredRatio
+                    ? now.minusMinutes(1 + random.nextInt(60))
+                    : now.plusDays(1 + random.nextInt(7));
+
+            Order order = new Order(id(i), playerId, "Player" + playerIndex, item, null, amount, price,
+                    createdAt, expiresAt, i % 10 == 0);
+            order.setDelivered(random.nextInt(amount));
+            order.setCollected(order.getDelivered() / 2);
+            order.setStatus(OrderStatus.ACTIVE);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * Order ids are 6 characters like the ones the plugin creates, unique up to 36^6 orders.
+     */
+    public static String id(int index) {
+        String base36 = Integer.toString(index, 36);
+        return "000000".substring(base36.length()) + base36;
+    }
+
+    public static Material material(SplittableRandom random) {
+        return MATERIALS[random.nextInt(MATERIALS.length)];
+    }
+
+    public static ItemStack enchantedBook(int level) {
+        ItemStack book = new ItemStack(Material.ENCHANTED_BOOK);
+        EnchantmentStorageMeta meta = (EnchantmentStorageMeta) book.getItemMeta();
+        meta.addStoredEnchant(Enchantment.SHARPNESS, level, true);
+        meta.addStoredEnchant(Enchantment.UNBREAKING, 3, true);
+        book.setItemMeta(meta);
+        return book;
+    }
+
+}
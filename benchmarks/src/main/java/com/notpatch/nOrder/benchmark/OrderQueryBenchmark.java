@@ -0,0 +1,97 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.manager.OrderManager;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderSort;
+import com.notpatch.nOrder.model.OrderSortIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Market reads done on every menu open and page click.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderQueryBenchmark {
+
+    private static final int PAGE_SIZE = 28;
+
+    @Param({"1000", "10000", "100000"})
+    private int orders;
+
+    private OrderManager orderManager;
+    private String[] ids;
+    private int next;
+    private OrderSortIndex.Page middlePage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NOrder plugin = BenchmarkServer.start();
+        orderManager = new OrderManager(plugin);
+
+        List<Order> market = OrderFixtures.generate(orders, 0, 42);
+        ids = new String[market.size()];
+        for (int i = 0; i < market.size(); i++) {
+            orderManager.addOrderAdmin(market.get(i));
+            ids[i] = market.get(i).getId();
+        }
+
+        middlePage = orderManager.firstPage(OrderSort.PRICE, PAGE_SIZE);
+        for (int page = 0; page < orders / PAGE_SIZE / 2; page++) {
+            middlePage = orderManager.nextPage(OrderSort.PRICE, middlePage, PAGE_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public List<Order> getAllOrders() {
+        return orderManager.getAllOrders();
+    }
+
+    @Benchmark
+    public List<Order> getHighlightedOrdersFirst() {
+        return orderManager.getHighlightedOrdersFirst();
+    }
+
+    @Benchmark
+    public OrderSortIndex.Page firstPageByPrice() {
+        return orderManager.firstPage(OrderSort.PRICE, PAGE_SIZE);
+    }
+
+    // A page halfway through the market costs the same as the first one
+    @Benchmark
+    public OrderSortIndex.Page middlePageByPrice() {
+        return orderManager.nextPage(OrderSort.PRICE, middlePage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Order getOrderById() {
+        String id = ids[next];
+        next = next + 1 == ids.length ? 0 : next + 1;
+        return orderManager.getOrderById(id);
+    }
+
+    @Benchmark
+    public List<Order> searchOrders() {
+        return orderManager.searchOrders("diamnd swrd");
+    }
+
+    // The substring scan the menu search used before the n-gram index
+    @Benchmark
+    public List<Order> scanOrdersByMaterial() {
+        return orderManager.getOrdersByMaterial("diamond");
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.ProgressBar;
+import com.notpatch.nOrder.util.StringUtil;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of one order button: every lore line of the bundled order template, and the progress bar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderRenderBenchmark {
+
+    private List<String> lore;
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkServer.start();
+        order = OrderFixtures.generate(1, 0, 42).getFirst();
+
+        InputStream stream = Order.class.getClassLoader().getResourceAsStream("menu.yml");
+        try (InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            lore = YamlConfiguration.loadConfiguration(reader).getStringList("main-order-menu.order-item-template.lore");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public void replaceOrderPlaceholders(Blackhole blackhole) {
+        for (String line : lore) {
+            blackhole.consume(StringUtil.replaceOrderPlaceholders(line, order));
+        }
+    }
+
+    @Benchmark
+    public String renderProgressBar() {
+        return new ProgressBar(order).render();
+    }
+
+}
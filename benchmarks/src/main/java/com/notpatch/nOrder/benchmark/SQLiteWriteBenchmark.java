@@ -0,0 +1,82 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.database.OrderRepository;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row writes per second: the group-committing write queue against one auto-committed
+ * statement per write, which is what every status change used to cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SQLiteWriteBenchmark {
+
+    private static final int WRITES = 200;
+    private static final int ORDERS = 10_000;
+
+    private DatabaseManager databaseManager;
+    private OrderRepository repository;
+    private String[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkServer.start();
+        databaseManager = BenchmarkServer.useSQLite();
+        repository = databaseManager.getOrderRepository();
+
+        List<Order> orders = OrderFixtures.generate(ORDERS, 0, 42);
+        repository.saveOrders(orders).join();
+        ids = orders.stream().map(Order::getId).toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITES)
+    public void groupCommit() {
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[WRITES];
+        for (int i = 0; i < WRITES; i++) {
+            writes[i] = repository.updateStatus(nextId(), OrderStatus.ACTIVE);
+        }
+        CompletableFuture.allOf(writes).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITES)
+    public void autoCommit() throws SQLException {
+        try (Connection conn = databaseManager.getDataSource().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE orders SET status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE order_id = ?")) {
+            for (int i = 0; i < WRITES; i++) {
+                stmt.setString(1, OrderStatus.ACTIVE.name());
+                stmt.setString(2, nextId());
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    private String nextId() {
+        String id = ids[next];
+        next = next + 1 == ids.length ? 0 : next + 1;
+        return id;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.notpatch.nOrder.benchmark;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.manager.OrderManager;
+import com.notpatch.nOrder.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full autosave of the market into an SQLite file, the same batched upsert the autosave task runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class SaveOrdersBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int orders;
+
+    private OrderManager orderManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NOrder plugin = BenchmarkServer.start();
+        BenchmarkServer.useSQLite();
+        orderManager = new OrderManager(plugin);
+        for (Order order : OrderFixtures.generate(orders, 0, 42)) {
+            orderManager.addOrderAdmin(order);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkServer.stop();
+    }
+
+    @Benchmark
+    public int saveOrders() {
+        return orderManager.saveOrders().join();
+    }
+
+}
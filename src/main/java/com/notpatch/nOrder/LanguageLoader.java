@@ -1,6 +1,7 @@
 package com.notpatch.nOrder;
 
 
+import com.notpatch.nOrder.model.Message;
 import com.notpatch.nlib.util.ColorUtil;
 import me.clip.placeholderapi.PlaceholderAPI;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -14,13 +15,17 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
 public class LanguageLoader {
 
+    private static final UnaryOperator<String> PLACEHOLDER_API = token -> ColorUtil.hexColor(PlaceholderAPI.setPlaceholders(null, token));
+
     private final NOrder main;
 
-    private final HashMap<String, String> translationMap = new HashMap<>();
-    private final HashMap<String, List<String>> translationListMap = new HashMap<>();
+    // Swapped whole on reload, so a message is never read from a half-loaded language
+    private volatile Translations translations = new Translations(Map.of(), Map.of(), false);
 
     public LanguageLoader() {
         this.main = NOrder.getInstance();
@@ -71,41 +76,59 @@ public class LanguageLoader {
     }
 
     public String get(String path) {
-        String value = translationMap.getOrDefault(path, "Translation not found for path: " + path);
-        if (main.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null)
-            value = PlaceholderAPI.setPlaceholders(null, value);
-        return ColorUtil.hexColor(value);
+        return format(path);
+    }
+
+    /**
+     * The message at {@code path} with its variables filled in from token and value pairs, e.g.
+     * {@code format("order-created", "%amount%", "5")}. Any other tokens are PlaceholderAPI placeholders.
+     */
+    public String format(String path, String... replacements) {
+        Translations current = translations;
+        Message message = current.messages().get(path);
+        if (message == null) message = Message.compile("Translation not found for path: " + path);
+        return message.fill(current.placeholderApi() ? PLACEHOLDER_API : null, replacements);
     }
 
     public List<String> getList(String path) {
-        return ColorUtil.getColoredList(translationListMap.getOrDefault(path, Collections.singletonList("Translation list not found for path: " + path)));
+        List<String> list = translations.lists().get(path);
+        return list != null ? list : Collections.singletonList("Translation list not found for path: " + path);
     }
 
     public void loadLangs() {
         File languageFile = new File(main.getDataFolder(), "languages/" + main.getConfig().getString("lang", "en_US") + ".yml");
 
-        FileConfiguration translations = YamlConfiguration.loadConfiguration(languageFile);
-        translationMap.clear();
-        translationListMap.clear();
+        FileConfiguration config = YamlConfiguration.loadConfiguration(languageFile);
+        Map<String, Message> messages = new HashMap<>();
+        Map<String, List<String>> lists = new HashMap<>();
 
-        for (String key : translations.getKeys(true)) {
-            if (translations.isList(key)) {
-                translationListMap.put(key, translations.getStringList(key));
-            } else if (translations.isString(key)) {
-                translationMap.put(key, translations.getString(key));
+        for (String key : config.getKeys(true)) {
+            if (config.isList(key)) {
+                lists.put(key, List.copyOf(ColorUtil.getColoredList(config.getStringList(key))));
+            } else if (config.isString(key)) {
+                messages.put(key, Message.compile(ColorUtil.hexColor(config.getString(key))));
             }
         }
+
+        boolean placeholderApi = main.getServer().getPluginManager().getPlugin("PlaceholderAPI") != null;
+        translations = new Translations(Map.copyOf(messages), Map.copyOf(lists), placeholderApi);
     }
 
     public String getLanguage() {
         return main.getConfig().getString("lang", "en_US");
     }
 
-    public static String getMessage(String path) {
-        return NOrder.getInstance().getLanguageLoader().get(path);
+    /**
+     * {@link #format(String, String...)} on the plugin's language.
+     */
+    public static String getMessage(String path, String... replacements) {
+        return NOrder.getInstance().getLanguageLoader().format(path, replacements);
     }
 
     public static List<String> getMessageList(String path) {
         return NOrder.getInstance().getLanguageLoader().getList(path);
     }
+
+    private record Translations(Map<String, Message> messages, Map<String, List<String>> lists, boolean placeholderApi) {
+    }
 }
\ No newline at end of file
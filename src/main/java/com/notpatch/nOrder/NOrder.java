@@ -7,11 +7,14 @@ import com.notpatch.nOrder.gui.NewOrderMenu;
 import com.notpatch.nOrder.hook.LuckPermsHook;
 import com.notpatch.nOrder.hook.Metrics;
 import com.notpatch.nOrder.hook.PlaceholderHook;
+import com.notpatch.nOrder.hook.PrometheusExporter;
 import com.notpatch.nOrder.listener.ChatInputListener;
+import com.notpatch.nOrder.listener.PlayerConnectionListener;
 import com.notpatch.nOrder.manager.*;
 import com.notpatch.nlib.NLib;
 import com.notpatch.nlib.compatibility.NCompatibility;
 import com.notpatch.nlib.libs.morepaperlib.MorePaperLib;
+import com.notpatch.nlib.util.NLogger;
 import lombok.Getter;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.plugin.RegisteredServiceProvider;
@@ -28,15 +31,30 @@ public final class NOrder extends JavaPlugin {
     @Getter
     private OrderManager orderManager;
 
+    @Getter
+    private PlayerNameIndex playerNameIndex;
+
+    @Getter
+    private OrderSyncManager orderSyncManager;
+
+    @Getter
+    private ArchiveCompactionManager archiveCompactionManager;
+
     @Getter
     private PlayerStatisticsManager playerStatsManager;
 
+    @Getter
+    private StorageMigrationManager storageMigrationManager;
+
     @Getter
     private ConfigurationManager configurationManager;
 
     @Getter
     private Economy economy;
 
+    @Getter
+    private EscrowManager escrowManager;
+
     @Getter
     private LanguageLoader languageLoader;
 
@@ -52,6 +70,17 @@ public final class NOrder extends JavaPlugin {
     @Getter
     private Metrics metrics;
 
+    @Getter
+    private MetricsRegistry metricsRegistry;
+
+    private PrometheusExporter prometheusExporter;
+
+    @Getter
+    private MainThreadWatchdog mainThreadWatchdog;
+
+    @Getter
+    private TickBudget tickBudget;
+
     @Getter
     private MorePaperLib morePaperLib;
 
@@ -100,20 +129,49 @@ public final class NOrder extends JavaPlugin {
         configurationManager = new ConfigurationManager();
         configurationManager.loadConfigurations();
 
+        // Before anything reads Settings.current(), which is built from an empty config until now.
+        Settings.loadSettings();
+
+        metricsRegistry = new MetricsRegistry();
+        mainThreadWatchdog = new MainThreadWatchdog(metricsRegistry);
+        tickBudget = new TickBudget(this);
+
         databaseManager = new DatabaseManager(this);
-        databaseManager.connect();
+        if (!databaseManager.connect()) {
+            NLogger.error("Disabling: the configured storage backend could not be opened. Repair or restore it, "
+                    + "or migrate to another backend, before starting again.");
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
         databaseManager.createTables();
 
         orderLogger = new OrderLogger(this);
 
+        escrowManager = new EscrowManager(this);
+
+        playerNameIndex = new PlayerNameIndex();
+        getServer().getOnlinePlayers().forEach(player -> playerNameIndex.put(player.getUniqueId(), player.getName()));
+
+        orderSyncManager = new OrderSyncManager(this);
+        orderSyncManager.initialize();
+
         orderManager = new OrderManager(this);
         orderManager.loadOrders();
 
         playerStatsManager = new PlayerStatisticsManager(this);
         playerStatsManager.loadStatistics();
+        playerStatsManager.startFlushTask();
+
+        storageMigrationManager = new StorageMigrationManager(this);
 
         orderManager.startCleanupTask();
         orderManager.startAutoSaveTask();
+        orderSyncManager.start();
+        escrowManager.startSettlementTask();
+        tickBudget.start();
+
+        archiveCompactionManager = new ArchiveCompactionManager(this);
+        archiveCompactionManager.startCompactionTask();
 
         languageLoader = new LanguageLoader();
         languageLoader.loadLangs();
@@ -123,8 +181,6 @@ public final class NOrder extends JavaPlugin {
 
         compatibility.validate();
 
-        Settings.loadSettings();
-
         customItemManager = new CustomItemManager();
 
         Settings.loadCustomItems();
@@ -134,13 +190,20 @@ public final class NOrder extends JavaPlugin {
 
         getServer().getPluginManager().registerEvents(new NewOrderMenu(), this);
 
-        registerCommand("order", Settings.ORDER_ALIASES, new OrderCommand());
-        registerCommand("orderadmin", Settings.ORDER_ADMIN_ALIASES, new OrderAdminCommand());
+        registerCommand("order", Settings.current().getOrderAliases(), new OrderCommand());
+        registerCommand("orderadmin", Settings.current().getOrderAdminAliases(), new OrderAdminCommand());
 
         getServer().getPluginManager().registerEvents(new ChatInputListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
 
         metrics = new Metrics(this, 27885);
 
+        if (getConfig().getBoolean("metrics.prometheus.enabled", false)) {
+            prometheusExporter = new PrometheusExporter(metricsRegistry);
+            prometheusExporter.start(getConfig().getString("metrics.prometheus.host", "127.0.0.1"),
+                    getConfig().getInt("metrics.prometheus.port", 9464));
+        }
+
         UpdateChecker updateChecker = new UpdateChecker(this);
         updateChecker.checkUpdates();
 
@@ -149,12 +212,14 @@ public final class NOrder extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        if (orderManager != null) orderManager.saveOrders();
-        if (playerStatsManager != null) playerStatsManager.saveStatistics();
+        if (orderManager != null) mainThreadWatchdog.join("db", orderManager.saveOrders().exceptionally(error -> 0));
+        if (playerStatsManager != null) mainThreadWatchdog.join("db", playerStatsManager.saveStatistics().exceptionally(error -> 0));
+        if (escrowManager != null) escrowManager.settleNow();
         if (databaseManager != null) databaseManager.disconnect();
         if (configurationManager != null) configurationManager.saveConfigurations();
         if (morePaperLib != null) morePaperLib.scheduling().cancelGlobalTasks();
         if (metrics != null) metrics.shutdown();
+        if (prometheusExporter != null) prometheusExporter.stop();
     }
 
 }
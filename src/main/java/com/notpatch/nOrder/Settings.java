@@ -2,138 +2,113 @@ package com.notpatch.nOrder;
 
 import com.notpatch.nOrder.hook.customitem.CustomItemProvider;
 import com.notpatch.nOrder.hook.customitem.NexoProvider;
+import com.notpatch.nOrder.manager.ConfigurationManager;
 import com.notpatch.nOrder.manager.CustomItemManager;
+import com.notpatch.nOrder.manager.OrderManager;
+import com.notpatch.nOrder.model.EnchantTable;
+import com.notpatch.nOrder.model.ItemCatalog;
+import com.notpatch.nOrder.util.SchedulerUtil;
 import com.notpatch.nlib.util.NLogger;
+import lombok.AccessLevel;
+import lombok.Getter;
 import org.bukkit.Material;
 import org.bukkit.configuration.Configuration;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 public class Settings {
 
     public Settings() {
     }
 
-    public static String ORDER_MENU_PERMISSION;
-    public static String ORDER_PERMISSION;
-    public static String ORDER_CANCEL_PERMISSION;
+    // Replaced whole on every load; read it once when several values must agree
+    private static volatile Snapshot snapshot = new Snapshot(new MemoryConfiguration(), List.of());
 
-    public static String ORDER_ADMIN_PERMISSION;
-
-    public static Collection<String> ORDER_ALIASES;
-    public static Collection<String> ORDER_ADMIN_ALIASES;
-
-    public static String ORDER_LIMIT_PERMISSION;
-    public static String ORDER_EXPIRATION_PERMISSION;
-
-    public static String DATE_FORMAT;
-
-    public static double HIGHLIGHT_FEE;
-    public static boolean SEND_WEBHOOKS;
-
-    public static double MIN_PRICE_PER_ITEM;
-    public static double MAX_PRICE_PER_ITEM;
-    public static Map<Material, Double> MIN_PRICE_PER_ITEM_OVERRIDES = new HashMap<>();
-    public static Map<Material, Double> MAX_PRICE_PER_ITEM_OVERRIDES = new HashMap<>();
-
-    public static String HIGHLIGHT_PERMISSION;
-
-    public static boolean DEBUG;
-    public static List<Material> availableItems = new ArrayList<>();
-
-    public static int PROGRESS_BAR_LENGTH;
-    public static char PROGRESS_BAR_COMPLETE_CHAR;
-    public static char PROGRESS_BAR_INCOMPLETE_CHAR;
-    public static String PROGRESS_BAR_COMPLETE_COLOR;
-    public static String PROGRESS_BAR_INCOMPLETE_COLOR;
-
-    public static boolean BROADCAST_ENABLED;
-    public static double BROADCAST_MIN_TOTAL_PRICE;
-
-    public static int AUTO_SAVE_INTERVAL_MINUTES;
+    /**
+     * Buttons and search index of the item select menu, rebuilt whenever the items or custom items change.
+     */
+    public static volatile ItemCatalog itemCatalog = ItemCatalog.EMPTY;
+    public static volatile EnchantTable enchantTable = EnchantTable.EMPTY;
 
-    public static boolean CUSTOM_ITEM_ENABLED;
-    public static List<ItemStack> customItems = new ArrayList<>();
-    public static Map<String, ItemStack> customItemsCache = new HashMap<>();
+    // The loaded items and their lookup by ID, published together
+    private static volatile CustomItems customItems = new CustomItems(List.of(), Map.of());
 
+    public static Snapshot current() {
+        return snapshot;
+    }
 
+    /**
+     * Loads the settings on the calling thread; for startup, when everything after needs them.
+     */
     public static void loadSettings() {
-        Configuration config = NOrder.getInstance().getConfig();
-        ORDER_PERMISSION = config.getString("permissions.order", "norder.use");
-        ORDER_CANCEL_PERMISSION = config.getString("permissions.order-cancel", "norder.cancel");
-        ORDER_MENU_PERMISSION = config.getString("permissions.order-menu", "norder.menu");
-        ORDER_ALIASES = config.getStringList("commands.order.aliases");
-        ORDER_LIMIT_PERMISSION = config.getString("permissions.order-limit", "norder.limit");
-        ORDER_ADMIN_ALIASES = config.getStringList("commands.order-admin.aliases");
-        ORDER_ADMIN_PERMISSION = config.getString("permissions.order-admin", "norder.admin");
-        HIGHLIGHT_FEE = config.getDouble("settings.highlight-fee", 2.5);
-        SEND_WEBHOOKS = config.getBoolean("settings.send-webhooks", false);
-        MIN_PRICE_PER_ITEM = config.getDouble("settings.min-price-per-item", 0.01);
-        MAX_PRICE_PER_ITEM = config.getDouble("settings.max-price-per-item", 1000);
-        
-        // Load per-item price overrides
-        MIN_PRICE_PER_ITEM_OVERRIDES.clear();
-        MAX_PRICE_PER_ITEM_OVERRIDES.clear();
-        ConfigurationSection perItemPriceSection = config.getConfigurationSection("per-item-price");
-        if (perItemPriceSection != null) {
-            for (String materialName : perItemPriceSection.getKeys(false)) {
-                Material material = Material.matchMaterial(materialName);
-                if (material != null) {
-                    ConfigurationSection itemSection = perItemPriceSection.getConfigurationSection(materialName);
-                    if (itemSection != null) {
-                        if (itemSection.contains("min-price-per-item")) {
-                            MIN_PRICE_PER_ITEM_OVERRIDES.put(material, itemSection.getDouble("min-price-per-item"));
-                        }
-                        if (itemSection.contains("max-price-per-item")) {
-                            MAX_PRICE_PER_ITEM_OVERRIDES.put(material, itemSection.getDouble("max-price-per-item"));
-                        }
-                    }
-                }
-            }
-        }
-        
-        DATE_FORMAT = config.getString("date-format", "MM-dd HH:mm:ss");
-        HIGHLIGHT_PERMISSION = config.getString("permissions.use-highlight", "norder.highlight");
-        ORDER_EXPIRATION_PERMISSION = config.getString("permissions.order-expiration", "norder.expiration");
-        DEBUG = config.getBoolean("settings.debug", false);
-        List<Material> blacklist = config.getStringList("blacklist-items").stream()
-                .map(Material::matchMaterial)
-                .filter(Objects::nonNull)
-                .toList();
-
-        PROGRESS_BAR_LENGTH = config.getInt("progress-bar.length", 20);
-        PROGRESS_BAR_COMPLETE_CHAR = config.getString("progress-bar.complete-symbol", "█").charAt(0);
-        PROGRESS_BAR_INCOMPLETE_CHAR = config.getString("progress-bar.incomplete-symbol", "░").charAt(0);
-        PROGRESS_BAR_COMPLETE_COLOR = config.getString("progress-bar.complete-color", "&a");
-        PROGRESS_BAR_INCOMPLETE_COLOR = config.getString("progress-bar.incomplete-color", "&7");
-
-        BROADCAST_ENABLED = config.getBoolean("settings.broadcast.enabled", true);
-        BROADCAST_MIN_TOTAL_PRICE = config.getDouble("settings.broadcast.min-total-price", 1000);
+        snapshot = build(NOrder.getInstance().getConfig());
+        NOrder.getInstance().getMorePaperLib().scheduling().asyncScheduler().run(Settings::rebuildItemCatalog);
+    }
 
-        AUTO_SAVE_INTERVAL_MINUTES = config.getInt("settings.auto-save-interval", 5);
+    /**
+     * Builds the new settings off the server thread and swaps them in at once. Until the future
+     * completes, every reader keeps seeing the previous settings in full.
+     */
+    public static CompletableFuture<Void> reloadSettings() {
+        Configuration config = NOrder.getInstance().getConfig();
+        return CompletableFuture.supplyAsync(() -> build(config), SchedulerUtil.async())
+                .thenAccept(built -> {
+                    snapshot = built;
+                    rebuildItemCatalog();
+                });
+    }
 
-        CUSTOM_ITEM_ENABLED = config.getBoolean("settings.custom-item-support", true);
+    private static Snapshot build(Configuration config) {
+        Set<Material> blacklist = EnumSet.noneOf(Material.class);
+        for (String name : config.getStringList("blacklist-items")) {
+            Material material = Material.matchMaterial(name);
+            if (material != null) blacklist.add(material);
+        }
 
-        NOrder.getInstance().getMorePaperLib().scheduling().asyncScheduler().run(() -> {
-            List<Material> items = Arrays.stream(Material.values())
-                    .filter(m -> !m.isAir() && m.isItem() && !m.isLegacy())
-                    .filter(m -> !blacklist.contains(m))
-                    .collect(Collectors.toList());
+        List<Material> items = Arrays.stream(Material.values())
+                .filter(m -> !m.isAir() && m.isItem() && !m.isLegacy())
+                .filter(m -> !blacklist.contains(m))
+                .toList();
+        return new Snapshot(config, items);
+    }
 
-            NOrder.getInstance().getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> availableItems = items);
-        });
+    /**
+     * Builds the item catalog and enchant table from the current materials and custom items.
+     * Synchronized so the last of two concurrent rebuilds always sees the newest of both.
+     */
+    public static synchronized void rebuildItemCatalog() {
+        Snapshot settings = snapshot;
+        List<Material> materials = settings.getAvailableItems();
+        List<ItemStack> custom = settings.isCustomItemEnabled() ? customItems.items() : List.of();
+
+        ConfigurationManager configurationManager = NOrder.getInstance().getConfigurationManager();
+        Configuration menus = configurationManager == null ? null : configurationManager.getMenuConfiguration().getConfiguration();
+        ConfigurationSection itemTemplate = menus == null ? null : menus.getConfigurationSection("item-select-menu.items.select-item-template");
+        ConfigurationSection enchantTemplate = menus == null ? null : menus.getConfigurationSection("enchant-select-menu.items.enchant-item-template");
+
+        long start = System.nanoTime();
+        EnchantTable enchants = EnchantTable.build(materials, enchantTemplate);
+        itemCatalog = ItemCatalog.build(materials, custom, enchants, NOrder.getInstance().getCustomItemManager(), itemTemplate);
+        enchantTable = enchants;
+        if (settings.isDebug()) {
+            NLogger.info("Built the item catalog with " + itemCatalog.getEntries().size() + " items in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
     }
 
 
+    /**
+     * Loads the custom items from customitems.yml aside and swaps them in once loaded. Whenever loading
+     * stops early or yields nothing, the previously loaded items stay in place.
+     */
     public static void loadCustomItems() {
-        customItems.clear();
-        customItemsCache.clear();
-
-        if (!CUSTOM_ITEM_ENABLED) {
-            if (DEBUG) {
+        boolean debug = snapshot.isDebug();
+        if (!snapshot.isCustomItemEnabled()) {
+            if (debug) {
                 NLogger.info("✗ Custom item support is disabled in config.yml");
             }
             return;
@@ -141,7 +116,7 @@ public class Settings {
 
         CustomItemManager customItemManager = NOrder.getInstance().getCustomItemManager();
         if (customItemManager == null || !customItemManager.hasAnyProvider()) {
-            if (DEBUG) {
+            if (debug) {
                 NLogger.info("✗ No custom item providers available, skipping custom item loading");
             }
             return;
@@ -161,56 +136,179 @@ public class Settings {
         List<String> itemIds = customItemsConfig.getStringList("items");
 
         if (itemIds.isEmpty()) {
-            if (DEBUG) {
+            if (debug) {
                 NLogger.info("✗ No custom items defined in customitems.yml");
             }
             return;
         }
 
-        if (DEBUG) {
+        if (debug) {
             NLogger.info("Loading " + itemIds.size() + " custom item(s) from customitems.yml...");
         }
-        customItems = customItemManager.getCustomItemsFromIds(itemIds);
+        List<ItemStack> loaded = List.copyOf(customItemManager.getCustomItemsFromIds(itemIds));
 
-        if (!customItems.isEmpty()) {
-            for (ItemStack item : customItems) {
+        if (!loaded.isEmpty()) {
+            Map<String, ItemStack> cache = new HashMap<>();
+            for (ItemStack item : loaded) {
                 String customId = customItemManager.getCustomItemId(item);
                 if (customId != null) {
-                    customItemsCache.put(customId, item.clone());
+                    cache.put(customId, item.clone());
                 }
             }
-            NLogger.info("✓ Cached " + customItemsCache.size() + " custom items");
+            customItems = new CustomItems(loaded, Map.copyOf(cache));
+            NLogger.info("✓ Cached " + cache.size() + " custom items");
+            OrderManager orderManager = NOrder.getInstance().getOrderManager();
+            if (orderManager != null) {
+                orderManager.reindexCustomItems();
+            }
+            NOrder.getInstance().getMorePaperLib().scheduling().asyncScheduler().run(Settings::rebuildItemCatalog);
         } else {
-            if (DEBUG) {
+            if (debug) {
                 NLogger.info("✗ Failed to load any custom items from customitems.yml");
             }
         }
     }
 
     public static ItemStack getCustomItemFromCache(String customItemId) {
-        if (customItemId == null || customItemsCache.isEmpty()) {
+        if (customItemId == null) {
             return null;
         }
-        ItemStack cached = customItemsCache.get(customItemId);
+        ItemStack cached = customItems.byId().get(customItemId);
         return cached != null ? cached.clone() : null;
     }
 
     /**
-     * Get the minimum price per item for a specific material
-     * @param material The material to get the minimum price for
-     * @return The minimum price per item
+     * Everything read from config.yml, fixed once built. Per-item price limits are arrays indexed by
+     * material ordinal with the global limit filled in where no override exists.
      */
-    public static double getMinPricePerItem(Material material) {
-        return MIN_PRICE_PER_ITEM_OVERRIDES.getOrDefault(material, MIN_PRICE_PER_ITEM);
+    @Getter
+    public static final class Snapshot {
+
+        private final String orderMenuPermission;
+        private final String orderPermission;
+        private final String orderCancelPermission;
+        private final String orderAdminPermission;
+        private final String orderLimitPermission;
+        private final String orderExpirationPermission;
+        private final String highlightPermission;
+
+        private final List<String> orderAliases;
+        private final List<String> orderAdminAliases;
+
+        private final String dateFormat;
+
+        private final double highlightFee;
+        private final boolean sendWebhooks;
+
+        private final double minPricePerItem;
+        private final double maxPricePerItem;
+        @Getter(AccessLevel.NONE)
+        private final double[] minPrices;
+        @Getter(AccessLevel.NONE)
+        private final double[] maxPrices;
+
+        private final boolean debug;
+        private final long watchdogWarnMillis;
+
+        private final double tickBudgetMillis;
+        private final int tickBudgetMaxDeferTicks;
+
+        private final List<Material> availableItems;
+        @Getter(AccessLevel.NONE)
+        private final Set<Material> availableItemSet;
+
+        private final int progressBarLength;
+        private final char progressBarCompleteChar;
+        private final char progressBarIncompleteChar;
+        private final String progressBarCompleteColor;
+        private final String progressBarIncompleteColor;
+
+        private final boolean broadcastEnabled;
+        private final double broadcastMinTotalPrice;
+
+        private final int autoSaveIntervalMinutes;
+
+        private final boolean customItemEnabled;
+
+        private Snapshot(Configuration config, List<Material> availableItems) {
+            orderPermission = config.getString("permissions.order", "norder.use");
+            orderCancelPermission = config.getString("permissions.order-cancel", "norder.cancel");
+            orderMenuPermission = config.getString("permissions.order-menu", "norder.menu");
+            orderAliases = List.copyOf(config.getStringList("commands.order.aliases"));
+            orderLimitPermission = config.getString("permissions.order-limit", "norder.limit");
+            orderAdminAliases = List.copyOf(config.getStringList("commands.order-admin.aliases"));
+            orderAdminPermission = config.getString("permissions.order-admin", "norder.admin");
+            highlightFee = config.getDouble("settings.highlight-fee", 2.5);
+            sendWebhooks = config.getBoolean("settings.send-webhooks", false);
+            minPricePerItem = config.getDouble("settings.min-price-per-item", 0.01);
+            maxPricePerItem = config.getDouble("settings.max-price-per-item", 1000);
+
+            // Per-item price overrides
+            minPrices = new double[Material.values().length];
+            maxPrices = new double[minPrices.length];
+            Arrays.fill(minPrices, minPricePerItem);
+            Arrays.fill(maxPrices, maxPricePerItem);
+            ConfigurationSection perItemPriceSection = config.getConfigurationSection("per-item-price");
+            if (perItemPriceSection != null) {
+                for (String materialName : perItemPriceSection.getKeys(false)) {
+                    Material material = Material.matchMaterial(materialName);
+                    ConfigurationSection itemSection = perItemPriceSection.getConfigurationSection(materialName);
+                    if (material == null || itemSection == null) continue;
+                    if (itemSection.contains("min-price-per-item")) {
+                        minPrices[material.ordinal()] = itemSection.getDouble("min-price-per-item");
+                    }
+                    if (itemSection.contains("max-price-per-item")) {
+                        maxPrices[material.ordinal()] = itemSection.getDouble("max-price-per-item");
+                    }
+                }
+            }
+
+            dateFormat = config.getString("date-format", "MM-dd HH:mm:ss");
+            highlightPermission = config.getString("permissions.use-highlight", "norder.highlight");
+            orderExpirationPermission = config.getString("permissions.order-expiration", "norder.expiration");
+            debug = config.getBoolean("settings.debug", false);
+            watchdogWarnMillis = config.getLong("settings.watchdog-warn-ms", 1);
+            tickBudgetMillis = config.getDouble("settings.tick-budget.max-ms", 2.0);
+            tickBudgetMaxDeferTicks = Math.max(1, config.getInt("settings.tick-budget.max-defer-ticks", 20));
+
+            this.availableItems = List.copyOf(availableItems);
+            Set<Material> itemSet = EnumSet.noneOf(Material.class);
+            itemSet.addAll(availableItems);
+            availableItemSet = Collections.unmodifiableSet(itemSet);
+
+            progressBarLength = config.getInt("progress-bar.length", 20);
+            progressBarCompleteChar = config.getString("progress-bar.complete-symbol", "█").charAt(0);
+            progressBarIncompleteChar = config.getString("progress-bar.incomplete-symbol", "░").charAt(0);
+            progressBarCompleteColor = config.getString("progress-bar.complete-color", "&a");
+            progressBarIncompleteColor = config.getString("progress-bar.incomplete-color", "&7");
+
+            broadcastEnabled = config.getBoolean("settings.broadcast.enabled", true);
+            broadcastMinTotalPrice = config.getDouble("settings.broadcast.min-total-price", 1000);
+
+            autoSaveIntervalMinutes = config.getInt("settings.auto-save-interval", 5);
+
+            customItemEnabled = config.getBoolean("settings.custom-item-support", true);
+        }
+
+        /**
+         * Whether orders may be placed for {@code material}.
+         */
+        public boolean isAvailable(Material material) {
+            return availableItemSet.contains(material);
+        }
+
+        public double getMinPricePerItem(Material material) {
+            return minPrices[material.ordinal()];
+        }
+
+        public double getMaxPricePerItem(Material material) {
+            return maxPrices[material.ordinal()];
+        }
+
     }
 
-    /**
-     * Get the maximum price per item for a specific material
-     * @param material The material to get the maximum price for
-     * @return The maximum price per item
-     */
-    public static double getMaxPricePerItem(Material material) {
-        return MAX_PRICE_PER_ITEM_OVERRIDES.getOrDefault(material, MAX_PRICE_PER_ITEM);
+    private record CustomItems(List<ItemStack> items, Map<String, ItemStack> byId) {
+
     }
 
 }
@@ -3,12 +3,27 @@ package com.notpatch.nOrder.command;
 import com.notpatch.nOrder.LanguageLoader;
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.Settings;
+import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.database.EscrowRepository;
+import com.notpatch.nOrder.database.SqlMigrator;
+import com.notpatch.nOrder.database.StorageBackend;
+import com.notpatch.nOrder.database.StoreMigrator;
+import com.notpatch.nOrder.manager.StorageMigrationManager;
+import com.notpatch.nOrder.manager.MainThreadWatchdog;
+import com.notpatch.nOrder.manager.MetricsRegistry;
+import com.notpatch.nOrder.model.LatencyHistogram;
 import com.notpatch.nOrder.model.Order;
 import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.model.RollingStats;
+import com.notpatch.nOrder.model.StatType;
+import com.notpatch.nOrder.model.TimeWindow;
+import com.notpatch.nOrder.util.Money;
 import com.notpatch.nOrder.util.NumberFormatter;
+import com.notpatch.nOrder.util.SchedulerUtil;
 import com.notpatch.nOrder.util.StringUtil;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.util.ColorUtil;
+import com.notpatch.nlib.util.NLogger;
 import io.papermc.paper.command.brigadier.BasicCommand;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import net.kyori.adventure.text.Component;
@@ -22,13 +37,23 @@ import org.bukkit.entity.Player;
 import org.jspecify.annotations.Nullable;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class OrderAdminCommand implements BasicCommand {
 
+    private static final Set<String> SQL_DATABASES = Set.of("sqlite", "mysql");
+    private static final long MIGRATE_PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @Override
@@ -75,6 +100,38 @@ public class OrderAdminCommand implements BasicCommand {
                     sender.sendMessage(LanguageLoader.getMessage("admin-usage-player"));
                 }
             }
+            case "stats" -> {
+                if (args.length <= 2) {
+                    handleStatsCommand(sender, entity, args.length == 2 ? args[1] : null);
+                } else {
+                    sender.sendMessage(LanguageLoader.getMessage("admin-usage-stats"));
+                }
+            }
+            case "reconcile" -> {
+                if (args.length == 1) {
+                    handleReconcileCommand(sender, entity);
+                } else {
+                    sender.sendMessage(LanguageLoader.getMessage("admin-usage-reconcile"));
+                }
+            }
+            case "perf" -> {
+                if (args.length == 1) {
+                    handlePerfCommand(sender);
+                } else if (args.length == 2 && args[1].equalsIgnoreCase("reset")) {
+                    NOrder.getInstance().getMetricsRegistry().reset();
+                    NOrder.getInstance().getMainThreadWatchdog().reset();
+                    sender.sendMessage(LanguageLoader.getMessage("admin-perf-reset"));
+                } else {
+                    sender.sendMessage(LanguageLoader.getMessage("admin-usage-perf"));
+                }
+            }
+            case "migrate" -> {
+                if (args.length == 3) {
+                    handleMigrateCommand(sender, entity, args[1], args[2]);
+                } else {
+                    sender.sendMessage(LanguageLoader.getMessage("admin-usage-migrate"));
+                }
+            }
             default -> sendUsage(sender);
         }
     }
@@ -84,6 +141,10 @@ public class OrderAdminCommand implements BasicCommand {
         sender.sendMessage(LanguageLoader.getMessage("admin-usage-info"));
         sender.sendMessage(LanguageLoader.getMessage("admin-usage-delete"));
         sender.sendMessage(LanguageLoader.getMessage("admin-usage-player"));
+        sender.sendMessage(LanguageLoader.getMessage("admin-usage-stats"));
+        sender.sendMessage(LanguageLoader.getMessage("admin-usage-reconcile"));
+        sender.sendMessage(LanguageLoader.getMessage("admin-usage-perf"));
+        sender.sendMessage(LanguageLoader.getMessage("admin-usage-migrate"));
     }
 
     private void handleInfoCommand(CommandSender sender, Entity entity, String orderId) {
@@ -101,8 +162,8 @@ public class OrderAdminCommand implements BasicCommand {
                         .replace("%owner%", order.getPlayerName())
                         .replace("%item%", StringUtil.formatMaterialName(order.getMaterial()))
                         .replace("%amount%", String.valueOf(order.getAmount()))
-                        .replace("%price%", NumberFormatter.format(order.getPrice()))
-                        .replace("%total_price%", NumberFormatter.format(order.getPrice() * order.getAmount()))
+                        .replace("%price%", NumberFormatter.formatMoney(order.getPrice()))
+                        .replace("%total_price%", NumberFormatter.formatMoney(order.getTotalPrice()))
                         .replace("%status%", order.getStatus().name())
                         .replace("%delivered%", String.valueOf(order.getDelivered()))
                         .replace("%collected%", String.valueOf(order.getCollected()))
@@ -118,7 +179,7 @@ public class OrderAdminCommand implements BasicCommand {
                     .clickEvent(ClickEvent.suggestCommand("/orderadmin delete " + orderId));
             sender.sendMessage(actions);
         } else {
-            sender.sendMessage(LanguageLoader.getMessage("order-not-found").replace("%id%", orderId));
+            sender.sendMessage(LanguageLoader.getMessage("order-not-found", "%id%", orderId));
             if (entity instanceof Player player) {
                 NSound.error(player);
             }
@@ -130,13 +191,15 @@ public class OrderAdminCommand implements BasicCommand {
         if (order != null) {
             String adminName = entity instanceof Player player ? player.getName() : "Console";
             NOrder.getInstance().getOrderLogger().logAdminAction(adminName, "DELETE", order);
-            NOrder.getInstance().getOrderManager().removeOrder(order);
-            sender.sendMessage(LanguageLoader.getMessage("order-deleted").replace("%id%", orderId));
-            if (entity instanceof Player player) {
-                NSound.success(player);
-            }
+            NOrder.getInstance().getEscrowManager().forfeit(order);
+            NOrder.getInstance().getOrderManager().removeOrder(order).thenAcceptAsync(removed -> {
+                sender.sendMessage(LanguageLoader.getMessage("order-deleted", "%id%", orderId));
+                if (entity instanceof Player player) {
+                    NSound.success(player);
+                }
+            }, SchedulerUtil.of(sender));
         } else {
-            sender.sendMessage(LanguageLoader.getMessage("order-not-found").replace("%id%", orderId));
+            sender.sendMessage(LanguageLoader.getMessage("order-not-found", "%id%", orderId));
             if (entity instanceof Player player) {
                 NSound.error(player);
             }
@@ -148,7 +211,7 @@ public class OrderAdminCommand implements BasicCommand {
         List<Order> playerOrders = NOrder.getInstance().getOrderManager().getPlayerOrdersIncludingCompleted(playerName);
 
         if (playerOrders.isEmpty()) {
-            sender.sendMessage(LanguageLoader.getMessage("player-no-orders").replace("%player%", playerName));
+            sender.sendMessage(LanguageLoader.getMessage("player-no-orders", "%player%", playerName));
             if (entity instanceof Player player) {
                 NSound.error(player);
             }
@@ -160,6 +223,232 @@ public class OrderAdminCommand implements BasicCommand {
         }
     }
 
+    private void handleStatsCommand(CommandSender sender, Entity entity, String playerName) {
+        if (playerName == null) {
+            sendStats(sender, entity, LanguageLoader.getMessage("admin-stats-server"),
+                    NOrder.getInstance().getPlayerStatsManager().getGlobalWindows());
+            return;
+        }
+
+        NOrder.getInstance().getPlayerStatsManager().findStatisticsByName(playerName)
+                .whenCompleteAsync((stats, error) -> {
+                    if (error != null || stats == null) {
+                        sender.sendMessage(LanguageLoader.getMessage("admin-stats-not-found", "%player%", playerName));
+                        if (entity instanceof Player player) {
+                            NSound.error(player);
+                        }
+                        return;
+                    }
+                    sendStats(sender, entity, stats.getPlayerName(), stats.getWindows());
+                }, SchedulerUtil.of(sender));
+    }
+
+    private void sendStats(CommandSender sender, Entity entity, String target, RollingStats windows) {
+        sender.sendMessage(LanguageLoader.getMessage("admin-stats-header", "%target%", target));
+        for (StatType type : StatType.values()) {
+            sender.sendMessage(LanguageLoader.getMessage("admin-stats-line",
+                    "%stat%", LanguageLoader.getMessage("stat-names." + type.getKey()),
+                    "%day%", type.format(windows.sum(type, TimeWindow.DAY)),
+                    "%week%", type.format(windows.sum(type, TimeWindow.WEEK)),
+                    "%month%", type.format(windows.sum(type, TimeWindow.MONTH))));
+        }
+        if (entity instanceof Player player) {
+            NSound.success(player);
+        }
+    }
+
+    private void handleReconcileCommand(CommandSender sender, Entity entity) {
+        sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-running"));
+        NOrder.getInstance().getEscrowManager().reconcile().whenCompleteAsync((report, error) -> {
+            if (error != null) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-failed", "%error%", error.getCause().getMessage()));
+                if (entity instanceof Player player) {
+                    NSound.error(player);
+                }
+                return;
+            }
+
+            EscrowRepository.Reconciliation ledger = report.ledger();
+            sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-header"));
+            sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-totals",
+                    "%total_held%", Money.format(ledger.totalHeld()),
+                    "%held%", Money.format(ledger.held()),
+                    "%owed%", Money.format(ledger.owed()),
+                    "%paid%", Money.format(ledger.paidOut()),
+                    "%forfeited%", Money.format(ledger.forfeited())));
+
+            if (report.balanced()) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-ok"));
+                if (entity instanceof Player player) {
+                    NSound.success(player);
+                }
+                return;
+            }
+
+            sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-mismatch",
+                    "%orders%", String.valueOf(ledger.orderMismatches().size()),
+                    "%players%", String.valueOf(ledger.playerMismatches().size()),
+                    "%live%", String.valueOf(report.liveMismatches().size()),
+                    "%imbalance%", Money.format(ledger.imbalance())));
+            List<String> ids = new ArrayList<>(ledger.orderMismatches());
+            ids.addAll(report.liveMismatches());
+            if (!ids.isEmpty()) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-reconcile-orders", "%ids%", String.join(", ", ids.subList(0, Math.min(ids.size(), 20)))));
+            }
+            if (entity instanceof Player player) {
+                NSound.error(player);
+            }
+        }, SchedulerUtil.of(sender));
+    }
+
+    private void handlePerfCommand(CommandSender sender) {
+        MetricsRegistry registry = NOrder.getInstance().getMetricsRegistry();
+        Map<String, LatencyHistogram.Snapshot> timers = registry.getTimers();
+        Map<String, Long> counters = registry.getCounters();
+        Map<String, Long> gauges = registry.getGauges();
+
+        long seconds = (long) registry.getSecondsSinceReset();
+        sender.sendMessage(LanguageLoader.getMessage("admin-perf-header", "%duration%", String.format("%dh %dm %ds", seconds / 3600, seconds / 60 % 60, seconds % 60)));
+
+        if (timers.values().stream().allMatch(snapshot -> snapshot.count() == 0) && counters.values().stream().allMatch(value -> value == 0)) {
+            sender.sendMessage(LanguageLoader.getMessage("admin-perf-empty"));
+        }
+
+        timers.forEach((name, snapshot) -> {
+            if (snapshot.count() == 0) return;
+            sender.sendMessage(LanguageLoader.getMessage("admin-perf-timer",
+                    "%name%", name,
+                    "%count%", String.valueOf(snapshot.count()),
+                    "%rate%", String.format("%.2f", registry.rate(snapshot.count())),
+                    "%p50%", MetricsRegistry.formatMillis(snapshot.p50()),
+                    "%p99%", MetricsRegistry.formatMillis(snapshot.p99()),
+                    "%max%", MetricsRegistry.formatMillis(snapshot.max())));
+        });
+        counters.forEach((name, value) -> {
+            if (value == 0) return;
+            sender.sendMessage(LanguageLoader.getMessage("admin-perf-counter",
+                    "%name%", name,
+                    "%value%", String.valueOf(value),
+                    "%rate%", String.format("%.2f", registry.rate(value))));
+        });
+        gauges.forEach((name, value) -> sender.sendMessage(LanguageLoader.getMessage("admin-perf-gauge",
+                "%name%", name,
+                "%value%", String.valueOf(value))));
+
+        List<MainThreadWatchdog.Site> sites = NOrder.getInstance().getMainThreadWatchdog().getSites();
+        if (sites.isEmpty()) return;
+        sender.sendMessage(LanguageLoader.getMessage("admin-perf-io-header"));
+        sites.stream().limit(10).forEach(site -> sender.sendMessage(LanguageLoader.getMessage("admin-perf-io",
+                "%kind%", site.getKind(),
+                "%site%", site.getCallSite(),
+                "%count%", String.valueOf(site.getCount()),
+                "%total%", MetricsRegistry.formatMillis(site.getTotalNanos()),
+                "%max%", MetricsRegistry.formatMillis(site.getMaxNanos()))));
+    }
+
+    private void handleMigrateCommand(CommandSender sender, Entity entity, String fromKey, String toKey) {
+        fromKey = fromKey.toLowerCase();
+        toKey = toKey.toLowerCase();
+        DatabaseManager databaseManager = NOrder.getInstance().getDatabaseManager();
+        StorageMigrationManager migrationManager = NOrder.getInstance().getStorageMigrationManager();
+        String activeDatabase = databaseManager.isUsingSQLite() ? "sqlite" : "mysql";
+        boolean fromSQL = SQL_DATABASES.contains(fromKey);
+        boolean toSQL = SQL_DATABASES.contains(toKey);
+
+        if (fromSQL && toSQL) {
+            if (fromKey.equals(toKey)) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-migrate-invalid"));
+                return;
+            }
+            if (toKey.equals(activeDatabase)) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-migrate-active", "%backend%", activeDatabase));
+                return;
+            }
+            if (migrationManager.isRunning()) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-migrate-running"));
+                return;
+            }
+            sendMigrateStarted(sender, fromKey, toKey);
+            reportMigration(sender, entity, migrationManager.migrateDatabase(fromKey.equals("sqlite"), migrateProgress(sender)));
+            return;
+        }
+
+        // The journal only exchanges data with the database the plugin is connected to
+        if ((fromSQL && !fromKey.equals(activeDatabase)) || (toSQL && !toKey.equals(activeDatabase))) {
+            sender.sendMessage(LanguageLoader.getMessage("admin-migrate-journal", "%database%", activeDatabase));
+            return;
+        }
+
+        StorageBackend from = fromSQL ? StorageBackend.DATABASE : StorageBackend.fromKey(fromKey);
+        StorageBackend to = toSQL ? StorageBackend.DATABASE : StorageBackend.fromKey(toKey);
+        if (from == null || to == null || from == to || from == StorageBackend.MEMORY || to == StorageBackend.MEMORY) {
+            sender.sendMessage(LanguageLoader.getMessage("admin-migrate-invalid"));
+            return;
+        }
+        StorageBackend active = databaseManager.getStorageBackend();
+        if (to == active) {
+            sender.sendMessage(LanguageLoader.getMessage("admin-migrate-active", "%backend%", active.getKey()));
+            return;
+        }
+        if (migrationManager.isRunning()) {
+            sender.sendMessage(LanguageLoader.getMessage("admin-migrate-running"));
+            return;
+        }
+
+        sendMigrateStarted(sender, from.getKey(), to.getKey());
+        reportMigration(sender, entity, migrationManager.migrate(from, to));
+    }
+
+    private void sendMigrateStarted(CommandSender sender, String from, String to) {
+        sender.sendMessage(LanguageLoader.getMessage("admin-migrate-started",
+                "%from%", from,
+                "%to%", to));
+    }
+
+    // Called after every batch; only tells the sender every few seconds and when a table is done.
+    private Consumer<SqlMigrator.Progress> migrateProgress(CommandSender sender) {
+        AtomicLong lastReport = new AtomicLong();
+        return progress -> {
+            long now = System.nanoTime();
+            long last = lastReport.get();
+            boolean tableDone = progress.copied() >= progress.total();
+            if (!tableDone && now - last < MIGRATE_PROGRESS_INTERVAL_NANOS) return;
+            if (!lastReport.compareAndSet(last, now)) return;
+
+            String message = LanguageLoader.getMessage("admin-migrate-progress",
+                    "%table%", progress.table(),
+                    "%copied%", String.valueOf(progress.copied()),
+                    "%total%", String.valueOf(progress.total()),
+                    "%rate%", String.valueOf(rowsPerSecond(progress.copied(), progress.elapsedNanos())));
+            SchedulerUtil.of(sender).execute(() -> sender.sendMessage(message));
+        };
+    }
+
+    private void reportMigration(CommandSender sender, Entity entity, CompletableFuture<StoreMigrator.Result> migration) {
+        migration.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                sender.sendMessage(LanguageLoader.getMessage("admin-migrate-failed", "%error%", error.getCause().getMessage()));
+                if (entity instanceof Player player) {
+                    NSound.error(player);
+                }
+                return;
+            }
+            sender.sendMessage(LanguageLoader.getMessage("admin-migrate-done",
+                    "%orders%", String.valueOf(result.orders()),
+                    "%statistics%", String.valueOf(result.statistics()),
+                    "%rows%", String.valueOf(result.rows()),
+                    "%rate%", String.valueOf(rowsPerSecond(result.rows(), result.nanos())),
+                    "%duration%", MetricsRegistry.formatMillis(result.nanos())));
+            if (entity instanceof Player player) {
+                NSound.success(player);
+            }
+        }, SchedulerUtil.of(sender));
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos <= 0 ? rows : rows * 1_000_000_000L / nanos;
+    }
+
     private NamedTextColor getStatusColor(OrderStatus status) {
         return switch (status) {
             case ACTIVE -> NamedTextColor.GREEN;
@@ -181,7 +470,7 @@ public class OrderAdminCommand implements BasicCommand {
     @Override
     public Collection<String> suggest(CommandSourceStack commandSourceStack, String[] args) {
 
-        List<String> suggestions = List.of("reload", "info", "delete", "player");
+        List<String> suggestions = List.of("reload", "info", "delete", "player", "stats", "reconcile", "perf", "migrate");
 
         if (args.length == 0) {
             return suggestions;
@@ -199,10 +488,12 @@ public class OrderAdminCommand implements BasicCommand {
                         .map(Order::getId)
                         .filter(id -> id.toLowerCase().startsWith(input))
                         .collect(Collectors.toList());
-                case "player" -> Bukkit.getOnlinePlayers().stream()
+                case "player", "stats" -> Bukkit.getOnlinePlayers().stream()
                         .map(Player::getName)
                         .filter(name -> name.toLowerCase().startsWith(input))
                         .collect(Collectors.toList());
+                case "perf" -> "reset".startsWith(input) ? List.of("reset") : Collections.emptyList();
+                case "migrate" -> migrationBackends(input);
                 default -> Collections.emptyList();
             };
         } else if (args.length == 3) {
@@ -211,17 +502,26 @@ public class OrderAdminCommand implements BasicCommand {
             if (subCommand.equals("player")) {
                 return List.of("10", "20", "50", "100");
             }
+            if (subCommand.equals("migrate")) {
+                return migrationBackends(args[2].toLowerCase());
+            }
         }
         return Collections.emptyList();
     }
+    private List<String> migrationBackends(String input) {
+        return List.of("sqlite", "mysql", StorageBackend.JOURNAL.getKey(), StorageBackend.DATABASE.getKey()).stream()
+                .filter(key -> key.startsWith(input))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public boolean canUse(CommandSender sender) {
-        return sender.hasPermission(Settings.ORDER_ADMIN_PERMISSION);
+        return sender.hasPermission(Settings.current().getOrderAdminPermission());
     }
 
     @Override
     public @Nullable String permission() {
-        return Settings.ORDER_ADMIN_PERMISSION;
+        return Settings.current().getOrderAdminPermission();
     }
 
     private void reloadConfigurations(CommandSender sender) {
@@ -231,11 +531,19 @@ public class OrderAdminCommand implements BasicCommand {
         main.saveConfig();
 
         main.getLanguageLoader().loadLangs();
-        Settings.loadSettings();
-        Settings.loadCustomItems();
+        // Menus first, the item catalog built by the settings uses their templates
         main.getConfigurationManager().reloadConfigurations();
-        main.getWebhookManager().loadWebhooks();
-        sender.sendMessage("§aConfigurations reloaded.");
+        // Built off the server thread; until it is swapped in, everything keeps reading the old settings
+        Settings.reloadSettings().whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                NLogger.warn("Failed to reload settings: " + error.getCause().getMessage());
+                sender.sendMessage("§cFailed to reload settings, see the console.");
+                return;
+            }
+            Settings.loadCustomItems();
+            main.getWebhookManager().loadWebhooks();
+            sender.sendMessage("§aConfigurations reloaded.");
+        }, SchedulerUtil.global());
     }
 
 }
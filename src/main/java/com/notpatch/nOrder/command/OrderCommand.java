@@ -7,6 +7,7 @@ import com.notpatch.nOrder.gui.MainOrderMenu;
 import com.notpatch.nOrder.gui.OrderDetailsMenu;
 import com.notpatch.nOrder.gui.OrderTakeMenu;
 import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.util.Money;
 import com.notpatch.nOrder.util.PlayerUtil;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.util.ColorUtil;
@@ -95,15 +96,13 @@ public class OrderCommand implements BasicCommand {
 
         Material material = Material.matchMaterial(materialName);
         if (material == null || !material.isItem() || material.isAir()) {
-            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("invalid-item")
-                    .replace("%item%", materialName)));
+            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("invalid-item", "%item%", materialName)));
             NSound.error(player);
             return;
         }
 
-        if (!Settings.availableItems.contains(material)) {
-            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("invalid-item")
-                    .replace("%item%", materialName)));
+        if (!Settings.current().isAvailable(material)) {
+            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("invalid-item", "%item%", materialName)));
             NSound.error(player);
             return;
         }
@@ -127,9 +126,9 @@ public class OrderCommand implements BasicCommand {
             return;
         }
 
-        double pricePerItem;
+        long pricePerItem;
         try {
-            pricePerItem = Double.parseDouble(priceStr);
+            pricePerItem = Money.parse(priceStr);
             if (pricePerItem <= 0) {
                 player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("invalid-price")));
                 NSound.error(player);
@@ -141,36 +140,34 @@ public class OrderCommand implements BasicCommand {
             return;
         }
 
-        double minPrice = Settings.getMinPricePerItem(material);
-        double maxPrice = Settings.getMaxPricePerItem(material);
+        Settings.Snapshot settings = Settings.current();
+        long minPrice = Money.of(settings.getMinPricePerItem(material));
+        long maxPrice = Money.of(settings.getMaxPricePerItem(material));
         
         if (pricePerItem < minPrice) {
-            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-low")
-                    .replace("%min_price%", String.format("%.2f", minPrice))));
+            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-low", "%min_price%", Money.format(minPrice))));
             NSound.error(player);
             return;
         }
         
         if (pricePerItem > maxPrice) {
-            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-high")
-                    .replace("%max_price%", String.format("%.2f", maxPrice))));
+            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-high", "%max_price%", Money.format(maxPrice))));
             NSound.error(player);
             return;
         }
 
-        double totalPrice = quantity * pricePerItem;
+        long totalPrice = Money.times(pricePerItem, quantity);
         
 
         if (!PlayerUtil.isPlayerAdmin(player)) {
             int playerOrderLimit = PlayerUtil.getPlayerOrderLimit(player);
             if (NOrder.getInstance().getOrderManager().getPlayerOrderCount(player.getUniqueId()) >= playerOrderLimit) {
-                player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("order-limit-reached")
-                        .replace("%limit%", String.valueOf(playerOrderLimit))));
+                player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("order-limit-reached", "%limit%", String.valueOf(playerOrderLimit))));
                 NSound.error(player);
                 return;
             }
             
-            if (NOrder.getInstance().getEconomy().getBalance(player) < totalPrice) {
+            if (Money.of(NOrder.getInstance().getEconomy().getBalance(player)) < totalPrice) {
                 player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("not-enough-money")));
                 NSound.error(player);
                 return;
@@ -207,7 +204,7 @@ public class OrderCommand implements BasicCommand {
                     .collect(Collectors.toList());
         } else if (args.length == 2 && args[0].equalsIgnoreCase("create")) {
             String input = args[1].toUpperCase();
-            return Settings.availableItems.stream()
+            return Settings.current().getAvailableItems().stream()
                     .map(Material::name)
                     .filter(name -> name.startsWith(input))
                     .limit(50)
@@ -224,13 +221,13 @@ public class OrderCommand implements BasicCommand {
     @Override
     public boolean canUse(CommandSender sender) {
         if (sender instanceof Player) {
-            return sender.hasPermission(Settings.ORDER_MENU_PERMISSION);
+            return sender.hasPermission(Settings.current().getOrderMenuPermission());
         }
         return false;
     }
 
     @Override
     public @Nullable String permission() {
-        return Settings.ORDER_MENU_PERMISSION;
+        return Settings.current().getOrderMenuPermission();
     }
 }
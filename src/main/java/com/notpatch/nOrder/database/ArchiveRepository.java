@@ -0,0 +1,124 @@
+package com.notpatch.nOrder.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Batched queries used by the archive compaction job. Every call touches at most {@code limit} rows
+ * so locks on the live table are only held briefly.
+ */
+public class ArchiveRepository {
+
+    public static final String CSV_HEADER = "order_id,player_id,player_name,material,custom_item_id,enchantments,amount,price,delivered,collected,created_at,expires_at,highlight,status,archived_at";
+
+    private static final String ORDER_COLUMNS = "order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, price_minor, delivered, collected, created_at, expires_at, highlight, status, version";
+
+    private final DatabaseManager databaseManager;
+
+    public ArchiveRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Moves up to {@code limit} archived or cancelled orders last touched before {@code cutoff}
+     * from orders into orders_archive. Returns the number of rows moved.
+     */
+    public CompletableFuture<Integer> moveClosedOrders(LocalDateTime cutoff, int limit) {
+        return databaseManager.write(null, conn -> {
+            List<String> ids = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                    SELECT order_id FROM orders
+                    WHERE status IN ('ARCHIVED', 'CANCELLED') AND COALESCE(updated_at, expires_at) < ?
+                    LIMIT ?
+                    """)) {
+                stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getString(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) return 0;
+
+            String in = placeholders(ids.size());
+            try (PreparedStatement copy = conn.prepareStatement("REPLACE INTO orders_archive (" + ORDER_COLUMNS + ") SELECT "
+                    + ORDER_COLUMNS + " FROM orders WHERE order_id IN (" + in + ")");
+                 PreparedStatement delete = conn.prepareStatement("DELETE FROM orders WHERE order_id IN (" + in + ")")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    copy.setString(i + 1, ids.get(i));
+                    delete.setString(i + 1, ids.get(i));
+                }
+                copy.executeUpdate();
+                return delete.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Reads up to {@code limit} archive rows older than {@code cutoff}, oldest first, as CSV lines
+     * keyed by order id.
+     */
+    public CompletableFuture<List<ArchivedRow>> fetchExpiredArchive(LocalDateTime cutoff, int limit) {
+        return databaseManager.supplyAsync(conn -> {
+            List<ArchivedRow> rows = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT * FROM orders_archive WHERE archived_at < ? ORDER BY archived_at LIMIT ?")) {
+                stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new ArchivedRow(rs.getString("order_id"), toCsv(rs)));
+                    }
+                }
+            }
+            return rows;
+        });
+    }
+
+    public CompletableFuture<Integer> deleteArchived(List<String> orderIds) {
+        if (orderIds.isEmpty()) return CompletableFuture.completedFuture(0);
+
+        List<String> ids = List.copyOf(orderIds);
+        return databaseManager.write(null, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM orders_archive WHERE order_id IN (" + placeholders(ids.size()) + ")")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    stmt.setString(i + 1, ids.get(i));
+                }
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static String toCsv(ResultSet rs) throws SQLException {
+        String[] columns = CSV_HEADER.split(",");
+        StringBuilder line = new StringBuilder(256);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) line.append(',');
+            String value = rs.getString(columns[i]);
+            if (value == null) continue;
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+
+    public record ArchivedRow(String orderId, String csv) {
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.notpatch.nOrder.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Groups streamed rows into batches and waits for each batch to be consumed before collecting the next.
+ */
+final class BatchSink<T> {
+
+    private final int batchSize;
+    private final Function<List<T>, CompletableFuture<?>> sink;
+    private List<T> batch;
+    private long streamed;
+
+    BatchSink(int batchSize, Function<List<T>, CompletableFuture<?>> sink) {
+        this.batchSize = Math.max(1, batchSize);
+        this.sink = sink;
+        this.batch = new ArrayList<>(this.batchSize);
+    }
+
+    void add(T row) {
+        batch.add(row);
+        if (batch.size() >= batchSize) flush();
+    }
+
+    /**
+     * Hands over the last partial batch and returns the number of rows streamed.
+     */
+    long finish() {
+        flush();
+        return streamed;
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) return;
+        sink.apply(batch).join();
+        streamed += batch.size();
+        batch = new ArrayList<>(batchSize);
+    }
+
+}
@@ -1,6 +1,10 @@
 package com.notpatch.nOrder.database;
 
 import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.database.migration.MigrationRunner;
+import com.notpatch.nOrder.database.migration.SchemaMigrations;
+import com.notpatch.nOrder.manager.MainThreadWatchdog;
+import com.notpatch.nOrder.manager.MetricsRegistry;
 import com.notpatch.nlib.util.NLogger;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -8,9 +12,10 @@ import lombok.Getter;
 import org.bukkit.configuration.Configuration;
 
 import java.io.File;
+import java.io.IOException;
 import java.sql.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.time.Duration;
+import java.util.concurrent.*;
 
 public class DatabaseManager {
 
@@ -20,17 +25,60 @@ public class DatabaseManager {
     private final ExecutorService executor;
     private final NOrder main;
     private final Configuration configuration;
+    private final MetricsRegistry metrics;
+    private final MainThreadWatchdog watchdog;
 
     @Getter
     private boolean usingSQLite = false;
 
+    private Semaphore connectionPermits = new Semaphore(1);
+
+    @Getter
+    private SQLiteWriteQueue writeQueue;
+
+    @Getter
+    private final OrderRepository orderRepository;
+    @Getter
+    private final StatsRepository statsRepository;
+    @Getter
+    private final ArchiveRepository archiveRepository;
+    @Getter
+    private final EscrowRepository escrowRepository;
+
+    @Getter
+    private StorageBackend storageBackend;
+    @Getter
+    private OrderStore orderStore;
+    @Getter
+    private StatsStore statsStore;
+    private JournalStore journalStore;
+
     public DatabaseManager(NOrder main) {
         this.main = main;
         this.configuration = main.getConfig();
-        this.executor = Executors.newFixedThreadPool(3);
+        this.metrics = main.getMetricsRegistry();
+        this.watchdog = main.getMainThreadWatchdog();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.orderRepository = new OrderRepository(this);
+        this.archiveRepository = new ArchiveRepository(this);
+        this.statsRepository = new StatsRepository(this);
+        this.escrowRepository = new EscrowRepository(this);
+        this.orderStore = orderRepository;
+        this.statsStore = statsRepository;
+
+        String backend = configuration.getString("storage.backend", "database");
+        this.storageBackend = StorageBackend.fromKey(backend);
+        if (storageBackend == null) {
+            NLogger.warn("Unknown storage backend '" + backend + "', using the database.");
+            storageBackend = StorageBackend.DATABASE;
+        }
     }
 
-    public void connect() {
+    /**
+     * Connects to the database and opens the configured order store. Returns false when that store
+     * cannot be opened; the plugin must not run on another one in its place.
+     */
+    public boolean connect() {
         if (configuration.getString("database.type").equalsIgnoreCase("mysql")) {
             if (!connectToMySQL()) {
                 NLogger.warn("Unable to connect to MySQL database, falling back to SQLite.");
@@ -39,26 +87,65 @@ public class DatabaseManager {
         } else {
             connectToSQLite();
         }
+        return openStore();
     }
 
-    private boolean connectToMySQL() {
-        try {
-            HikariConfig config = new HikariConfig();
+    private boolean openStore() {
+        switch (storageBackend) {
+            case MEMORY -> {
+                MemoryStore memory = new MemoryStore(executor);
+                orderStore = memory;
+                statsStore = memory;
+                NLogger.warn("Orders and player statistics are kept in memory only and will be lost on shutdown.");
+            }
+            case JOURNAL -> {
+                JournalStore journal = createJournalStore();
+                try {
+                    journal.open();
+                } catch (IOException | RuntimeException e) {
+                    // The database tables may be empty or stale, and the next save would overwrite them.
+                    NLogger.error("Unable to open the storage journal: " + e.getMessage());
+                    return false;
+                }
+                journalStore = journal;
+                orderStore = journal;
+                statsStore = journal;
+                metrics.gauge("journal.size-bytes", journal::getJournalSize);
+
+                long interval = Math.max(1, configuration.getLong("storage.journal.snapshot-interval-minutes", 5));
+                main.getMorePaperLib().scheduling().asyncScheduler().runAtFixedRate(this::snapshotJournal,
+                        Duration.ofMinutes(interval), Duration.ofMinutes(interval));
+            }
+            default -> {
+            }
+        }
+        return true;
+    }
 
-            String host = configuration.getString("database.host");
-            String database = configuration.getString("database.database");
-            String username = configuration.getString("database.username");
-            String password = configuration.getString("database.password");
-            int port = configuration.getInt("database.port", 3306);
+    /**
+     * A journal store on the configured directory, not yet opened.
+     */
+    public JournalStore createJournalStore() {
+        File directory = new File(main.getDataFolder(), configuration.getString("storage.journal.directory", "journal"));
+        long segmentSize = Math.max(1, configuration.getLong("storage.journal.segment-size-mb", 64)) * 1024 * 1024;
+        return new JournalStore(executor, directory.toPath(), segmentSize,
+                configuration.getBoolean("storage.journal.fsync", true), metrics);
+    }
 
-            String jdbcUrl = String.format("jdbc:mysql://%s:%d/%s", host, port, database);
-            config.setJdbcUrl(jdbcUrl);
-            config.setUsername(username);
-            config.setPassword(password);
+    private void snapshotJournal() {
+        try {
+            journalStore.snapshot();
+        } catch (IOException e) {
+            NLogger.error("Failed to write the storage snapshot: " + e.getMessage());
+        }
+    }
 
-            configureMySQLPool(config);
+    private boolean connectToMySQL() {
+        try {
+            HikariConfig config = mySQLConfig();
 
             dataSource = new HikariDataSource(config);
+            connectionPermits = new Semaphore(config.getMaximumPoolSize());
             testConnection();
 
             NLogger.info("Connected to MySQL");
@@ -72,24 +159,17 @@ public class DatabaseManager {
 
     private void connectToSQLite() {
         try {
-            Class.forName("org.sqlite.JDBC");
-
-            File dataFolder = main.getDataFolder();
-            if (!dataFolder.exists()) {
-                dataFolder.mkdirs();
-            }
-
-            File dbFile = new File(dataFolder, "database.db");
-
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
-            config.setDriverClassName("org.sqlite.JDBC");
-
-            configureSQLitePool(config);
+            HikariConfig config = sqliteConfig();
 
             dataSource = new HikariDataSource(config);
+            connectionPermits = new Semaphore(config.getMaximumPoolSize());
             usingSQLite = true;
 
+            writeQueue = new SQLiteWriteQueue(dataSource,
+                    configuration.getLong("database.sqlite.flush-interval-ms", 5),
+                    configuration.getInt("database.sqlite.max-batch-size", 500));
+            metrics.gauge("db.write-queue", () -> writeQueue.getPendingCount());
+
             testConnection();
             NLogger.info("Connected to SQLite");
 
@@ -98,6 +178,69 @@ public class DatabaseManager {
         }
     }
 
+    private HikariConfig mySQLConfig() {
+        HikariConfig config = new HikariConfig();
+
+        String host = configuration.getString("database.host");
+        String database = configuration.getString("database.database");
+        String username = configuration.getString("database.username");
+        String password = configuration.getString("database.password");
+        int port = configuration.getInt("database.port", 3306);
+
+        String jdbcUrl = String.format("jdbc:mysql://%s:%d/%s", host, port, database);
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        configureMySQLPool(config);
+        return config;
+    }
+
+    private HikariConfig sqliteConfig() throws ClassNotFoundException {
+        Class.forName("org.sqlite.JDBC");
+
+        File dataFolder = main.getDataFolder();
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        File dbFile = new File(dataFolder, "database.db");
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        config.setDriverClassName("org.sqlite.JDBC");
+
+        configureSQLitePool(config);
+        return config;
+    }
+
+    /**
+     * A separate one-connection pool to the configured MySQL server or the SQLite file, whichever is
+     * asked for, with the schema created and migrated. For bulk jobs that must not hold the plugin's
+     * own connections. The caller closes it.
+     */
+    public HikariDataSource openStandalone(boolean sqlite) throws SQLException {
+        HikariConfig config;
+        try {
+            config = sqlite ? sqliteConfig() : mySQLConfig();
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite driver not found", e);
+        }
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        config.setPoolName("norder-" + (sqlite ? "sqlite" : "mysql") + "-standalone");
+
+        HikariDataSource standalone = new HikariDataSource(config);
+        try (Connection conn = standalone.getConnection()) {
+            createSchema(conn, sqlite);
+            new MigrationRunner(sqlite, SchemaMigrations.all()).migrate(conn);
+        } catch (SQLException | RuntimeException e) {
+            standalone.close();
+            throw e;
+        }
+        return standalone;
+    }
+
     private void configureMySQLPool(HikariConfig config) {
 
         int poolSize = configuration.getInt("database.pool-size");
@@ -122,6 +265,8 @@ public class DatabaseManager {
         config.addDataSourceProperty("cacheServerConfiguration", "true");
         config.addDataSourceProperty("elideSetAutoCommits", "true");
         config.addDataSourceProperty("maintainTimeStats", "false");
+        // Lets statements that set a fetch size read through a server-side cursor instead of buffering every row.
+        config.addDataSourceProperty("useCursorFetch", "true");
     }
 
     private void configureSQLitePool(HikariConfig config) {
@@ -129,26 +274,122 @@ public class DatabaseManager {
         config.setMinimumIdle(1);
         config.setConnectionTimeout(30000);
         config.setPoolName("norder");
+
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", configuration.getString("database.sqlite.synchronous", "NORMAL"));
+        config.addDataSourceProperty("cache_size", String.valueOf(configuration.getInt("database.sqlite.cache-size", -16000)));
+        config.addDataSourceProperty("busy_timeout", "5000");
     }
 
     private void testConnection() {
+        long start = System.nanoTime();
         try (Connection conn = dataSource.getConnection()) {
             if (!conn.isValid(1000)) {
                 NLogger.error("Database connection test failed!");
             }
         } catch (SQLException e) {
             NLogger.error("Database connection test failed!");
+        } finally {
+            watchdog.check("db", start);
+        }
+    }
+
+    /**
+     * Runs a task against a pooled connection on a virtual thread.
+     * At most pool-size tasks hold a connection at once, the rest park cheaply until a permit frees up.
+     */
+    public <T> CompletableFuture<T> supplyAsync(SqlFunction<T> task) {
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            if (dataSource == null || dataSource.isClosed()) {
+                throw new CompletionException(new SQLException("Database connection is not available."));
+            }
+            connectionPermits.acquireUninterruptibly();
+            metrics.record("db.wait", queuedAt);
+            long start = System.nanoTime();
+            try (Connection conn = dataSource.getConnection()) {
+                return task.apply(conn);
+            } catch (SQLException e) {
+                metrics.increment("db.errors");
+                throw new CompletionException(e);
+            } finally {
+                metrics.record("db.task", start);
+                connectionPermits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs a mutation atomically. On SQLite it goes through the single writer and is group committed,
+     * writes sharing a non-null key are coalesced. The future completes once the write is committed.
+     */
+    public CompletableFuture<Integer> write(String key, SqlFunction<Integer> task) {
+        // Counted where the task runs, so coalesced writes are counted once.
+        SqlFunction<Integer> counted = conn -> {
+            Integer rows = task.apply(conn);
+            if (rows != null) metrics.add("db.rows-written", rows);
+            return rows;
+        };
+        if (writeQueue != null) {
+            return metrics.time("db.write", writeQueue.submit(key, counted));
+        }
+        return metrics.time("db.write", supplyAsync(conn -> inTransaction(conn, counted)));
+    }
+
+    /**
+     * Runs the task in its own transaction, rolling back if it throws.
+     */
+    static <T> T inTransaction(Connection conn, SqlFunction<T> task) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            T result = task.apply(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
         }
     }
 
     public void disconnect() {
+        if (journalStore != null) {
+            journalStore.close();
+        }
+        if (writeQueue != null) {
+            writeQueue.shutdown();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                NLogger.warn("Timed out waiting for pending database tasks to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
-        executor.shutdown();
     }
 
     public void createTables() {
+        long start = System.nanoTime();
+        try (Connection conn = dataSource.getConnection()) {
+            createSchema(conn, usingSQLite);
+
+            NLogger.info("Created orders table successfully.");
+
+            runMigrations(conn);
+
+        } catch (SQLException e) {
+            NLogger.error("Failed to create orders table: " + e.getMessage());
+        } finally {
+            watchdog.check("db", start);
+        }
+    }
+
+    private static void createSchema(Connection conn, boolean usingSQLite) throws SQLException {
         String createOrderTableMySQL = """
                 CREATE TABLE IF NOT EXISTS orders (
                     order_id VARCHAR(8) NOT NULL PRIMARY KEY,
@@ -159,12 +400,15 @@ public class DatabaseManager {
                     enchantments TEXT DEFAULT NULL,
                     amount INT NOT NULL,
                     price DOUBLE NOT NULL,
+                    price_minor BIGINT NOT NULL DEFAULT 0,
                     delivered INT DEFAULT 0,
                     collected INT DEFAULT 0,
                     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                     expires_at TIMESTAMP NOT NULL,
                     highlight BOOLEAN DEFAULT FALSE,
                     status VARCHAR(20) DEFAULT 'ACTIVE',
+                    version BIGINT NOT NULL DEFAULT 1,
+                    updated_at TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP,
                     INDEX idx_expires_at (expires_at)
                 );
                 
@@ -174,7 +418,8 @@ public class DatabaseManager {
                     delivered_items INT DEFAULT 0,
                     collected_items INT DEFAULT 0,
                     total_orders INT DEFAULT 0,
-                    total_earnings DOUBLE DEFAULT 0.0
+                    total_earnings DOUBLE DEFAULT 0.0,
+                    earnings_minor BIGINT NOT NULL DEFAULT 0
                 )
                 """;
 
@@ -188,12 +433,15 @@ public class DatabaseManager {
                     enchantments TEXT DEFAULT NULL,
                     amount INT NOT NULL,
                     price DOUBLE NOT NULL,
+                    price_minor BIGINT NOT NULL DEFAULT 0,
                     delivered INT DEFAULT 0,
                     collected INT DEFAULT 0,
                     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                     expires_at TIMESTAMP NOT NULL,
                     highlight BOOLEAN DEFAULT FALSE,
-                    status VARCHAR(20) DEFAULT 'ACTIVE'
+                    status VARCHAR(20) DEFAULT 'ACTIVE',
+                    version BIGINT NOT NULL DEFAULT 1,
+                    updated_at TIMESTAMP DEFAULT NULL
                 );
                 
                 CREATE TABLE IF NOT EXISTS player_stats (
@@ -202,15 +450,38 @@ public class DatabaseManager {
                     delivered_items INT DEFAULT 0,
                     collected_items INT DEFAULT 0,
                     total_orders INT DEFAULT 0,
-                    total_earnings DOUBLE DEFAULT 0.0
+                    total_earnings DOUBLE DEFAULT 0.0,
+                    earnings_minor BIGINT NOT NULL DEFAULT 0
                 )
                 """;
 
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
+        String createChangeTableMySQL = """
+                CREATE TABLE IF NOT EXISTS order_changes (
+                    seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                    order_id VARCHAR(8) NOT NULL,
+                    server_id VARCHAR(36) NOT NULL,
+                    version BIGINT NOT NULL,
+                    operation VARCHAR(10) NOT NULL,
+                    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    INDEX idx_changed_at (changed_at)
+                )
+                """;
+
+        String createChangeTableSQLite = """
+                CREATE TABLE IF NOT EXISTS order_changes (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                    order_id VARCHAR(8) NOT NULL,
+                    server_id VARCHAR(36) NOT NULL,
+                    version BIGINT NOT NULL,
+                    operation VARCHAR(10) NOT NULL,
+                    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """;
 
+        try (Statement stmt = conn.createStatement()) {
             String createOrderTable = usingSQLite ? createOrderTableSQLite : createOrderTableMySQL;
             stmt.executeUpdate(createOrderTable);
+            stmt.executeUpdate(usingSQLite ? createChangeTableSQLite : createChangeTableMySQL);
 
             if (usingSQLite) {
                 try {
@@ -219,69 +490,19 @@ public class DatabaseManager {
                     NLogger.warn("Failed to create index on SQLite: " + e.getMessage());
                 }
             }
-
-            NLogger.info("Created orders table successfully.");
-
-            runMigrations(conn);
-
-        } catch (SQLException e) {
-            NLogger.error("Failed to create orders table: " + e.getMessage());
         }
     }
 
 
     private void runMigrations(Connection conn) {
         try {
-            if (!columnExists(conn, "orders", "custom_item_id")) {
-                addCustomItemIdColumn(conn);
-            }
-        } catch (Exception e) {
-            NLogger.error("Failed to run migrations: " + e.getMessage());
-        }
-    }
-
-
-    private boolean columnExists(Connection conn, String tableName, String columnName) {
-        try {
-            String query = usingSQLite
-                    ? "PRAGMA table_info(" + tableName + ")"
-                    : "SHOW COLUMNS FROM " + tableName + " LIKE ?";
-
-            if (usingSQLite) {
-                try (Statement stmt = conn.createStatement();
-                     ResultSet rs = stmt.executeQuery(query)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("name");
-                        if (colName.equalsIgnoreCase(columnName)) {
-                            return true;
-                        }
-                    }
-                }
-            } else {
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, columnName);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        return rs.next();
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            NLogger.warn("Failed to check if column exists: " + e.getMessage());
-        }
-        return false;
-    }
-
-
-    private void addCustomItemIdColumn(Connection conn) {
-        try {
-            String sql = usingSQLite
-                    ? "ALTER TABLE orders ADD COLUMN custom_item_id VARCHAR(100) DEFAULT NULL"
-                    : "ALTER TABLE orders ADD COLUMN custom_item_id VARCHAR(100) DEFAULT NULL AFTER material";
-
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(sql);
+            MigrationRunner runner = new MigrationRunner(usingSQLite, SchemaMigrations.all());
+            int applied = runner.migrate(conn);
+            if (applied > 0) {
+                NLogger.info("Database schema is now at version " + runner.currentVersion(conn) + ".");
             }
         } catch (SQLException e) {
+            NLogger.error("Failed to run migrations: " + e.getMessage());
         }
     }
 
@@ -290,10 +511,13 @@ public class DatabaseManager {
             return false;
         }
 
+        long start = System.nanoTime();
         try (Connection conn = dataSource.getConnection()) {
             return conn.isValid(1000);
         } catch (SQLException e) {
             return false;
+        } finally {
+            watchdog.check("db", start);
         }
     }
 
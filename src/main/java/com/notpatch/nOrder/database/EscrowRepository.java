@@ -0,0 +1,280 @@
+package com.notpatch.nOrder.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Double-entry style escrow. Every movement is appended to escrow_ledger, escrow_holds tracks money
+ * held per order and escrow_payouts money owed per player until it is paid out through the economy.
+ * Amounts are minor units and always positive in the journal, the entry type gives the direction.
+ */
+public class EscrowRepository {
+
+    public static final String HOLD = "HOLD";
+    public static final String RELEASE = "RELEASE";
+    public static final String REFUND = "REFUND";
+    public static final String FORFEIT = "FORFEIT";
+    public static final String PAYOUT = "PAYOUT";
+    public static final String REVERSAL = "REVERSAL";
+
+    private static final String ADD_HOLD_MYSQL = """
+            INSERT INTO escrow_holds (order_id, player_id, held) VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE held = held + VALUES(held)
+            """;
+
+    private static final String ADD_HOLD_SQLITE = """
+            INSERT INTO escrow_holds (order_id, player_id, held) VALUES (?, ?, ?)
+            ON CONFLICT(order_id) DO UPDATE SET held = held + excluded.held
+            """;
+
+    private static final String ADJUST_OWED_MYSQL = """
+            INSERT INTO escrow_payouts (player_id, owed) VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE owed = owed + VALUES(owed)
+            """;
+
+    private static final String ADJUST_OWED_SQLITE = """
+            INSERT INTO escrow_payouts (player_id, owed) VALUES (?, ?)
+            ON CONFLICT(player_id) DO UPDATE SET owed = owed + excluded.owed
+            """;
+
+    private final DatabaseManager databaseManager;
+
+    public EscrowRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Records money taken from the order owner and held against the order.
+     */
+    public CompletableFuture<Integer> hold(String orderId, UUID ownerId, long amount) {
+        return databaseManager.write(null, conn -> {
+            journal(conn, orderId, ownerId, HOLD, amount);
+            addHold(conn, orderId, ownerId, amount);
+            return 1;
+        });
+    }
+
+    /**
+     * Moves money from an order's hold to a player's pending payout. Used for deliveries (RELEASE)
+     * and refunds to the owner (REFUND). Never moves more than the order still holds: the returned
+     * amount is what was actually moved, less than {@code amount} (or zero) when the hold runs short.
+     */
+    public CompletableFuture<Long> transfer(String orderId, UUID beneficiaryId, String entryType, long amount) {
+        long[] moved = new long[1];
+        return databaseManager.write(null, conn -> {
+            moved[0] = takeHold(conn, orderId, amount);
+            if (moved[0] == 0) return 0;
+            journal(conn, orderId, beneficiaryId, entryType, moved[0]);
+            adjustOwed(conn, beneficiaryId, moved[0]);
+            return 1;
+        }).thenApply(rows -> moved[0]);
+    }
+
+    /**
+     * Writes off whatever is still held for an order, e.g. when an admin deletes it.
+     * Returns the number of forfeited holds.
+     */
+    public CompletableFuture<Integer> forfeit(String orderId) {
+        return databaseManager.write(null, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT player_id, held FROM escrow_holds WHERE order_id = ?")) {
+                stmt.setString(1, orderId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) return 0;
+                    UUID ownerId = UUID.fromString(rs.getString(1));
+                    long held = rs.getLong(2);
+                    if (held > 0) {
+                        journal(conn, orderId, ownerId, FORFEIT, held);
+                    }
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM escrow_holds WHERE order_id = ?")) {
+                stmt.setString(1, orderId);
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Claims up to {@code limit} pending payouts in one transaction: each claimed balance is journaled as
+     * PAYOUT and cleared, one entry per player however many deliveries it aggregates. The caller pays
+     * the returned amounts through the economy and credits back any that fail with {@link #reverse}.
+     */
+    public CompletableFuture<Map<UUID, Long>> claimPayouts(int limit) {
+        Map<UUID, Long> claimed = new LinkedHashMap<>();
+        return databaseManager.write(null, conn -> {
+            claimed.clear();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT player_id, owed FROM escrow_payouts WHERE owed > 0 LIMIT ?")) {
+                stmt.setInt(1, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        claimed.put(UUID.fromString(rs.getString(1)), rs.getLong(2));
+                    }
+                }
+            }
+            for (Map.Entry<UUID, Long> entry : claimed.entrySet()) {
+                journal(conn, null, entry.getKey(), PAYOUT, entry.getValue());
+                adjustOwed(conn, entry.getKey(), -entry.getValue());
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM escrow_payouts WHERE owed = 0")) {
+                stmt.executeUpdate();
+            }
+            return claimed.size();
+        }).thenApply(count -> claimed);
+    }
+
+    /**
+     * Puts a payout the economy rejected back on the player's pending balance.
+     */
+    public CompletableFuture<Integer> reverse(UUID playerId, long amount) {
+        return databaseManager.write(null, conn -> {
+            journal(conn, null, playerId, REVERSAL, amount);
+            adjustOwed(conn, playerId, amount);
+            return 1;
+        });
+    }
+
+    /**
+     * Recomputes every hold and pending payout from the journal and compares them with the balance tables.
+     */
+    public CompletableFuture<Reconciliation> reconcile() {
+        return databaseManager.supplyAsync(conn -> {
+            Map<String, Long> journalHolds = sumBy(conn, """
+                    SELECT order_id, SUM(CASE WHEN entry_type = 'HOLD' THEN amount ELSE -amount END)
+                    FROM escrow_ledger WHERE entry_type IN ('HOLD', 'RELEASE', 'REFUND', 'FORFEIT') GROUP BY order_id
+                    """);
+            Map<String, Long> holds = sumBy(conn, "SELECT order_id, held FROM escrow_holds");
+            Map<String, Long> journalOwed = sumBy(conn, """
+                    SELECT player_id, SUM(CASE WHEN entry_type = 'PAYOUT' THEN -amount ELSE amount END)
+                    FROM escrow_ledger WHERE entry_type IN ('RELEASE', 'REFUND', 'PAYOUT', 'REVERSAL') GROUP BY player_id
+                    """);
+            Map<String, Long> owed = sumBy(conn, "SELECT player_id, owed FROM escrow_payouts");
+            Map<String, Long> totals = sumBy(conn, "SELECT entry_type, SUM(amount) FROM escrow_ledger GROUP BY entry_type");
+
+            return new Reconciliation(
+                    holds,
+                    mismatches(journalHolds, holds),
+                    mismatches(journalOwed, owed),
+                    sum(holds),
+                    sum(owed),
+                    totals.getOrDefault(HOLD, 0L),
+                    totals.getOrDefault(PAYOUT, 0L) - totals.getOrDefault(REVERSAL, 0L),
+                    totals.getOrDefault(FORFEIT, 0L)
+            );
+        });
+    }
+
+    private void journal(Connection conn, String orderId, UUID playerId, String entryType, long amount) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO escrow_ledger (order_id, player_id, entry_type, amount) VALUES (?, ?, ?, ?)")) {
+            stmt.setString(1, orderId);
+            stmt.setString(2, playerId.toString());
+            stmt.setString(3, entryType);
+            stmt.setLong(4, amount);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void addHold(Connection conn, String orderId, UUID ownerId, long amount) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(databaseManager.isUsingSQLite() ? ADD_HOLD_SQLITE : ADD_HOLD_MYSQL)) {
+            stmt.setString(1, orderId);
+            stmt.setString(2, ownerId.toString());
+            stmt.setLong(3, amount);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Takes up to {@code amount} from an order's hold and returns how much was taken. The decrement is
+     * conditional, so a hold can never go negative and an order without one gives nothing.
+     */
+    private long takeHold(Connection conn, String orderId, long amount) throws SQLException {
+        long taken = amount;
+        if (!decrementHold(conn, orderId, amount)) {
+            // Short: take whatever is left instead, read under the transaction's lock.
+            try (PreparedStatement stmt = conn.prepareStatement(databaseManager.isUsingSQLite()
+                    ? "SELECT held FROM escrow_holds WHERE order_id = ?"
+                    : "SELECT held FROM escrow_holds WHERE order_id = ? FOR UPDATE")) {
+                stmt.setString(1, orderId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    taken = rs.next() ? Math.min(amount, rs.getLong(1)) : 0;
+                }
+            }
+            if (taken <= 0 || !decrementHold(conn, orderId, taken)) return 0;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM escrow_holds WHERE order_id = ? AND held = 0")) {
+            stmt.setString(1, orderId);
+            stmt.executeUpdate();
+        }
+        return taken;
+    }
+
+    private boolean decrementHold(Connection conn, String orderId, long amount) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE escrow_holds SET held = held - ? WHERE order_id = ? AND held >= ?")) {
+            stmt.setLong(1, amount);
+            stmt.setString(2, orderId);
+            stmt.setLong(3, amount);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    private void adjustOwed(Connection conn, UUID playerId, long delta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(databaseManager.isUsingSQLite() ? ADJUST_OWED_SQLITE : ADJUST_OWED_MYSQL)) {
+            stmt.setString(1, playerId.toString());
+            stmt.setLong(2, delta);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static Map<String, Long> sumBy(Connection conn, String sql) throws SQLException {
+        Map<String, Long> sums = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (rs.getString(1) != null) {
+                    sums.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        return sums;
+    }
+
+    private static List<String> mismatches(Map<String, Long> expected, Map<String, Long> actual) {
+        Set<String> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        List<String> mismatched = new ArrayList<>();
+        for (String key : keys) {
+            long value = actual.getOrDefault(key, 0L);
+            if (expected.getOrDefault(key, 0L) != value || value < 0) {
+                mismatched.add(key);
+            }
+        }
+        Collections.sort(mismatched);
+        return mismatched;
+    }
+
+    private static long sum(Map<String, Long> values) {
+        long total = 0;
+        for (long value : values.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Outcome of {@link #reconcile}. The books balance when both mismatch lists are empty and
+     * {@code totalHeld == held + owed + paidOut + forfeited}.
+     */
+    public record Reconciliation(Map<String, Long> holds, List<String> orderMismatches, List<String> playerMismatches,
+                                 long held, long owed, long totalHeld, long paidOut, long forfeited) {
+
+        public long imbalance() {
+            return totalHeld - held - owed - paidOut - forfeited;
+        }
+
+    }
+
+}
@@ -0,0 +1,290 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.manager.MetricsRegistry;
+import com.notpatch.nlib.util.NLogger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * {@link MemoryStore} whose records are also appended to a memory-mapped journal. A snapshot writes
+ * the whole state to {@code snapshot.dat} and starts a new journal segment, older segments are
+ * deleted once the snapshot is on disk. Startup loads the snapshot and replays the segments after it.
+ * Only one server may use a journal directory.
+ * <p>
+ * With {@code fsync} on, a write's future completes only once its records are on the storage device.
+ * A single sync thread flushes everything appended while the previous flush ran, so concurrent writers
+ * share one fsync instead of paying for their own.
+ */
+public class JournalStore extends MemoryStore {
+
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x4E4F534E;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final MetricsRegistry metrics;
+    private final boolean fsync;
+    private final Object snapshotLock = new Object();
+
+    private final Object syncLock = new Object();
+    private List<Waiter> waiting = new ArrayList<>();
+    private Thread syncThread;
+    private boolean syncing;
+
+    // Guarded by the store lock.
+    private volatile MappedJournal journal;
+    private long generation;
+
+    public JournalStore(Executor executor, Path directory, long segmentSize, boolean fsync, MetricsRegistry metrics) {
+        super(executor);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads the snapshot, replays the journal segments written after it and opens the newest for appends.
+     */
+    public void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        long first = readSnapshot();
+
+        long[] replayed = new long[1];
+        RecordConsumer replay = (type, payload) -> {
+            apply(type, payload);
+            replayed[0]++;
+        };
+
+        List<Long> segments = listSegments();
+        long last = first;
+        for (long segment : segments) {
+            if (segment < first) {
+                // Already covered by the snapshot, left behind by a crash before cleanup.
+                Files.deleteIfExists(segmentPath(segment));
+                continue;
+            }
+            if (segment != segments.getLast()) {
+                MappedJournal.open(segmentPath(segment), 0, replay).close();
+            }
+            last = segment;
+        }
+
+        synchronized (this) {
+            generation = last;
+            journal = MappedJournal.open(segmentPath(last), segmentSize, replay);
+        }
+        if (fsync) {
+            synchronized (syncLock) {
+                syncing = true;
+            }
+            syncThread = new Thread(this::runSyncLoop, "norder-journal-sync");
+            syncThread.setDaemon(true);
+            syncThread.start();
+        }
+        NLogger.info("Loaded " + getOrderCount() + " orders from the storage journal, replaying " + replayed[0]
+                + " changes since the last snapshot, in " + MetricsRegistry.formatMillis(System.nanoTime() - start) + ".");
+    }
+
+    /**
+     * Bytes in the current journal segment, i.e. written since the last snapshot.
+     */
+    public long getJournalSize() {
+        MappedJournal current = journal;
+        return current == null ? 0 : current.size();
+    }
+
+    @Override
+    protected void append(byte type, byte[] payload) throws IOException {
+        journal.append(type, payload);
+    }
+
+    @Override
+    protected CompletableFuture<Integer> commit(int result) {
+        if (!fsync) return CompletableFuture.completedFuture(result);
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        synchronized (syncLock) {
+            if (!syncing) {
+                future.completeExceptionally(new CompletionException(new IOException("The storage journal is closed.")));
+                return future;
+            }
+            // Remember the segment, a snapshot may rotate to the next one before the flush.
+            waiting.add(new Waiter(journal, future, result));
+            syncLock.notifyAll();
+        }
+        return future;
+    }
+
+    private void runSyncLoop() {
+        while (true) {
+            List<Waiter> batch;
+            synchronized (syncLock) {
+                while (waiting.isEmpty() && syncing) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (waiting.isEmpty()) return;
+                batch = waiting;
+                waiting = new ArrayList<>();
+            }
+            sync(batch);
+        }
+    }
+
+    // One flush covers every record appended before it, however many writers are waiting on it.
+    private void sync(List<Waiter> batch) {
+        long start = System.nanoTime();
+        try {
+            MappedJournal flushed = null;
+            for (Waiter waiter : batch) {
+                if (waiter.journal() != flushed) {
+                    flushed = waiter.journal();
+                    flushed.force();
+                }
+            }
+        } catch (RuntimeException e) {
+            metrics.increment("journal.errors");
+            batch.forEach(waiter -> waiter.future().completeExceptionally(new CompletionException(e)));
+            return;
+        }
+        metrics.record("journal.fsync", start);
+        metrics.add("journal.synced-writes", batch.size());
+        batch.forEach(waiter -> waiter.future().complete(waiter.result()));
+    }
+
+    /**
+     * Writes the current state to a new snapshot and drops the journal segments it covers. Mutations
+     * are only held up while the state is copied and the next segment is opened.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            List<Record> records = new ArrayList<>();
+            MappedJournal previous;
+            long next;
+            synchronized (this) {
+                if (journal == null) return;
+                writeState((type, payload) -> records.add(new Record(type, payload)));
+                previous = journal;
+                next = generation + 1;
+                journal = MappedJournal.open(segmentPath(next), segmentSize, (type, payload) -> {
+                });
+                generation = next;
+            }
+            previous.close();
+
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeByte(SNAPSHOT_VERSION);
+                out.writeLong(next);
+                for (Record record : records) {
+                    out.writeByte(record.type());
+                    out.writeInt(record.payload().length);
+                    out.write(record.payload());
+                }
+                out.writeByte(0);
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            for (long segment : listSegments()) {
+                if (segment < next) Files.deleteIfExists(segmentPath(segment));
+            }
+            metrics.record("journal.snapshot", start);
+        }
+    }
+
+    /**
+     * Takes a final snapshot, completes the writes still waiting for a flush and closes the journal.
+     */
+    public void close() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            NLogger.error("Failed to write the storage snapshot, the journal will be replayed on next start: " + e.getMessage());
+        }
+        if (syncThread != null) {
+            synchronized (syncLock) {
+                syncing = false;
+                syncLock.notifyAll();
+            }
+            try {
+                syncThread.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            syncThread = null;
+        }
+        synchronized (this) {
+            if (journal == null) return;
+            try {
+                journal.close();
+            } catch (IOException e) {
+                NLogger.error("Failed to close the storage journal: " + e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    // Returns the first journal segment not covered by the snapshot.
+    private long readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) return 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readUnsignedByte() != SNAPSHOT_VERSION) {
+                throw new IOException(path + " is not a storage snapshot");
+            }
+            long next = in.readLong();
+            byte type;
+            while ((type = in.readByte()) != 0) {
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                apply(type, payload);
+            }
+            return next;
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%012d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private record Record(byte type, byte[] payload) {
+    }
+
+    private record Waiter(MappedJournal journal, CompletableFuture<Integer> future, int result) {
+    }
+
+}
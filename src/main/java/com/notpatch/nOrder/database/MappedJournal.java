@@ -0,0 +1,128 @@
+package com.notpatch.nOrder.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log in a memory-mapped file. An append is a few puts into the mapping, the file
+ * grows by remapping at twice the size when full. Records are {@code [length][crc32][type][payload]}
+ * and the length is written last, so a zero length marks the end of the log and a torn record left by
+ * a power loss fails its checksum and is dropped on open.
+ */
+final class MappedJournal implements Closeable {
+
+    private static final int RECORD_HEADER = 9;
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer buffer;
+    private int position;
+    private boolean closed;
+
+    private MappedJournal(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps the file, creating it if needed, and hands every intact record to {@code replay}.
+     * Appends continue after the last intact record.
+     */
+    static MappedJournal open(Path path, long initialSize, MemoryStore.RecordConsumer replay) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.min(MAX_SIZE, Math.max(channel.size(), Math.max(4096, initialSize)));
+        MappedJournal journal = new MappedJournal(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        try {
+            journal.replay(replay);
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void replay(MemoryStore.RecordConsumer consumer) throws IOException {
+        while (position + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) return;
+
+            int checksum = buffer.getInt(position + 4);
+            if (length < 1 || position + 8L + length > buffer.capacity() || checksum(position + 8, length) != checksum) {
+                // Torn tail. Clear it so later appends cannot be mistaken for part of it.
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                return;
+            }
+
+            byte type = buffer.get(position + 8);
+            byte[] payload = new byte[length - 1];
+            buffer.get(position + 9, payload);
+            consumer.accept(type, payload);
+            position += 8 + length;
+        }
+    }
+
+    synchronized void append(byte type, byte[] payload) throws IOException {
+        int length = payload.length + 1;
+        ensureCapacity(RECORD_HEADER + payload.length + 4L);
+
+        buffer.put(position + 8, type);
+        buffer.put(position + 9, payload);
+        buffer.putInt(position + 4, checksum(position + 8, length));
+        buffer.putInt(position, length);
+        position += 8 + length;
+    }
+
+    /**
+     * Flushes appended records to the storage device. A closed journal was flushed when it was closed.
+     */
+    synchronized void force() {
+        if (closed) return;
+        buffer.force(0, position);
+    }
+
+    synchronized int size() {
+        return position;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // Leaves room for the zero length that terminates the log.
+    private void ensureCapacity(long needed) throws IOException {
+        if (position + needed <= buffer.capacity()) return;
+
+        long size = Math.max((long) buffer.capacity() * 2, position + needed);
+        if (size > MAX_SIZE) {
+            if (position + needed > MAX_SIZE) throw new IOException("Journal segment " + path.getFileName() + " is full");
+            size = MAX_SIZE;
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        buffer.force();
+        closed = true;
+        channel.close();
+    }
+
+}
@@ -0,0 +1,317 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.model.Leaderboard;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.model.PlayerStatistics;
+import com.notpatch.nOrder.model.RollingStats;
+import com.notpatch.nOrder.model.StatType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Orders and statistics held in memory as encoded rows, so callers never share mutable objects with
+ * the store. Every change is a single record applied under the store lock, which is what the journal
+ * backend writes to disk.
+ */
+public class MemoryStore implements OrderStore, StatsStore {
+
+    protected static final byte ORDER_PUT = 1;
+    protected static final byte ORDER_REMOVE = 2;
+    protected static final byte STATS_PUT = 3;
+    protected static final byte GLOBAL_WINDOWS = 4;
+
+    private final Executor executor;
+
+    private final Map<String, byte[]> orders = new LinkedHashMap<>();
+    private final Map<UUID, StatsRow> statistics = new HashMap<>();
+    private final Map<String, UUID> playersByName = new HashMap<>();
+    private byte[] globalWindows;
+
+    /**
+     * @param executor runs streaming, which waits on the sink between batches
+     */
+    public MemoryStore(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<Order>> loadOrders() {
+        List<byte[]> rows;
+        synchronized (this) {
+            rows = new ArrayList<>(orders.values());
+        }
+        try {
+            List<Order> loaded = new ArrayList<>(rows.size());
+            for (byte[] row : rows) {
+                Order order = StoreCodec.decodeOrder(row);
+                if (order.getStatus() == OrderStatus.ARCHIVED || order.getStatus() == OrderStatus.CANCELLED) continue;
+                loaded.add(order);
+            }
+            return CompletableFuture.completedFuture(loaded);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new CompletionException(e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveOrders(Collection<Order> orders) {
+        List<byte[]> rows = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            rows.add(StoreCodec.encodeOrder(order));
+        }
+        return mutate(ORDER_PUT, rows, rows.size());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> recordChange(Order order) {
+        return mutate(ORDER_PUT, List.of(StoreCodec.encodeOrder(order)), 1).thenApply(rows -> rows > 0);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteOrder(String orderId) {
+        return removeOrder(orderId);
+    }
+
+    /**
+     * Drops the order. Nothing is kept in orders_archive, the order log has its history.
+     */
+    @Override
+    public CompletableFuture<Boolean> archiveOrder(Order order) {
+        return removeOrder(order.getId());
+    }
+
+    private CompletableFuture<Boolean> removeOrder(String orderId) {
+        boolean present;
+        synchronized (this) {
+            present = orders.containsKey(orderId);
+        }
+        return mutate(ORDER_REMOVE, List.of(encodeId(orderId)), present ? 1 : 0).thenApply(rows -> rows > 0);
+    }
+
+    @Override
+    public CompletableFuture<Long> streamOrders(int batchSize, Function<List<Order>, CompletableFuture<?>> sink) {
+        List<byte[]> rows;
+        synchronized (this) {
+            rows = new ArrayList<>(orders.values());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            BatchSink<Order> batches = new BatchSink<>(batchSize, sink);
+            for (byte[] row : rows) {
+                Order order = decode(row);
+                if (order.getStatus() == OrderStatus.ARCHIVED || order.getStatus() == OrderStatus.CANCELLED) continue;
+                batches.add(order);
+            }
+            return batches.finish();
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<PlayerStatistics> loadStatistics(UUID playerId) {
+        StatsRow row;
+        synchronized (this) {
+            row = statistics.get(playerId);
+        }
+        return CompletableFuture.completedFuture(row == null ? null : StoreCodec.toStatistics(row));
+    }
+
+    @Override
+    public CompletableFuture<PlayerStatistics> loadStatisticsByName(String playerName) {
+        StatsRow row;
+        synchronized (this) {
+            UUID playerId = playersByName.get(playerName.toLowerCase(Locale.ROOT));
+            row = playerId == null ? null : statistics.get(playerId);
+        }
+        return CompletableFuture.completedFuture(row == null ? null : StoreCodec.toStatistics(row));
+    }
+
+    @Override
+    public CompletableFuture<List<Leaderboard.Entry>> loadTop(StatType type, int limit) {
+        List<StatsRow> rows;
+        synchronized (this) {
+            rows = new ArrayList<>(statistics.values());
+        }
+        List<Leaderboard.Entry> entries = rows.stream()
+                .filter(row -> row.value(type) > 0)
+                .sorted(Comparator.comparingLong((StatsRow row) -> row.value(type)).reversed())
+                .limit(limit)
+                .map(row -> new Leaderboard.Entry(row.playerId(), row.playerName(), row.value(type)))
+                .toList();
+        return CompletableFuture.completedFuture(entries);
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveStatistics(Collection<PlayerStatistics> statistics) {
+        List<byte[]> rows = new ArrayList<>(statistics.size());
+        for (PlayerStatistics stats : statistics) {
+            rows.add(StoreCodec.encodeStats(StatsRow.of(stats)));
+        }
+        return mutate(STATS_PUT, rows, rows.size());
+    }
+
+    @Override
+    public CompletableFuture<RollingStats> loadGlobalWindows() {
+        byte[] data;
+        synchronized (this) {
+            data = globalWindows;
+        }
+        RollingStats windows = new RollingStats();
+        if (data == null) return CompletableFuture.completedFuture(windows);
+        try {
+            windows.decode(data);
+            return CompletableFuture.completedFuture(windows);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new CompletionException(e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveGlobalWindows(RollingStats windows) {
+        return mutate(GLOBAL_WINDOWS, List.of(windows.encode()), 1);
+    }
+
+    @Override
+    public CompletableFuture<Long> streamStatistics(int batchSize, Function<List<PlayerStatistics>, CompletableFuture<?>> sink) {
+        List<StatsRow> rows;
+        synchronized (this) {
+            rows = new ArrayList<>(statistics.values());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            BatchSink<PlayerStatistics> batches = new BatchSink<>(batchSize, sink);
+            rows.forEach(row -> batches.add(StoreCodec.toStatistics(row)));
+            return batches.finish();
+        }, executor);
+    }
+
+    /**
+     * Applies the records and hands each to {@link #append} while holding the lock, so records reach
+     * the journal in the order they were applied.
+     */
+    private CompletableFuture<Integer> mutate(byte type, List<byte[]> payloads, int result) {
+        if (payloads.isEmpty()) return CompletableFuture.completedFuture(result);
+        try {
+            synchronized (this) {
+                for (byte[] payload : payloads) {
+                    apply(type, payload);
+                    append(type, payload);
+                }
+                return commit(result);
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new CompletionException(e));
+        }
+    }
+
+    /**
+     * Called for every applied record. The in-memory store keeps nothing else.
+     */
+    protected void append(byte type, byte[] payload) throws IOException {
+    }
+
+    /**
+     * Called under the lock after a mutation's records were appended. The returned future is what the
+     * caller sees, so a store can hold it back until the records are durable.
+     */
+    protected CompletableFuture<Integer> commit(int result) {
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Changes the state for one record. Also used to replay records read back from disk.
+     */
+    protected synchronized void apply(byte type, byte[] payload) throws IOException {
+        switch (type) {
+            case ORDER_PUT -> orders.put(StoreCodec.orderId(payload), payload);
+            case ORDER_REMOVE -> orders.remove(decodeId(payload));
+            case STATS_PUT -> {
+                StatsRow row = StoreCodec.decodeStats(payload);
+                StatsRow previous = statistics.put(row.playerId(), row);
+                if (previous != null) playersByName.remove(previous.playerName().toLowerCase(Locale.ROOT), previous.playerId());
+                playersByName.put(row.playerName().toLowerCase(Locale.ROOT), row.playerId());
+            }
+            case GLOBAL_WINDOWS -> globalWindows = payload;
+            default -> throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * Writes the whole state as a sequence of records that {@link #apply} can read back.
+     */
+    protected synchronized void writeState(RecordConsumer writer) throws IOException {
+        for (byte[] order : orders.values()) {
+            writer.accept(ORDER_PUT, order);
+        }
+        for (StatsRow row : statistics.values()) {
+            writer.accept(STATS_PUT, StoreCodec.encodeStats(row));
+        }
+        if (globalWindows != null) {
+            writer.accept(GLOBAL_WINDOWS, globalWindows);
+        }
+    }
+
+    public synchronized int getOrderCount() {
+        return orders.size();
+    }
+
+    private static Order decode(byte[] row) {
+        try {
+            return StoreCodec.decodeOrder(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encodeId(String orderId) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(orderId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decodeId(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return in.readUTF();
+        }
+    }
+
+    @FunctionalInterface
+    protected interface RecordConsumer {
+        void accept(byte type, byte[] payload) throws IOException;
+    }
+
+    /**
+     * Persisted form of a player's statistics, with the rolling windows already encoded.
+     */
+    record StatsRow(UUID playerId, String playerName, int delivered, int collected, int orders, long earnings,
+                    byte[] windows) {
+
+        static StatsRow of(PlayerStatistics stats) {
+            return new StatsRow(stats.getPlayerId(), stats.getPlayerName(), stats.getDeliveredItems(),
+                    stats.getCollectedItems(), stats.getTotalOrders(), stats.getTotalEarnings(), stats.getWindows().encode());
+        }
+
+        long value(StatType type) {
+            return switch (type) {
+                case EARNINGS -> earnings;
+                case DELIVERED -> delivered;
+                case COLLECTED -> collected;
+                case ORDERS -> orders;
+            };
+        }
+
+    }
+
+}
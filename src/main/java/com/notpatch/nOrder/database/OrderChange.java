@@ -0,0 +1,12 @@
+package com.notpatch.nOrder.database;
+
+public record OrderChange(long seq, String orderId, String operation) {
+
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+
+    public boolean isDelete() {
+        return DELETE.equals(operation);
+    }
+
+}
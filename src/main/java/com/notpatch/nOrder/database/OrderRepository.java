@@ -0,0 +1,373 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.util.Money;
+import com.notpatch.nlib.util.NLogger;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class OrderRepository implements OrderStore {
+
+    private static final String UPSERT_MYSQL = """
+            INSERT INTO orders (order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, price_minor, delivered, collected, created_at, expires_at, highlight, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+            delivered = VALUES(delivered),
+            collected = VALUES(collected),
+            status = VALUES(status)
+            """;
+
+    private static final String UPSERT_SQLITE = """
+            INSERT OR REPLACE INTO orders (order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, price_minor, delivered, collected, created_at, expires_at, highlight, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_VERSIONED = """
+            INTO orders (order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, price_minor, delivered, collected, created_at, expires_at, highlight, status, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1)
+            """;
+
+    private static final String UPDATE_VERSIONED = """
+            UPDATE orders SET delivered = ?, collected = ?, status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP
+            WHERE order_id = ? AND version = ?
+            """;
+
+    private static final String INSERT_CHANGE = """
+            INSERT INTO order_changes (order_id, server_id, version, operation)
+            SELECT ?, ?, COALESCE((SELECT version FROM orders WHERE order_id = ?), 0), ?
+            """;
+
+    private static final String ARCHIVE_INSERT = """
+            REPLACE INTO orders_archive (order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, price_minor, delivered, collected, created_at, expires_at, highlight, status, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final DatabaseManager databaseManager;
+
+    private volatile String changeLogServerId;
+
+    public OrderRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Makes every delete and status update also append to the change feed, so other servers pick them up.
+     */
+    public void enableChangeLog(String serverId) {
+        this.changeLogServerId = serverId;
+    }
+
+    @Override
+    public CompletableFuture<List<Order>> loadOrders() {
+        return databaseManager.supplyAsync(conn -> {
+            List<Order> orders = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM orders");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String status = rs.getString("status");
+                    if (status.equalsIgnoreCase("ARCHIVED") || status.equalsIgnoreCase("CANCELLED")) continue;
+                    orders.add(mapOrder(rs));
+                }
+            }
+            return orders;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveOrders(Collection<Order> orders) {
+        List<Order> snapshot = new ArrayList<>(orders);
+        return databaseManager.write("orders:save", conn -> {
+            String sql = databaseManager.isUsingSQLite() ? UPSERT_SQLITE : UPSERT_MYSQL;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Order order : snapshot) {
+                    bindOrder(stmt, order);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            return snapshot.size();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteOrder(String orderId) {
+        return databaseManager.write("order:" + orderId + ":delete", conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM orders WHERE order_id = ?")) {
+                stmt.setString(1, orderId);
+                int rows = stmt.executeUpdate();
+                logChange(conn, orderId, OrderChange.DELETE);
+                return rows;
+            }
+        }).thenApply(rows -> rows > 0);
+    }
+
+    /**
+     * Copies the order into orders_archive and removes it from the live table in one transaction.
+     */
+    @Override
+    public CompletableFuture<Boolean> archiveOrder(Order order) {
+        return databaseManager.write("order:" + order.getId() + ":archive", conn -> {
+            try (PreparedStatement insert = conn.prepareStatement(ARCHIVE_INSERT);
+                 PreparedStatement delete = conn.prepareStatement("DELETE FROM orders WHERE order_id = ?")) {
+                bindOrder(insert, order);
+                insert.setLong(16, order.getVersion());
+                insert.executeUpdate();
+                delete.setString(1, order.getId());
+                int rows = delete.executeUpdate();
+                logChange(conn, order.getId(), OrderChange.DELETE);
+                return rows;
+            }
+        }).thenApply(rows -> rows > 0);
+    }
+
+    /**
+     * Reads through a cursor, so only one batch of rows is in memory at a time.
+     */
+    @Override
+    public CompletableFuture<Long> streamOrders(int batchSize, Function<List<Order>, CompletableFuture<?>> sink) {
+        return databaseManager.supplyAsync(conn -> {
+            BatchSink<Order> batches = new BatchSink<>(batchSize, sink);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM orders WHERE status NOT IN ('ARCHIVED', 'CANCELLED')")) {
+                stmt.setFetchSize(batchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        batches.add(mapOrder(rs));
+                    }
+                }
+            }
+            return batches.finish();
+        });
+    }
+
+    public CompletableFuture<Boolean> updateStatus(String orderId, OrderStatus status) {
+        return databaseManager.write("order:" + orderId + ":status", conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE orders SET status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE order_id = ?")) {
+                stmt.setString(1, status.name());
+                stmt.setString(2, orderId);
+                int rows = stmt.executeUpdate();
+                logChange(conn, orderId, OrderChange.UPSERT);
+                return rows;
+            }
+        }).thenApply(rows -> rows > 0);
+    }
+
+    /**
+     * Inserts a new order with version 1 and records it in the change feed. Returns false if the id already exists.
+     */
+    public CompletableFuture<Boolean> insertOrder(Order order, String serverId) {
+        return databaseManager.supplyAsync(conn -> DatabaseManager.inTransaction(conn, tx -> {
+            String insert = (databaseManager.isUsingSQLite() ? "INSERT OR IGNORE " : "INSERT IGNORE ") + INSERT_VERSIONED;
+            try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+                bindOrder(stmt, order);
+                if (stmt.executeUpdate() == 0) return false;
+            }
+            insertChange(conn, order.getId(), serverId, OrderChange.UPSERT);
+            return true;
+        }));
+    }
+
+    /**
+     * Optimistic update: only applies when the row is still at {@code expectedVersion}.
+     * Returns false when another server got there first.
+     */
+    public CompletableFuture<Boolean> updateOrderVersioned(String orderId, int delivered, int collected, OrderStatus status,
+                                                           long expectedVersion, String serverId) {
+        return databaseManager.supplyAsync(conn -> DatabaseManager.inTransaction(conn, tx -> {
+            try (PreparedStatement stmt = conn.prepareStatement(UPDATE_VERSIONED)) {
+                stmt.setInt(1, delivered);
+                stmt.setInt(2, collected);
+                stmt.setString(3, status.name());
+                stmt.setString(4, orderId);
+                stmt.setLong(5, expectedVersion);
+                if (stmt.executeUpdate() == 0) return false;
+            }
+            insertChange(conn, orderId, serverId, OrderChange.UPSERT);
+            return true;
+        }));
+    }
+
+    /**
+     * Changes made by other servers after {@code afterSeq}, oldest first.
+     */
+    public CompletableFuture<List<OrderChange>> fetchChanges(long afterSeq, String serverId, int limit) {
+        return databaseManager.supplyAsync(conn -> {
+            List<OrderChange> changes = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT seq, order_id, server_id, operation FROM order_changes WHERE seq > ? ORDER BY seq LIMIT ?")) {
+                stmt.setLong(1, afterSeq);
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        // Own changes are still returned (as null operations) so the cursor can advance past them.
+                        String operation = serverId.equals(rs.getString("server_id")) ? null : rs.getString("operation");
+                        changes.add(new OrderChange(rs.getLong("seq"), rs.getString("order_id"), operation));
+                    }
+                }
+            }
+            return changes;
+        });
+    }
+
+    public CompletableFuture<Map<String, Order>> loadOrdersByIds(Collection<String> orderIds) {
+        List<String> ids = new ArrayList<>(orderIds);
+        return databaseManager.supplyAsync(conn -> {
+            Map<String, Order> orders = new HashMap<>();
+            if (ids.isEmpty()) return orders;
+
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM orders WHERE order_id IN (" + placeholders + ")")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    stmt.setString(i + 1, ids.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Order order = mapOrder(rs);
+                        orders.put(order.getId(), order);
+                    }
+                }
+            }
+            return orders;
+        });
+    }
+
+    public CompletableFuture<Long> latestChangeSeq() {
+        return databaseManager.supplyAsync(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(seq), 0) FROM order_changes");
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> pruneChanges(LocalDateTime before) {
+        return databaseManager.supplyAsync(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM order_changes WHERE changed_at < ?")) {
+                stmt.setTimestamp(1, Timestamp.valueOf(before));
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    private void logChange(Connection conn, String orderId, String operation) throws SQLException {
+        String serverId = changeLogServerId;
+        if (serverId != null) {
+            insertChange(conn, orderId, serverId, operation);
+        }
+    }
+
+    private void insertChange(Connection conn, String orderId, String serverId, String operation) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_CHANGE)) {
+            stmt.setString(1, orderId);
+            stmt.setString(2, serverId);
+            stmt.setString(3, orderId);
+            stmt.setString(4, operation);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void bindOrder(PreparedStatement stmt, Order order) throws SQLException {
+        stmt.setString(1, order.getId());
+        stmt.setString(2, order.getPlayerId().toString());
+        stmt.setString(3, order.getPlayerName());
+        stmt.setString(4, order.getMaterial().name());
+        stmt.setString(5, order.getCustomItemId());
+        stmt.setString(6, formatEnchantments(order.getItem()));
+        stmt.setInt(7, order.getAmount());
+        // price is kept for external readers, price_minor is authoritative
+        stmt.setDouble(8, Money.toDouble(order.getPrice()));
+        stmt.setLong(9, order.getPrice());
+        stmt.setInt(10, order.getDelivered());
+        stmt.setInt(11, order.getCollected());
+        stmt.setTimestamp(12, Timestamp.valueOf(order.getCreatedAt()));
+        stmt.setTimestamp(13, Timestamp.valueOf(order.getExpirationDate()));
+        stmt.setBoolean(14, order.isHighlight());
+        stmt.setString(15, order.getStatus().name());
+    }
+
+    Order mapOrder(ResultSet rs) throws SQLException {
+        String orderId = rs.getString("order_id");
+        UUID playerId = UUID.fromString(rs.getString("player_id"));
+        String playerName = rs.getString("player_name");
+
+        Material material = Material.valueOf(rs.getString("material"));
+        ItemStack item = new ItemStack(material);
+        applyEnchantments(orderId, item, rs.getString("enchantments"));
+
+        String customItemId = rs.getString("custom_item_id");
+        int amount = rs.getInt("amount");
+        long price = rs.getLong("price_minor");
+        LocalDateTime expiresAt = rs.getTimestamp("expires_at").toLocalDateTime();
+        LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+        boolean highlight = rs.getBoolean("highlight");
+
+        Order order = new Order(orderId, playerId, playerName, item, customItemId, amount, price, createdAt, expiresAt, highlight);
+        order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+        order.setDelivered(rs.getInt("delivered"));
+        order.setCollected(rs.getInt("collected"));
+        order.setVersion(rs.getLong("version"));
+        order.markSynced();
+        return order;
+    }
+
+    static void applyEnchantments(String orderId, ItemStack item, String enchantmentsStr) {
+        if (enchantmentsStr == null || enchantmentsStr.isEmpty()) return;
+
+        try {
+            for (String pair : enchantmentsStr.split(",")) {
+                String[] parts = pair.split(":");
+                if (parts.length != 2) continue;
+
+                Enchantment enchant = Enchantment.getByKey(NamespacedKey.minecraft(parts[0]));
+                int level = Integer.parseInt(parts[1]);
+                if (enchant == null) continue;
+
+                if (item.getType() == Material.ENCHANTED_BOOK) {
+                    EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
+                    if (meta != null) {
+                        meta.addStoredEnchant(enchant, level, true);
+                        item.setItemMeta(meta);
+                    }
+                } else {
+                    item.addEnchantment(enchant, level);
+                }
+            }
+        } catch (Exception e) {
+            NLogger.warn("Error parsing enchantments for order " + orderId + ": " + e.getMessage());
+        }
+    }
+
+    static String formatEnchantments(ItemStack item) {
+        if (item == null) return "";
+
+        Map<Enchantment, Integer> enchants;
+        if (item.getType() == Material.ENCHANTED_BOOK) {
+            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
+            if (meta != null) {
+                enchants = meta.getStoredEnchants();
+            } else {
+                return "";
+            }
+        } else {
+            enchants = item.getEnchantments();
+        }
+
+        if (enchants.isEmpty()) return "";
+
+        return enchants.entrySet().stream()
+                .map(entry -> entry.getKey().getKey().getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+}
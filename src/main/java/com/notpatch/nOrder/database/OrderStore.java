@@ -0,0 +1,45 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.model.Order;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Where live orders are persisted. Failed futures carry the cause wrapped in a CompletionException,
+ * like every database future in the plugin.
+ */
+public interface OrderStore {
+
+    /**
+     * Every live order, without archived or cancelled ones.
+     */
+    CompletableFuture<List<Order>> loadOrders();
+
+    CompletableFuture<Integer> saveOrders(Collection<Order> orders);
+
+    /**
+     * Persists one order right after it changed. Stores with per-change durability complete the future
+     * once the change is on disk; by default nothing is written until the next {@link #saveOrders}.
+     */
+    default CompletableFuture<Boolean> recordChange(Order order) {
+        return CompletableFuture.completedFuture(false);
+    }
+
+    CompletableFuture<Boolean> deleteOrder(String orderId);
+
+    /**
+     * Removes the order from the live set. The database backend keeps a copy in orders_archive.
+     */
+    CompletableFuture<Boolean> archiveOrder(Order order);
+
+    /**
+     * Hands every live order to {@code sink} in batches of at most {@code batchSize}, waiting for each
+     * batch's future before reading the next, so the whole set is never held at once.
+     * Completes with the number of orders streamed.
+     */
+    CompletableFuture<Long> streamOrders(int batchSize, Function<List<Order>, CompletableFuture<?>> sink);
+
+}
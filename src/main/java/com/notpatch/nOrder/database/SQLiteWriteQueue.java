@@ -0,0 +1,185 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nlib.util.NLogger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single writer for SQLite. Mutations are queued, repeated writes to the same key are coalesced,
+ * and everything pending is committed in one transaction every flush interval.
+ */
+public class SQLiteWriteQueue {
+
+    private final DataSource dataSource;
+    private final long flushIntervalMillis;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    private final AtomicLong anonymousKeys = new AtomicLong();
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    public SQLiteWriteQueue(DataSource dataSource, long flushIntervalMillis, int maxBatchSize) {
+        this.dataSource = dataSource;
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.writerThread = new Thread(this::runLoop, "norder-sqlite-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a write. When {@code key} is not null, a write already waiting under the same key is replaced
+     * and both callers are completed by the newer one.
+     */
+    public CompletableFuture<Integer> submit(String key, SqlFunction<Integer> write) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        String queueKey = key != null ? key : "#" + anonymousKeys.incrementAndGet();
+
+        synchronized (lock) {
+            if (!running) {
+                future.completeExceptionally(new CompletionException(new SQLException("SQLite writer is shut down.")));
+                return future;
+            }
+            PendingWrite previous = pending.remove(queueKey);
+            PendingWrite next = new PendingWrite(write);
+            if (previous != null) {
+                next.futures.addAll(previous.futures);
+            }
+            next.futures.add(future);
+            pending.put(queueKey, next);
+            lock.notifyAll();
+        }
+        return future;
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    public void shutdown() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            writerThread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            List<PendingWrite> batch;
+            synchronized (lock) {
+                while (running && pending.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running && pending.isEmpty()) {
+                    return;
+                }
+                if (running) {
+                    // Group window: let more writes pile up (and coalesce) before committing.
+                    long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                    long remaining;
+                    while (running && pending.size() < maxBatchSize
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        try {
+                            lock.wait(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+                batch = drain();
+            }
+            commit(batch);
+        }
+    }
+
+    private List<PendingWrite> drain() {
+        List<PendingWrite> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+        Iterator<PendingWrite> iterator = pending.values().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatchSize) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (PendingWrite write : batch) {
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        write.result = write.task.apply(conn);
+                        conn.releaseSavepoint(savepoint);
+                    } catch (SQLException | RuntimeException e) {
+                        conn.rollback(savepoint);
+                        write.error = e;
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            NLogger.error("Failed to commit SQLite write batch: " + e.getMessage());
+            for (PendingWrite write : batch) {
+                write.fail(e);
+            }
+            return;
+        }
+
+        for (PendingWrite write : batch) {
+            if (write.error != null) {
+                write.fail(write.error);
+            } else {
+                write.futures.forEach(future -> future.complete(write.result));
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        private final SqlFunction<Integer> task;
+        private final List<CompletableFuture<Integer>> futures = new ArrayList<>(1);
+        private Integer result;
+        private Exception error;
+
+        private PendingWrite(SqlFunction<Integer> task) {
+            this.task = task;
+        }
+
+        private void fail(Exception e) {
+            CompletionException wrapped = new CompletionException(e);
+            futures.forEach(future -> future.completeExceptionally(wrapped));
+        }
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.notpatch.nOrder.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlFunction<T> {
+
+    T apply(Connection conn) throws SQLException;
+
+}
@@ -0,0 +1,218 @@
+package com.notpatch.nOrder.database;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Copies every plugin table between two SQL databases, SQLite and MySQL in either direction. Each table
+ * is read in primary key order through a cursor with a bounded fetch size and written in transactions
+ * of {@code batchSize} rows, so only one batch is ever in memory. Every transaction also stores the last
+ * copied key in the target's {@code migration_checkpoint} table; an interrupted run continues from there.
+ * Blocking, run it off the server thread.
+ */
+public final class SqlMigrator {
+
+    private static final List<Table> TABLES = List.of(
+            new Table("orders", "order_id", false),
+            new Table("orders_archive", "order_id", false),
+            new Table("player_stats", "player_id", false),
+            new Table("player_stats_windows", "player_id", false),
+            new Table("escrow_holds", "order_id", false),
+            new Table("escrow_payouts", "player_id", false),
+            new Table("escrow_ledger", "id", true)
+    );
+
+    private final DataSource source;
+    private final DataSource target;
+    private final boolean targetSQLite;
+    private final int fetchSize;
+    private final int batchSize;
+    private final Consumer<Progress> progress;
+
+    public SqlMigrator(DataSource source, DataSource target, boolean targetSQLite, int fetchSize, int batchSize, Consumer<Progress> progress) {
+        this.source = source;
+        this.target = target;
+        this.targetSQLite = targetSQLite;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+        this.progress = progress;
+    }
+
+    public StoreMigrator.Result migrate() throws SQLException {
+        long start = System.nanoTime();
+        Map<String, Long> copied = new HashMap<>();
+
+        try (Connection from = source.getConnection();
+             Connection to = target.getConnection()) {
+            to.setAutoCommit(false);
+            try {
+                for (Table table : TABLES) {
+                    copied.put(table.name(), copy(from, to, table, start));
+                }
+                try (Statement stmt = to.createStatement()) {
+                    stmt.executeUpdate("DELETE FROM migration_checkpoint");
+                }
+                to.commit();
+            } catch (SQLException e) {
+                to.rollback();
+                throw e;
+            } finally {
+                to.setAutoCommit(true);
+            }
+        }
+
+        long rows = copied.values().stream().mapToLong(Long::longValue).sum();
+        return new StoreMigrator.Result(copied.get("orders"), copied.get("player_stats"), rows, System.nanoTime() - start);
+    }
+
+    private long copy(Connection from, Connection to, Table table, long start) throws SQLException {
+        Checkpoint checkpoint = readCheckpoint(to, table.name());
+        if (checkpoint.completed()) return checkpoint.rows();
+
+        long total = count(from, table.name());
+        Map<String, Integer> targetTypes = columnTypes(to, table.name());
+
+        String select = "SELECT * FROM " + table.name()
+                + (checkpoint.lastKey() != null ? " WHERE " + table.key() + " > ?" : "")
+                + " ORDER BY " + table.key();
+
+        try (PreparedStatement stmt = from.prepareStatement(select, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            if (checkpoint.lastKey() != null) {
+                if (table.numericKey()) {
+                    stmt.setLong(1, Long.parseLong(checkpoint.lastKey()));
+                } else {
+                    stmt.setString(1, checkpoint.lastKey());
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                // Columns the target does not have yet (an older schema) are left out rather than failing the copy
+                ResultSetMetaData meta = rs.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    String column = meta.getColumnLabel(i).toLowerCase(Locale.ROOT);
+                    if (targetTypes.containsKey(column)) columns.add(column);
+                }
+
+                long rows = checkpoint.rows();
+                try (PreparedStatement insert = to.prepareStatement(upsert(table.name(), columns))) {
+                    int pending = 0;
+                    String lastKey = checkpoint.lastKey();
+                    while (rs.next()) {
+                        for (int i = 0; i < columns.size(); i++) {
+                            bind(rs, insert, columns.get(i), i + 1, targetTypes.get(columns.get(i)));
+                        }
+                        insert.addBatch();
+                        lastKey = rs.getString(table.key());
+                        rows++;
+
+                        if (++pending == batchSize) {
+                            insert.executeBatch();
+                            writeCheckpoint(to, table.name(), lastKey, rows, false);
+                            to.commit();
+                            pending = 0;
+                            progress.accept(new Progress(table.name(), rows, total, System.nanoTime() - start));
+                        }
+                    }
+                    if (pending > 0) insert.executeBatch();
+                    writeCheckpoint(to, table.name(), lastKey, rows, true);
+                    to.commit();
+                }
+                progress.accept(new Progress(table.name(), rows, total, System.nanoTime() - start));
+                return rows;
+            }
+        }
+    }
+
+    private static void bind(ResultSet rs, PreparedStatement insert, String column, int index, int type) throws SQLException {
+        switch (type) {
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE, Types.DATE, Types.TIME ->
+                    insert.setTimestamp(index, rs.getTimestamp(column));
+            case Types.BLOB, Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY ->
+                    insert.setBytes(index, rs.getBytes(column));
+            default -> insert.setObject(index, rs.getObject(column));
+        }
+    }
+
+    private String upsert(String table, List<String> columns) {
+        String names = String.join(", ", columns);
+        String values = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        if (targetSQLite) {
+            return "INSERT OR REPLACE INTO " + table + " (" + names + ") VALUES (" + values + ")";
+        }
+        return "INSERT INTO " + table + " (" + names + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE "
+                + columns.stream().map(column -> column + " = VALUES(" + column + ")").collect(Collectors.joining(", "));
+    }
+
+    private static Map<String, Integer> columnTypes(Connection conn, String table) throws SQLException {
+        Map<String, Integer> types = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                types.put(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), meta.getColumnType(i));
+            }
+        }
+        return types;
+    }
+
+    private static long count(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static Checkpoint readCheckpoint(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT last_key, rows_copied, completed FROM migration_checkpoint WHERE table_name = ?")) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return new Checkpoint(null, 0, false);
+                return new Checkpoint(rs.getString("last_key"), rs.getLong("rows_copied"), rs.getBoolean("completed"));
+            }
+        }
+    }
+
+    private void writeCheckpoint(Connection conn, String table, String lastKey, long rows, boolean completed) throws SQLException {
+        String sql = targetSQLite
+                ? "INSERT OR REPLACE INTO migration_checkpoint (table_name, last_key, rows_copied, completed, updated_at) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)"
+                : "INSERT INTO migration_checkpoint (table_name, last_key, rows_copied, completed, updated_at) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP) "
+                + "ON DUPLICATE KEY UPDATE last_key = VALUES(last_key), rows_copied = VALUES(rows_copied), "
+                + "completed = VALUES(completed), updated_at = VALUES(updated_at)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, lastKey);
+            stmt.setLong(3, rows);
+            stmt.setBoolean(4, completed);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Reported after every committed batch and at the end of each table.
+     */
+    public record Progress(String table, long copied, long total, long elapsedNanos) {
+    }
+
+    private record Table(String name, String key, boolean numericKey) {
+    }
+
+    private record Checkpoint(String lastKey, long rows, boolean completed) {
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.model.Leaderboard;
+import com.notpatch.nOrder.model.PlayerStatistics;
+import com.notpatch.nOrder.model.RollingStats;
+import com.notpatch.nOrder.model.StatType;
+import com.notpatch.nOrder.util.Money;
+import com.notpatch.nlib.util.NLogger;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class StatsRepository implements StatsStore {
+
+    private static final String UPSERT_MYSQL = """
+            INSERT INTO player_stats (player_id, player_name, delivered_items, collected_items, total_orders, total_earnings, earnings_minor)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+            player_name = VALUES(player_name),
+            delivered_items = VALUES(delivered_items),
+            collected_items = VALUES(collected_items),
+            total_orders = VALUES(total_orders),
+            total_earnings = VALUES(total_earnings),
+            earnings_minor = VALUES(earnings_minor)
+            """;
+
+    private static final String UPSERT_SQLITE = """
+            INSERT INTO player_stats (player_id, player_name, delivered_items, collected_items, total_orders, total_earnings, earnings_minor)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT(player_id) DO UPDATE SET
+            player_name = excluded.player_name,
+            delivered_items = excluded.delivered_items,
+            collected_items = excluded.collected_items,
+            total_orders = excluded.total_orders,
+            total_earnings = excluded.total_earnings,
+            earnings_minor = excluded.earnings_minor
+            """;
+
+    private static final String UPSERT_WINDOWS_MYSQL = """
+            INSERT INTO player_stats_windows (player_id, data) VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE data = VALUES(data)
+            """;
+
+    private static final String UPSERT_WINDOWS_SQLITE = """
+            INSERT OR REPLACE INTO player_stats_windows (player_id, data) VALUES (?, ?)
+            """;
+
+    /**
+     * Row key of the server-wide rolling counters in player_stats_windows.
+     */
+    public static final String GLOBAL_WINDOWS_KEY = "global";
+
+    private final DatabaseManager databaseManager;
+
+    public StatsRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Reads one player's row and rolling windows, or null when the player has none yet.
+     */
+    @Override
+    public CompletableFuture<PlayerStatistics> loadStatistics(UUID playerId) {
+        return databaseManager.supplyAsync(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM player_stats WHERE player_id = ?")) {
+                stmt.setString(1, playerId.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? loadWindows(conn, mapStatistics(rs)) : null;
+                }
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<PlayerStatistics> loadStatisticsByName(String playerName) {
+        return databaseManager.supplyAsync(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM player_stats WHERE LOWER(player_name) = LOWER(?) LIMIT 1")) {
+                stmt.setString(1, playerName);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? loadWindows(conn, mapStatistics(rs)) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Top {@code limit} players for a statistic, read straight into leaderboard entries.
+     */
+    @Override
+    public CompletableFuture<List<Leaderboard.Entry>> loadTop(StatType type, int limit) {
+        return databaseManager.supplyAsync(conn -> {
+            List<Leaderboard.Entry> entries = new ArrayList<>(limit);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT player_id, player_name, " + type.getColumn()
+                    + " FROM player_stats WHERE " + type.getColumn() + " > 0 ORDER BY " + type.getColumn() + " DESC LIMIT ?")) {
+                stmt.setInt(1, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        entries.add(new Leaderboard.Entry(UUID.fromString(rs.getString(1)), rs.getString(2), rs.getLong(3)));
+                    }
+                }
+            }
+            return entries;
+        });
+    }
+
+    private PlayerStatistics loadWindows(Connection conn, PlayerStatistics stats) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT data FROM player_stats_windows WHERE player_id = ?")) {
+            stmt.setString(1, stats.getPlayerId().toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    decodeWindows(stats.getWindows(), stats.getPlayerId().toString(), rs.getBytes("data"));
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Upserts the given rows. Saves are not coalesced because each call usually carries a different
+     * set of changed players.
+     */
+    @Override
+    public CompletableFuture<Integer> saveStatistics(Collection<PlayerStatistics> statistics) {
+        List<PlayerStatistics> snapshot = new ArrayList<>(statistics);
+        if (snapshot.isEmpty()) return CompletableFuture.completedFuture(0);
+
+        return databaseManager.write(null, conn -> {
+            String sql = databaseManager.isUsingSQLite() ? UPSERT_SQLITE : UPSERT_MYSQL;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (PlayerStatistics stats : snapshot) {
+                    stmt.setString(1, stats.getPlayerId().toString());
+                    stmt.setString(2, stats.getPlayerName());
+                    stmt.setInt(3, stats.getDeliveredItems());
+                    stmt.setInt(4, stats.getCollectedItems());
+                    stmt.setInt(5, stats.getTotalOrders());
+                    // total_earnings is kept for external readers, earnings_minor is authoritative
+                    stmt.setDouble(6, Money.toDouble(stats.getTotalEarnings()));
+                    stmt.setLong(7, stats.getTotalEarnings());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(databaseManager.isUsingSQLite() ? UPSERT_WINDOWS_SQLITE : UPSERT_WINDOWS_MYSQL)) {
+                for (PlayerStatistics stats : snapshot) {
+                    stmt.setString(1, stats.getPlayerId().toString());
+                    stmt.setBytes(2, stats.getWindows().encode());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            return snapshot.size();
+        });
+    }
+
+    @Override
+    public CompletableFuture<RollingStats> loadGlobalWindows() {
+        return databaseManager.supplyAsync(conn -> {
+            RollingStats windows = new RollingStats();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT data FROM player_stats_windows WHERE player_id = ?")) {
+                stmt.setString(1, GLOBAL_WINDOWS_KEY);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        decodeWindows(windows, GLOBAL_WINDOWS_KEY, rs.getBytes("data"));
+                    }
+                }
+            }
+            return windows;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveGlobalWindows(RollingStats windows) {
+        return databaseManager.write("player_stats_windows:global", conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(databaseManager.isUsingSQLite() ? UPSERT_WINDOWS_SQLITE : UPSERT_WINDOWS_MYSQL)) {
+                stmt.setString(1, GLOBAL_WINDOWS_KEY);
+                stmt.setBytes(2, windows.encode());
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Reads rows and their rolling windows through one cursor, a batch at a time.
+     */
+    @Override
+    public CompletableFuture<Long> streamStatistics(int batchSize, Function<List<PlayerStatistics>, CompletableFuture<?>> sink) {
+        return databaseManager.supplyAsync(conn -> {
+            BatchSink<PlayerStatistics> batches = new BatchSink<>(batchSize, sink);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT s.*, w.data FROM player_stats s LEFT JOIN player_stats_windows w ON w.player_id = s.player_id")) {
+                stmt.setFetchSize(batchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        PlayerStatistics stats = mapStatistics(rs);
+                        byte[] windows = rs.getBytes("data");
+                        if (windows != null) {
+                            decodeWindows(stats.getWindows(), stats.getPlayerId().toString(), windows);
+                        }
+                        batches.add(stats);
+                    }
+                }
+            }
+            return batches.finish();
+        });
+    }
+
+    private void decodeWindows(RollingStats windows, String key, byte[] data) {
+        try {
+            windows.decode(data);
+        } catch (IOException e) {
+            NLogger.warn("Ignoring unreadable rolling statistics for " + key + ": " + e.getMessage());
+        }
+    }
+
+    private PlayerStatistics mapStatistics(ResultSet rs) throws SQLException {
+        UUID playerId = UUID.fromString(rs.getString("player_id"));
+        PlayerStatistics stats = new PlayerStatistics(playerId, rs.getString("player_name"));
+        stats.load(rs.getInt("delivered_items"), rs.getInt("collected_items"),
+                rs.getInt("total_orders"), rs.getLong("earnings_minor"));
+        stats.setLoaded(true);
+        return stats;
+    }
+
+}
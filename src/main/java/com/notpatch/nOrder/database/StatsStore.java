@@ -0,0 +1,42 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.model.Leaderboard;
+import com.notpatch.nOrder.model.PlayerStatistics;
+import com.notpatch.nOrder.model.RollingStats;
+import com.notpatch.nOrder.model.StatType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Where player statistics and the server-wide rolling counters are persisted.
+ */
+public interface StatsStore {
+
+    /**
+     * One player's statistics, or null when the player has none yet.
+     */
+    CompletableFuture<PlayerStatistics> loadStatistics(UUID playerId);
+
+    CompletableFuture<PlayerStatistics> loadStatisticsByName(String playerName);
+
+    /**
+     * Top {@code limit} players for a statistic, highest first.
+     */
+    CompletableFuture<List<Leaderboard.Entry>> loadTop(StatType type, int limit);
+
+    CompletableFuture<Integer> saveStatistics(Collection<PlayerStatistics> statistics);
+
+    CompletableFuture<RollingStats> loadGlobalWindows();
+
+    CompletableFuture<Integer> saveGlobalWindows(RollingStats windows);
+
+    /**
+     * Same contract as {@link OrderStore#streamOrders}.
+     */
+    CompletableFuture<Long> streamStatistics(int batchSize, Function<List<PlayerStatistics>, CompletableFuture<?>> sink);
+
+}
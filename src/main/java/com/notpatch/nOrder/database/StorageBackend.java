@@ -0,0 +1,36 @@
+package com.notpatch.nOrder.database;
+
+/**
+ * Where orders and player statistics live, set by {@code storage.backend}. Escrow, the order archive
+ * and the sync change feed always use the configured database.
+ */
+public enum StorageBackend {
+
+    /**
+     * The MySQL or SQLite database from the database section.
+     */
+    DATABASE,
+    /**
+     * Kept in memory only and lost on shutdown. For tests and benchmarks.
+     */
+    MEMORY,
+    /**
+     * Memory-mapped append-only journal with periodic snapshots in the data folder. Single server only.
+     */
+    JOURNAL;
+
+    public static StorageBackend fromKey(String key) {
+        if (key == null) return null;
+        for (StorageBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(key)) {
+                return backend;
+            }
+        }
+        return null;
+    }
+
+    public String getKey() {
+        return name().toLowerCase();
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.notpatch.nOrder.database;
+
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.model.PlayerStatistics;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Binary form of orders and statistics rows for the memory and journal backends. Carries the same
+ * fields as the database rows, so a store can be migrated to another without loss.
+ */
+final class StoreCodec {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private StoreCodec() {
+    }
+
+    static byte[] encodeOrder(Order order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(order.getId());
+            writeUuid(out, order.getPlayerId());
+            out.writeUTF(order.getPlayerName());
+            out.writeUTF(order.getMaterial().name());
+            writeNullable(out, order.getCustomItemId());
+            out.writeUTF(OrderRepository.formatEnchantments(order.getItem()));
+            out.writeInt(order.getAmount());
+            out.writeLong(order.getPrice());
+            out.writeInt(order.getDelivered());
+            out.writeInt(order.getCollected());
+            writeTime(out, order.getCreatedAt());
+            writeTime(out, order.getExpirationDate());
+            out.writeBoolean(order.isHighlight());
+            out.writeUTF(order.getStatus().name());
+            out.writeLong(order.getVersion());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Order decodeOrder(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            checkVersion(in);
+            String orderId = in.readUTF();
+            UUID playerId = readUuid(in);
+            String playerName = in.readUTF();
+            ItemStack item = new ItemStack(Material.valueOf(in.readUTF()));
+            String customItemId = readNullable(in);
+            OrderRepository.applyEnchantments(orderId, item, in.readUTF());
+            int amount = in.readInt();
+            long price = in.readLong();
+            int delivered = in.readInt();
+            int collected = in.readInt();
+            LocalDateTime createdAt = readTime(in);
+            LocalDateTime expiresAt = readTime(in);
+            boolean highlight = in.readBoolean();
+
+            Order order = new Order(orderId, playerId, playerName, item, customItemId, amount, price, createdAt, expiresAt, highlight);
+            order.setStatus(OrderStatus.valueOf(in.readUTF()));
+            order.setDelivered(delivered);
+            order.setCollected(collected);
+            order.setVersion(in.readLong());
+            order.markSynced();
+            return order;
+        }
+    }
+
+    /**
+     * Reads just the id from an encoded order.
+     */
+    static String orderId(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            checkVersion(in);
+            return in.readUTF();
+        }
+    }
+
+    static byte[] encodeStats(MemoryStore.StatsRow row) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeUuid(out, row.playerId());
+            out.writeUTF(row.playerName());
+            out.writeInt(row.delivered());
+            out.writeInt(row.collected());
+            out.writeInt(row.orders());
+            out.writeLong(row.earnings());
+            out.writeInt(row.windows().length);
+            out.write(row.windows());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static MemoryStore.StatsRow decodeStats(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            checkVersion(in);
+            UUID playerId = readUuid(in);
+            String playerName = in.readUTF();
+            int delivered = in.readInt();
+            int collected = in.readInt();
+            int orders = in.readInt();
+            long earnings = in.readLong();
+            byte[] windows = new byte[in.readInt()];
+            in.readFully(windows);
+            return new MemoryStore.StatsRow(playerId, playerName, delivered, collected, orders, earnings, windows);
+        }
+    }
+
+    static PlayerStatistics toStatistics(MemoryStore.StatsRow row) {
+        PlayerStatistics stats = new PlayerStatistics(row.playerId(), row.playerName());
+        stats.load(row.delivered(), row.collected(), row.orders(), row.earnings());
+        try {
+            stats.getWindows().decode(row.windows());
+        } catch (IOException e) {
+            // Rows are only written by encode(), an unreadable one means the file was damaged.
+            throw new UncheckedIOException(e);
+        }
+        stats.setLoaded(true);
+        return stats;
+    }
+
+    private static void checkVersion(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported record format " + version);
+        }
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+}
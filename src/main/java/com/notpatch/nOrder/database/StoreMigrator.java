@@ -0,0 +1,30 @@
+package com.notpatch.nOrder.database;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Copies orders, player statistics and the server-wide rolling counters from one backend to another.
+ * Rows are streamed a batch at a time and each batch is written before the next is read.
+ */
+public final class StoreMigrator {
+
+    private StoreMigrator() {
+    }
+
+    public static CompletableFuture<Result> migrate(OrderStore fromOrders, StatsStore fromStats,
+                                                    OrderStore toOrders, StatsStore toStats, int batchSize) {
+        long start = System.nanoTime();
+        return fromOrders.streamOrders(batchSize, toOrders::saveOrders)
+                .thenCompose(orders -> fromStats.streamStatistics(batchSize, toStats::saveStatistics)
+                        .thenCompose(statistics -> fromStats.loadGlobalWindows()
+                                .thenCompose(toStats::saveGlobalWindows)
+                                .thenApply(ignored -> new Result(orders, statistics, orders + statistics, System.nanoTime() - start))));
+    }
+
+    /**
+     * {@code rows} counts everything copied, including tables that are neither orders nor statistics.
+     */
+    public record Result(long orders, long statistics, long rows, long nanos) {
+    }
+
+}
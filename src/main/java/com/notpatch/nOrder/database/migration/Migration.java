@@ -0,0 +1,17 @@
+package com.notpatch.nOrder.database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One schema change. Versions are applied in ascending order and recorded in schema_version.
+ */
+public interface Migration {
+
+    int version();
+
+    String description();
+
+    void apply(Connection conn, MigrationContext context) throws SQLException;
+
+}
@@ -0,0 +1,104 @@
+package com.notpatch.nOrder.database.migration;
+
+import java.sql.*;
+
+/**
+ * Dialect aware helpers shared by migrations.
+ */
+public class MigrationContext {
+
+    private final boolean sqlite;
+
+    public MigrationContext(boolean sqlite) {
+        this.sqlite = sqlite;
+    }
+
+    public boolean isSQLite() {
+        return sqlite;
+    }
+
+    public boolean tableExists(Connection conn, String table) throws SQLException {
+        String sql = sqlite ? "SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?" : "SHOW TABLES LIKE ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * The declared type of a column in upper case, such as {@code BIGINT} or {@code DOUBLE}; null if it does not exist.
+     */
+    public String columnType(Connection conn, String table, String column) throws SQLException {
+        if (sqlite) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+                while (rs.next()) {
+                    if (rs.getString("name").equalsIgnoreCase(column)) {
+                        return rs.getString("type").toUpperCase();
+                    }
+                }
+            }
+            return null;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement("SHOW COLUMNS FROM " + table + " LIKE ?")) {
+            stmt.setString(1, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("Type").toUpperCase() : null;
+            }
+        }
+    }
+
+    /**
+     * An INSERT that skips rows whose key already exists, so a copy can be repeated safely.
+     */
+    public String insertIgnore() {
+        return sqlite ? "INSERT OR IGNORE" : "INSERT IGNORE";
+    }
+
+    public boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        if (sqlite) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+                while (rs.next()) {
+                    if (rs.getString("name").equalsIgnoreCase(column)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement("SHOW COLUMNS FROM " + table + " LIKE ?")) {
+            stmt.setString(1, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * MySQL has no CREATE INDEX IF NOT EXISTS, so existing indexes are looked up first.
+     */
+    public void createIndex(Connection conn, String table, String name, String columns) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (sqlite) {
+                stmt.executeUpdate("CREATE INDEX IF NOT EXISTS " + name + " ON " + table + "(" + columns + ")");
+                return;
+            }
+            try (ResultSet rs = stmt.executeQuery("SHOW INDEX FROM " + table + " WHERE Key_name = '" + name + "'")) {
+                if (rs.next()) return;
+            }
+            stmt.executeUpdate("CREATE INDEX " + name + " ON " + table + "(" + columns + ")");
+        }
+    }
+
+    public void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+}
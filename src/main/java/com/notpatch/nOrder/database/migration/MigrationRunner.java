@@ -0,0 +1,71 @@
+package com.notpatch.nOrder.database.migration;
+
+import com.notpatch.nlib.util.NLogger;
+
+import java.sql.*;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies pending migrations and records each one in the schema_version table.
+ */
+public class MigrationRunner {
+
+    private final MigrationContext context;
+    private final List<Migration> migrations;
+
+    public MigrationRunner(boolean sqlite, List<Migration> migrations) {
+        this.context = new MigrationContext(sqlite);
+        this.migrations = migrations.stream()
+                .sorted(Comparator.comparingInt(Migration::version))
+                .toList();
+    }
+
+    /**
+     * Runs every migration newer than the recorded schema version. Stops at the first failure
+     * so later migrations never run on top of a half applied schema. The transaction only makes a
+     * migration atomic on SQLite; MySQL commits each DDL statement implicitly, so there a failed
+     * migration is retried from the start on the next run and must tolerate its own earlier steps.
+     */
+    public int migrate(Connection conn) throws SQLException {
+        context.execute(conn, context.isSQLite()
+                ? "CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+                : "CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL PRIMARY KEY, description VARCHAR(200) NOT NULL, applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+        int current = currentVersion(conn);
+        int applied = 0;
+
+        for (Migration migration : migrations) {
+            if (migration.version() <= current) continue;
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                migration.apply(conn, context);
+                try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    stmt.setInt(1, migration.version());
+                    stmt.setString(2, migration.description());
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw new SQLException("Migration " + migration.version() + " (" + migration.description() + ") failed: " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+            NLogger.info("Applied database migration " + migration.version() + ": " + migration.description());
+            applied++;
+        }
+        return applied;
+    }
+
+    public int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+}
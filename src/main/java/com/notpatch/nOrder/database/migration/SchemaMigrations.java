@@ -0,0 +1,240 @@
+package com.notpatch.nOrder.database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Every schema change since the first release, in order. Append new migrations at the end
+ * and never edit one that has already shipped.
+ * <p>
+ * SQLite runs each migration in one transaction. MySQL commits every CREATE, ALTER, RENAME and DROP
+ * on its own, so a migration there is only atomic per statement: write every step so that running
+ * the migration again after it stopped part way finishes it instead of failing.
+ */
+public final class SchemaMigrations {
+
+    private static final String ORDER_COLUMNS = "order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, delivered, collected, created_at, expires_at, highlight, status, version";
+
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                migration(1, "Add custom_item_id to orders", (conn, ctx) -> {
+                    if (ctx.columnExists(conn, "orders", "custom_item_id")) return;
+                    ctx.execute(conn, ctx.isSQLite()
+                            ? "ALTER TABLE orders ADD COLUMN custom_item_id VARCHAR(100) DEFAULT NULL"
+                            : "ALTER TABLE orders ADD COLUMN custom_item_id VARCHAR(100) DEFAULT NULL AFTER material");
+                }),
+                migration(2, "Add version and updated_at to orders", (conn, ctx) -> {
+                    if (ctx.columnExists(conn, "orders", "version")) return;
+                    ctx.execute(conn, "ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 1");
+                    // SQLite does not allow a non-constant default when adding a column
+                    ctx.execute(conn, ctx.isSQLite()
+                            ? "ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP DEFAULT NULL"
+                            : "ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP");
+                }),
+                migration(3, "Add composite indexes for status, player and material lookups", (conn, ctx) -> {
+                    ctx.createIndex(conn, "orders", "idx_status_expires", "status, expires_at");
+                    ctx.createIndex(conn, "orders", "idx_player_status", "player_id, status");
+                    ctx.createIndex(conn, "orders", "idx_material_status", "material, status");
+                }),
+                migration(4, "Move archived orders to orders_archive", (conn, ctx) -> {
+                    ctx.execute(conn, ctx.isSQLite() ? ARCHIVE_TABLE_SQLITE : ARCHIVE_TABLE_MYSQL);
+                    ctx.createIndex(conn, "orders_archive", "idx_archive_player", "player_id");
+                    ctx.createIndex(conn, "orders_archive", "idx_archive_archived_at", "archived_at");
+                    ctx.execute(conn, ctx.insertIgnore() + " INTO orders_archive (" + ORDER_COLUMNS + ") SELECT " + ORDER_COLUMNS
+                            + " FROM orders WHERE status = 'ARCHIVED'");
+                    ctx.execute(conn, "DELETE FROM orders WHERE status = 'ARCHIVED'");
+                }),
+                migration(5, "Add rolling window statistics table", (conn, ctx) -> {
+                    ctx.execute(conn, "CREATE TABLE IF NOT EXISTS player_stats_windows (player_id VARCHAR(36) NOT NULL PRIMARY KEY, data BLOB NOT NULL)");
+                }),
+                migration(6, "Add escrow ledger and open holds for active orders", (conn, ctx) -> {
+                    ctx.execute(conn, ctx.isSQLite() ? ESCROW_LEDGER_SQLITE : ESCROW_LEDGER_MYSQL);
+                    ctx.createIndex(conn, "escrow_ledger", "idx_ledger_order", "order_id");
+                    ctx.createIndex(conn, "escrow_ledger", "idx_ledger_player", "player_id");
+                    ctx.execute(conn, "CREATE TABLE IF NOT EXISTS escrow_holds (order_id VARCHAR(8) NOT NULL PRIMARY KEY, player_id VARCHAR(36) NOT NULL, held DOUBLE NOT NULL)");
+                    ctx.execute(conn, "CREATE TABLE IF NOT EXISTS escrow_payouts (player_id VARCHAR(36) NOT NULL PRIMARY KEY, owed DOUBLE NOT NULL)");
+                    // Orders created before the ledger existed have already been paid for. Orders that already
+                    // have a ledger entry are skipped, so a run interrupted on MySQL can be repeated.
+                    ctx.execute(conn, "INSERT INTO escrow_ledger (order_id, player_id, entry_type, amount) SELECT order_id, player_id, 'HOLD', "
+                            + "(amount - delivered) * price FROM orders WHERE status = 'ACTIVE' AND amount > delivered "
+                            + "AND NOT EXISTS (SELECT 1 FROM escrow_ledger l WHERE l.order_id = orders.order_id)");
+                    ctx.execute(conn, ctx.insertIgnore() + " INTO escrow_holds (order_id, player_id, held) SELECT order_id, player_id, "
+                            + "(amount - delivered) * price FROM orders WHERE status = 'ACTIVE' AND amount > delivered");
+                }),
+                migration(7, "Store money as minor units", (conn, ctx) -> {
+                    for (String table : List.of("orders", "orders_archive")) {
+                        if (!ctx.columnExists(conn, table, "price_minor")) {
+                            ctx.execute(conn, "ALTER TABLE " + table + " ADD COLUMN price_minor BIGINT NOT NULL DEFAULT 0");
+                        }
+                        ctx.execute(conn, "UPDATE " + table + " SET price_minor = ROUND(price * 100) WHERE price_minor = 0");
+                    }
+                    if (!ctx.columnExists(conn, "player_stats", "earnings_minor")) {
+                        ctx.execute(conn, "ALTER TABLE player_stats ADD COLUMN earnings_minor BIGINT NOT NULL DEFAULT 0");
+                    }
+                    ctx.execute(conn, "UPDATE player_stats SET earnings_minor = ROUND(total_earnings * 100) WHERE earnings_minor = 0");
+
+                    // The escrow tables are rebuilt with BIGINT amounts. Balances are recomputed from the
+                    // converted journal so they match it exactly instead of summing rounded values. Every
+                    // step is guarded, so a run that stopped part way on MySQL picks up where it stopped.
+                    boolean converted = !ctx.tableExists(conn, "escrow_ledger_old")
+                            && "BIGINT".equals(baseType(ctx.columnType(conn, "escrow_ledger", "amount")));
+                    if (!converted) {
+                        for (String table : List.of("escrow_ledger", "escrow_holds", "escrow_payouts")) {
+                            if (!ctx.tableExists(conn, table + "_old")) {
+                                ctx.execute(conn, "ALTER TABLE " + table + " RENAME TO " + table + "_old");
+                            }
+                        }
+                        ctx.execute(conn, ctx.isSQLite() ? ESCROW_LEDGER_MINOR_SQLITE : ESCROW_LEDGER_MINOR_MYSQL);
+                        ctx.execute(conn, "CREATE TABLE IF NOT EXISTS escrow_holds (order_id VARCHAR(8) NOT NULL PRIMARY KEY, player_id VARCHAR(36) NOT NULL, held BIGINT NOT NULL)");
+                        ctx.execute(conn, "CREATE TABLE IF NOT EXISTS escrow_payouts (player_id VARCHAR(36) NOT NULL PRIMARY KEY, owed BIGINT NOT NULL)");
+                        ctx.execute(conn, ctx.insertIgnore() + " INTO escrow_ledger (id, order_id, player_id, entry_type, amount, created_at) "
+                                + "SELECT id, order_id, player_id, entry_type, ROUND(amount * 100), created_at FROM escrow_ledger_old");
+                        ctx.execute(conn, ctx.insertIgnore() + """
+                                 INTO escrow_holds (order_id, player_id, held)
+                                SELECT h.order_id, h.player_id, COALESCE((SELECT SUM(CASE WHEN l.entry_type = 'HOLD' THEN l.amount ELSE -l.amount END)
+                                    FROM escrow_ledger l WHERE l.order_id = h.order_id AND l.entry_type IN ('HOLD', 'RELEASE', 'REFUND', 'FORFEIT')), 0)
+                                FROM escrow_holds_old h
+                                """);
+                        ctx.execute(conn, ctx.insertIgnore() + """
+                                 INTO escrow_payouts (player_id, owed)
+                                SELECT player_id, SUM(CASE WHEN entry_type = 'PAYOUT' THEN -amount ELSE amount END)
+                                FROM escrow_ledger WHERE entry_type IN ('RELEASE', 'REFUND', 'PAYOUT', 'REVERSAL')
+                                GROUP BY player_id
+                                HAVING SUM(CASE WHEN entry_type = 'PAYOUT' THEN -amount ELSE amount END) <> 0
+                                """);
+                        ctx.execute(conn, "DELETE FROM escrow_holds WHERE held = 0");
+                        ctx.execute(conn, "DROP TABLE IF EXISTS escrow_ledger_old");
+                        ctx.execute(conn, "DROP TABLE IF EXISTS escrow_holds_old");
+                        ctx.execute(conn, "DROP TABLE IF EXISTS escrow_payouts_old");
+                    }
+                    ctx.createIndex(conn, "escrow_ledger", "idx_ledger_order", "order_id");
+                    ctx.createIndex(conn, "escrow_ledger", "idx_ledger_player", "player_id");
+                }),
+                migration(8, "Add migration checkpoint table", (conn, ctx) -> {
+                    ctx.execute(conn, """
+                            CREATE TABLE IF NOT EXISTS migration_checkpoint (
+                                table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+                                last_key VARCHAR(64) DEFAULT NULL,
+                                rows_copied BIGINT NOT NULL DEFAULT 0,
+                                completed BOOLEAN NOT NULL DEFAULT FALSE,
+                                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                            )
+                            """);
+                })
+        );
+    }
+
+    private static final String ARCHIVE_TABLE_MYSQL = """
+            CREATE TABLE IF NOT EXISTS orders_archive (
+                order_id VARCHAR(8) NOT NULL PRIMARY KEY,
+                player_id VARCHAR(36) NOT NULL,
+                player_name VARCHAR(16) NOT NULL,
+                material VARCHAR(50) NOT NULL,
+                custom_item_id VARCHAR(100) DEFAULT NULL,
+                enchantments TEXT DEFAULT NULL,
+                amount INT NOT NULL,
+                price DOUBLE NOT NULL,
+                delivered INT DEFAULT 0,
+                collected INT DEFAULT 0,
+                created_at TIMESTAMP NULL DEFAULT NULL,
+                expires_at TIMESTAMP NULL DEFAULT NULL,
+                highlight BOOLEAN DEFAULT FALSE,
+                status VARCHAR(20) DEFAULT 'ARCHIVED',
+                version BIGINT NOT NULL DEFAULT 1,
+                archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private static final String ARCHIVE_TABLE_SQLITE = """
+            CREATE TABLE IF NOT EXISTS orders_archive (
+                order_id VARCHAR(8) NOT NULL PRIMARY KEY,
+                player_id VARCHAR(36) NOT NULL,
+                player_name VARCHAR(16) NOT NULL,
+                material VARCHAR(50) NOT NULL,
+                custom_item_id VARCHAR(100) DEFAULT NULL,
+                enchantments TEXT DEFAULT NULL,
+                amount INT NOT NULL,
+                price DOUBLE NOT NULL,
+                delivered INT DEFAULT 0,
+                collected INT DEFAULT 0,
+                created_at TIMESTAMP DEFAULT NULL,
+                expires_at TIMESTAMP DEFAULT NULL,
+                highlight BOOLEAN DEFAULT FALSE,
+                status VARCHAR(20) DEFAULT 'ARCHIVED',
+                version BIGINT NOT NULL DEFAULT 1,
+                archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private static final String ESCROW_LEDGER_MYSQL = """
+            CREATE TABLE IF NOT EXISTS escrow_ledger (
+                id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                order_id VARCHAR(8) DEFAULT NULL,
+                player_id VARCHAR(36) NOT NULL,
+                entry_type VARCHAR(10) NOT NULL,
+                amount DOUBLE NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private static final String ESCROW_LEDGER_SQLITE = """
+            CREATE TABLE IF NOT EXISTS escrow_ledger (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                order_id VARCHAR(8) DEFAULT NULL,
+                player_id VARCHAR(36) NOT NULL,
+                entry_type VARCHAR(10) NOT NULL,
+                amount DOUBLE NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private static final String ESCROW_LEDGER_MINOR_MYSQL = """
+            CREATE TABLE IF NOT EXISTS escrow_ledger (
+                id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                order_id VARCHAR(8) DEFAULT NULL,
+                player_id VARCHAR(36) NOT NULL,
+                entry_type VARCHAR(10) NOT NULL,
+                amount BIGINT NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    private static final String ESCROW_LEDGER_MINOR_SQLITE = """
+            CREATE TABLE IF NOT EXISTS escrow_ledger (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                order_id VARCHAR(8) DEFAULT NULL,
+                player_id VARCHAR(36) NOT NULL,
+                entry_type VARCHAR(10) NOT NULL,
+                amount BIGINT NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+
+    // MySQL reports sized types such as BIGINT(20)
+    private static String baseType(String type) {
+        if (type == null) return null;
+        int size = type.indexOf('(');
+        return size < 0 ? type.trim() : type.substring(0, size).trim();
+    }
+
+    private static Migration migration(int version, String description, Body body) {
+        return new Step(version, description, body);
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void apply(Connection conn, MigrationContext context) throws SQLException;
+    }
+
+    private record Step(int version, String description, Body body) implements Migration {
+        @Override
+        public void apply(Connection conn, MigrationContext context) throws SQLException {
+            body.apply(conn, context);
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.notpatch.nOrder.gui;
 
 import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.Settings;
+import com.notpatch.nOrder.model.EnchantTable;
 import com.notpatch.nOrder.util.ItemStackHelper;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.fastinv.FastInv;
@@ -15,7 +17,6 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.EnchantmentStorageMeta;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class EnchantSelectMenu extends FastInv {
 
@@ -25,30 +26,22 @@ public class EnchantSelectMenu extends FastInv {
     private final Material selectedMaterial;
     private final Map<Enchantment, Integer> selectedEnchants = new HashMap<>();
     private final List<Enchantment> availableEnchants;
-    private final Configuration config;
+    private final EnchantTable enchantTable;
     private List<Integer> fillerSlots = new ArrayList<>();
 
     public EnchantSelectMenu(NewOrderMenu parentMenu, Material material) {
         super(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getInt("enchant-select-menu.size"),
                 ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("enchant-select-menu.title")));
+        long start = System.nanoTime();
         main = NOrder.getInstance();
         this.parentMenu = parentMenu;
         this.selectedMaterial = material;
-        this.config = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
-
-        if (material == Material.ENCHANTED_BOOK) {
-            this.availableEnchants = Arrays.stream(Enchantment.values())
-                    .collect(Collectors.toList());
-        } else {
-            ItemStack item = new ItemStack(material);
-            this.availableEnchants = Arrays.stream(Enchantment.values())
-                    .filter(enchantment -> enchantment.canEnchantItem(item))
-                    .collect(Collectors.toList());
-        }
+        this.enchantTable = Settings.enchantTable;
+        this.availableEnchants = enchantTable.getApplicable(material);
 
-        updateEnchantmentItems();
+        loadEnchantmentItems();
         loadMenuItems();
-
+        main.getMetricsRegistry().record("menu.enchant-select", start);
     }
 
     private void loadMenuItems() {
@@ -81,55 +74,28 @@ public class EnchantSelectMenu extends FastInv {
         }
     }
 
-    private void updateEnchantmentItems() {
-        for (int i = 10; i < 45; i++) {
-            if (fillerSlots.contains(i)) continue;
-            setItem(i, null);
-        }
-
+    private void loadEnchantmentItems() {
         for (int i = 0; i < availableEnchants.size(); i++) {
             if (i >= 28) break;
 
             Enchantment enchant = availableEnchants.get(i);
             int slot = 10 + (i % 7) + ((i / 7) * 9);
 
-            setItem(slot, createEnchantButton(enchant), e -> {
+            setItem(slot, enchantTable.getButton(enchant, 0), e -> {
                 if (e.isLeftClick()) {
                     increaseEnchantLevel(enchant);
                 } else if (e.isRightClick()) {
                     decreaseEnchantLevel(enchant);
                 }
-                updateEnchantmentItems();
+                // Only this button changed; keep its click handler and swap the item
+                getInventory().setItem(slot, enchantTable.getButton(enchant, selectedEnchants.getOrDefault(enchant, 0)));
             });
         }
     }
 
-    private ItemStack createEnchantButton(Enchantment enchant) {
-        int level = selectedEnchants.getOrDefault(enchant, 0);
-        String enchantName = formatEnchantmentName(enchant.getKey().getKey());
-
-        List<String> lore = new ArrayList<>();
-        for (String line : config.getStringList("enchant-select-menu.items.enchant-item-template.lore")) {
-            line = ColorUtil.hexColor(line
-                    .replace("%level%", String.valueOf(level > 0 ? level : "None"))
-                    .replace("%max_level%", String.valueOf(enchant.getMaxLevel())));
-            lore.add(line);
-        }
-
-        String displayName = ColorUtil.hexColor(config.getString("enchant-select-menu.items.enchant-item-template.name", "&f" + enchantName)
-                .replace("%enchant_name%", enchantName));
-
-        return ItemStackHelper.builder()
-                .material(Material.ENCHANTED_BOOK)
-                .displayName(displayName)
-                .lore(lore)
-                .glow(level > 0)
-                .build();
-    }
-
     private void increaseEnchantLevel(Enchantment enchant) {
         int currentLevel = selectedEnchants.getOrDefault(enchant, 0);
-        if (currentLevel < enchant.getMaxLevel()) {
+        if (currentLevel < enchantTable.getMaxLevel(enchant)) {
             selectedEnchants.put(enchant, currentLevel + 1);
         }
     }
@@ -168,12 +134,6 @@ public class EnchantSelectMenu extends FastInv {
         }
     }
 
-    private String formatEnchantmentName(String name) {
-        return Arrays.stream(name.split("_"))
-                .map(s -> s.substring(0, 1).toUpperCase() + s.substring(1).toLowerCase())
-                .collect(Collectors.joining(" "));
-    }
-
     private List<Integer> parseSlots(String slotsString) {
         List<Integer> slots = new ArrayList<>();
         if (slotsString == null || slotsString.isEmpty()) return slots;
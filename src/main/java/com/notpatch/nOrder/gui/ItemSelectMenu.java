@@ -3,6 +3,7 @@ package com.notpatch.nOrder.gui;
 import com.notpatch.nOrder.LanguageLoader;
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.Settings;
+import com.notpatch.nOrder.model.ItemCatalog;
 import com.notpatch.nOrder.util.ItemStackHelper;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.fastinv.FastInv;
@@ -10,14 +11,11 @@ import com.notpatch.nlib.util.ColorUtil;
 import org.bukkit.Material;
 import org.bukkit.configuration.Configuration;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,8 +25,7 @@ public class ItemSelectMenu extends FastInv {
 
     private final NewOrderMenu parentMenu;
     private int currentPage = 1;
-    private final List<Material> availableItems;
-    private List<ItemStack> customItems;
+    private final ItemCatalog catalog;
     private final List<Integer> itemSlots;
     private final int itemsPerPage;
     private String searchQuery = "";
@@ -36,15 +33,13 @@ public class ItemSelectMenu extends FastInv {
     public ItemSelectMenu(NewOrderMenu parentMenu) {
         super(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getInt("item-select-menu.size"),
                 ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("item-select-menu.title")));
+        long start = System.nanoTime();
 
         this.parentMenu = parentMenu;
         main = NOrder.getInstance();
         Configuration config = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
 
-        this.availableItems = Settings.availableItems;
-
-        // Don't store reference - will be refreshed in updateItems()
-        this.customItems = new ArrayList<>();
+        this.catalog = Settings.itemCatalog;
 
         List<String> slotsStr = config.getStringList("item-select-menu.item-slots");
         this.itemSlots = slotsStr.stream()
@@ -55,6 +50,7 @@ public class ItemSelectMenu extends FastInv {
 
         loadMenuItems();
         updateItems();
+        main.getMetricsRegistry().record("menu.item-select", start);
     }
 
     private void loadMenuItems() {
@@ -87,17 +83,11 @@ public class ItemSelectMenu extends FastInv {
     }
 
     private void updateItems() {
-        this.customItems = new ArrayList<>(Settings.customItems);
-
         for (int slot : itemSlots) {
             setItem(slot, null);
         }
 
-        List<Object> allItems = new ArrayList<>(getFilteredItems());
-
-        if (Settings.CUSTOM_ITEM_ENABLED && !customItems.isEmpty()) {
-            allItems.addAll(getFilteredCustomItems());
-        }
+        List<ItemCatalog.Entry> allItems = getFilteredItems();
 
         int startIndex = (currentPage - 1) * itemsPerPage;
         int endIndex = Math.min(startIndex + itemsPerPage, allItems.size());
@@ -106,11 +96,18 @@ public class ItemSelectMenu extends FastInv {
             if (i >= itemSlots.size()) break;
 
             int slot = itemSlots.get(i);
-            Object itemObj = allItems.get(startIndex + i);
+            ItemCatalog.Entry entry = allItems.get(startIndex + i);
 
-            if (itemObj instanceof Material material) {
-                setItem(slot, createItemButton(material), e -> {
-                    if (material.name().contains("ENCHANTED") || canBeEnchanted(material)) {
+            if (entry.isCustom()) {
+                setItem(slot, entry.button(), e -> {
+                    parentMenu.setSelectedItem(entry.customItem());
+                    parentMenu.updateMenuItems();
+                    parentMenu.open((Player) e.getWhoClicked());
+                });
+            } else {
+                Material material = entry.material();
+                setItem(slot, entry.button(), e -> {
+                    if (entry.enchantable()) {
                         parentMenu.setSelectedItem(material);
                         new EnchantSelectMenu(parentMenu, material).open((Player) e.getWhoClicked());
                     } else {
@@ -119,12 +116,6 @@ public class ItemSelectMenu extends FastInv {
                         parentMenu.open((Player) e.getWhoClicked());
                     }
                 });
-            } else if (itemObj instanceof ItemStack customItem) {
-                setItem(slot, createCustomItemButton(customItem), e -> {
-                    parentMenu.setSelectedItem(customItem);
-                    parentMenu.updateMenuItems();
-                    parentMenu.open((Player) e.getWhoClicked());
-                });
             }
         }
 
@@ -168,50 +159,6 @@ public class ItemSelectMenu extends FastInv {
         }
     }
 
-    private ItemStack createItemButton(Material material) {
-        Configuration config = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
-        ConfigurationSection template = config.getConfigurationSection("item-select-menu.items.select-item-template");
-
-        if (template != null) {
-            String name = ColorUtil.hexColor(template.getString("name", "&f%item_name%")
-                    .replace("%item_name%", formatMaterialName(material)));
-
-            List<String> lore = template.getStringList("lore");
-
-            List<ItemFlag> itemFlags = new ArrayList<>();
-            for (String flagStr : template.getStringList("item-flags")) {
-                try {
-                    itemFlags.add(ItemFlag.valueOf(flagStr));
-                } catch (IllegalArgumentException e) {
-                }
-            }
-            return ItemStackHelper.builder()
-                    .material(material)
-                    .displayName(name)
-                    .lore(lore)
-                    .flags(itemFlags)
-                    .build();
-        }
-
-        return ItemStackHelper.builder()
-                .material(material)
-                .displayName(ColorUtil.hexColor("&f" + formatMaterialName(material)))
-                .build();
-    }
-
-
-    private String formatMaterialName(Material material) {
-        return Arrays.stream(material.name().split("_"))
-                .map(s -> s.substring(0, 1).toUpperCase() + s.substring(1).toLowerCase())
-                .collect(Collectors.joining(" "));
-    }
-
-    private boolean canBeEnchanted(Material material) {
-        ItemStack item = new ItemStack(material);
-        return Arrays.stream(Enchantment.values())
-                .anyMatch(enchantment -> enchantment.canEnchantItem(item));
-    }
-
     private void handleAction(String action, Player player) {
         switch (action) {
             case "search-item" -> {
@@ -219,6 +166,7 @@ public class ItemSelectMenu extends FastInv {
                 player.sendMessage(LanguageLoader.getMessage("enter-item"));
                 main.getChatInputManager().setAwaitingInput(player, input -> {
                     searchQuery = input;
+                    currentPage = 1;
                     main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
                         updateItems();
                         this.open(player);
@@ -241,64 +189,9 @@ public class ItemSelectMenu extends FastInv {
         }
     }
 
-    private List<Material> getFilteredItems() {
-        if (searchQuery.isEmpty()) {
-            return availableItems;
-        }
-        return availableItems.stream()
-                .filter(m -> formatMaterialName(m).toLowerCase()
-                        .contains(searchQuery.toLowerCase()))
-                .collect(Collectors.toList());
-    }
-
-    private List<ItemStack> getFilteredCustomItems() {
-        if (searchQuery.isEmpty()) {
-            return customItems;
-        }
-
-        return customItems.stream()
-                .filter(item -> {
-                    String displayName = ItemStackHelper.getItemDisplayName(item);
-                    String customId = main.getCustomItemManager().getCustomItemId(item);
-
-                    return displayName.toLowerCase().contains(searchQuery.toLowerCase()) ||
-                            (customId != null && customId.toLowerCase().contains(searchQuery.toLowerCase()));
-                })
-                .collect(Collectors.toList());
-    }
-
-    private ItemStack createCustomItemButton(ItemStack customItem) {
-        Configuration config = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
-        ConfigurationSection template = config.getConfigurationSection("item-select-menu.items.select-item-template");
-
-        ItemStack button = customItem.clone();
-
-        if (template != null) {
-            button.editMeta(meta -> {
-                String customId = main.getCustomItemManager().getCustomItemId(customItem);
-                String displayName = ItemStackHelper.getItemDisplayName(customItem);
-
-                String name = ColorUtil.hexColor(template.getString("name", "&f%item_name%")
-                        .replace("%item_name%", displayName));
-                meta.setDisplayName(name);
-
-                List<String> lore = template.getStringList("lore").stream()
-                        .map(line -> ColorUtil.hexColor(line
-                                .replace("%item_id%", customId != null ? customId : "")
-                                .replace("%item_name%", displayName)))
-                        .collect(Collectors.toList());
-                meta.setLore(lore);
-
-                for (String flagStr : template.getStringList("item-flags")) {
-                    try {
-                        meta.addItemFlags(ItemFlag.valueOf(flagStr));
-                    } catch (IllegalArgumentException ignored) {
-                    }
-                }
-            });
-        }
-
-        return button;
+    // Custom items are only in the catalog while custom item support is enabled
+    private List<ItemCatalog.Entry> getFilteredItems() {
+        return catalog.search(searchQuery);
     }
 
 
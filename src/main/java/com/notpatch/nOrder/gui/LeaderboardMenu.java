@@ -0,0 +1,162 @@
+package com.notpatch.nOrder.gui;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.model.Leaderboard;
+import com.notpatch.nOrder.model.StatType;
+import com.notpatch.nOrder.util.ItemStackHelper;
+import com.notpatch.nlib.effect.NSound;
+import com.notpatch.nlib.fastinv.FastInv;
+import com.notpatch.nlib.util.ColorUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.SkullMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeaderboardMenu extends FastInv {
+
+    private final NOrder main;
+    private final StatType type;
+    private final List<Integer> entrySlots;
+
+    public LeaderboardMenu() {
+        this(StatType.EARNINGS);
+    }
+
+    public LeaderboardMenu(StatType type) {
+        super(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getInt("leaderboard-menu.size", 54),
+                ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("leaderboard-menu.title", "&lTop Traders")));
+        long start = System.nanoTime();
+
+        this.main = NOrder.getInstance();
+        this.type = type;
+        Configuration configuration = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
+
+        this.entrySlots = new ArrayList<>();
+        for (String slotStr : configuration.getStringList("leaderboard-menu.entry-slots")) {
+            try {
+                this.entrySlots.add(Integer.parseInt(slotStr));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        loadMenuItems(configuration);
+        loadEntries(configuration);
+        main.getMetricsRegistry().record("menu.leaderboard", start);
+    }
+
+    private void loadMenuItems(Configuration configuration) {
+        ConfigurationSection itemsSection = configuration.getConfigurationSection("leaderboard-menu.items");
+        if (itemsSection == null) return;
+
+        for (String key : itemsSection.getKeys(false)) {
+            ConfigurationSection itemSection = itemsSection.getConfigurationSection(key);
+            if (itemSection == null) continue;
+
+            ItemStack item = ItemStackHelper.fromSection(itemSection);
+            String action = itemSection.getString("action");
+
+            if (itemSection.contains("slot")) {
+                setItem(itemSection.getInt("slot"), item, e -> {
+                    if (action != null) {
+                        handleMenuAction(action, e.getWhoClicked());
+                    }
+                });
+            } else if (itemSection.contains("slots")) {
+                for (int slot : parseSlots(itemSection.getString("slots"))) {
+                    setItem(slot, item);
+                }
+            }
+        }
+    }
+
+    private void loadEntries(Configuration configuration) {
+        ConfigurationSection template = configuration.getConfigurationSection("leaderboard-menu.entry-template");
+        if (template == null) return;
+
+        String statName = configuration.getString("leaderboard-menu.stat-names." + type.getKey(), type.getKey());
+        List<Leaderboard.Entry> entries = main.getPlayerStatsManager().getLeaderboard(type).top(entrySlots.size());
+
+        for (int i = 0; i < entries.size(); i++) {
+            Leaderboard.Entry entry = entries.get(i);
+            int rank = i + 1;
+            String playerName = entry.playerName() == null ? "-" : entry.playerName();
+
+            ItemStack item = new ItemStack(Material.PLAYER_HEAD);
+            item.editMeta(meta -> {
+                meta.setDisplayName(ColorUtil.hexColor(replace(template.getString("name", "&e#%rank% &f%player%"), rank, playerName, statName, entry)));
+                meta.setLore(template.getStringList("lore").stream()
+                        .map(line -> ColorUtil.hexColor(replace(line, rank, playerName, statName, entry)))
+                        .toList());
+                if (meta instanceof SkullMeta skullMeta) {
+                    skullMeta.setOwningPlayer(Bukkit.getOfflinePlayer(entry.playerId()));
+                }
+            });
+
+            setItem(entrySlots.get(i), item);
+        }
+    }
+
+    private String replace(String text, int rank, String playerName, String statName, Leaderboard.Entry entry) {
+        return text.replace("%rank%", String.valueOf(rank))
+                .replace("%player%", playerName)
+                .replace("%stat%", statName)
+                .replace("%value%", type.format(entry.value()));
+    }
+
+    private void handleMenuAction(String action, HumanEntity player) {
+        if (action.equals("back")) {
+            player.closeInventory();
+            main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
+                new MainOrderMenu().open((Player) player);
+            });
+            return;
+        }
+
+        // stat:<key> switches the board
+        if (action.startsWith("stat:")) {
+            StatType selected = StatType.fromKey(action.substring(5));
+            if (selected == null || selected == type) return;
+            player.closeInventory();
+            main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
+                new LeaderboardMenu(selected).open((Player) player);
+            });
+        }
+    }
+
+    private List<Integer> parseSlots(String slotsString) {
+        List<Integer> slots = new ArrayList<>();
+        if (slotsString == null) return slots;
+
+        slotsString = slotsString.replace("[", "").replace("]", "");
+        for (String part : slotsString.split(",")) {
+            part = part.trim();
+            if (part.contains("-")) {
+                String[] range = part.split("-");
+                int start = Integer.parseInt(range[0].trim());
+                int end = Integer.parseInt(range[1].trim());
+                for (int i = start; i <= end; i++) {
+                    slots.add(i);
+                }
+            } else {
+                slots.add(Integer.parseInt(part));
+            }
+        }
+        return slots;
+    }
+
+    @Override
+    protected void onClick(InventoryClickEvent event) {
+        if (event.getCursor().getType() != Material.AIR) {
+            NSound.click((Player) event.getWhoClicked());
+        }
+    }
+
+}
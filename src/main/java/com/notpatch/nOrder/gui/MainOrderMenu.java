@@ -5,6 +5,8 @@ import com.notpatch.nOrder.LanguageLoader;
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.Settings;
 import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderSort;
+import com.notpatch.nOrder.model.OrderSortIndex;
 import com.notpatch.nOrder.util.ItemStackHelper;
 import com.notpatch.nOrder.util.StringUtil;
 import com.notpatch.nlib.effect.NSound;
@@ -42,13 +44,24 @@ public class MainOrderMenu extends FastInv {
     private final int itemsPerPage;
     private List<Order> filteredOrders;
     private Player player;
+    // Set when showing the whole market in a sort order; pages then come from the sort index
+    private final OrderSort sort;
+    private final OrderSortIndex.Page sortedPage;
 
     public MainOrderMenu() {
-        this(1, NOrder.getInstance().getOrderManager().getHighlightedOrdersFirst());
+        this(null, OrderSort.HIGHLIGHTED);
     }
 
     public MainOrderMenu(Player player) {
-        this(1, NOrder.getInstance().getOrderManager().getHighlightedOrdersFirst(), null, null, player);
+        this(player, OrderSort.HIGHLIGHTED);
+    }
+
+    public MainOrderMenu(Player player, OrderSort sort) {
+        this(player, sort, NOrder.getInstance().getOrderManager().firstPage(sort, pageSize()));
+    }
+
+    private MainOrderMenu(Player player, OrderSort sort, OrderSortIndex.Page sortedPage) {
+        this(1, sortedPage.orders(), null, null, player, sort, sortedPage);
     }
 
     public MainOrderMenu(List<Order> orders) {
@@ -60,14 +73,22 @@ public class MainOrderMenu extends FastInv {
     }
 
     public MainOrderMenu(int page, List<Order> orders, String filterType, String filterValue, Player player) {
+        this(page, orders, filterType, filterValue, player, null, null);
+    }
+
+    private MainOrderMenu(int page, List<Order> orders, String filterType, String filterValue, Player player,
+                          OrderSort sort, OrderSortIndex.Page sortedPage) {
         super(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getInt("main-order-menu.size"),
                 ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("main-order-menu.title")));
+        long start = System.nanoTime();
 
         main = NOrder.getInstance();
         Configuration configuration = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
 
         this.currentPage = page;
         this.itemsPerPage = configuration.getInt("main-order-menu.pagination.items-per-page", 21);
+        this.sort = sort;
+        this.sortedPage = sortedPage;
 
         if (filterType != null && filterValue != null) {
             this.filteredOrders = filterOrders(orders, filterType, filterValue);
@@ -91,18 +112,21 @@ public class MainOrderMenu extends FastInv {
 
         loadMenuItems(configuration);
         loadOrderItems(this.filteredOrders);
+        main.getMetricsRegistry().record("menu.main", start);
+    }
+
+    private static int pageSize() {
+        return NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration()
+                .getInt("main-order-menu.pagination.items-per-page", 21);
+    }
+
+    private String sortName() {
+        return LanguageLoader.getMessage(sort == null ? "sort-filtered" : "sort-" + sort.getKey());
     }
 
     private List<Order> filterOrders(List<Order> orders, String filterType, String filterValue) {
         return switch (filterType.toLowerCase()) {
-            case "item" -> orders.stream()
-                    .filter(order -> order.getMaterial().name().toLowerCase()
-                            .contains(filterValue.toLowerCase()))
-                    .toList();
-            case "player" -> orders.stream()
-                    .filter(order -> order.getPlayerName().toLowerCase()
-                            .contains(filterValue.toLowerCase()))
-                    .toList();
+            case "search" -> main.getOrderManager().searchOrders(filterValue);
             default -> orders;
         };
     }
@@ -125,7 +149,7 @@ public class MainOrderMenu extends FastInv {
 
                         String name = meta.getDisplayName();
                         if (name != null && !name.isEmpty()) {
-                            String processedName = PlaceholderAPI.setPlaceholders(player, name);
+                            String processedName = PlaceholderAPI.setPlaceholders(player, name).replace("%sort%", sortName());
                             meta.setDisplayName(processedName);
                             item.setItemMeta(meta);
                         }
@@ -133,7 +157,7 @@ public class MainOrderMenu extends FastInv {
                         List<String> lore = meta.getLore();
                         if (lore != null) {
                             List<String> processedLore = lore.stream()
-                                    .map(line -> PlaceholderAPI.setPlaceholders(player, line))
+                                    .map(line -> PlaceholderAPI.setPlaceholders(player, line).replace("%sort%", sortName()))
                                     .collect(Collectors.toList());
 
                             meta.setLore(processedLore);
@@ -354,21 +378,42 @@ public class MainOrderMenu extends FastInv {
             }
             case "search-order" -> {
                 player.closeInventory();
-                player.sendMessage(LanguageLoader.getMessage("enter-item"));
+                player.sendMessage(LanguageLoader.getMessage("enter-search"));
                 main.getChatInputManager().setAwaitingInput((Player) player, searchValue -> {
                     main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
-                        new MainOrderMenu(1, main.getOrderManager().getHighlightedOrdersFirst(),
-                                "item", searchValue, (Player) player).open((Player) player);
+                        new MainOrderMenu(1, main.getOrderManager().searchOrders(searchValue),
+                                null, null, (Player) player).open((Player) player);
                     });
                 });
             }
+            case "sort-order" -> {
+                OrderSort nextSort = sort == null ? OrderSort.HIGHLIGHTED : sort.next();
+                player.closeInventory();
+                main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
+                    new MainOrderMenu((Player) player, nextSort).open((Player) player);
+                });
+            }
             case "your-orders" -> {
                 player.closeInventory();
                 main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
                     new YourOrdersMenu((Player) player).open((Player) player);
                 });
             }
+            case "leaderboard" -> {
+                player.closeInventory();
+                main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
+                    new LeaderboardMenu().open((Player) player);
+                });
+            }
             case "next-page" -> {
+                if (sortedPage != null) {
+                    if (!sortedPage.hasNext()) return;
+                    player.closeInventory();
+                    main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
+                        new MainOrderMenu((Player) player, sort, main.getOrderManager().nextPage(sort, sortedPage, itemsPerPage)).open((Player) player);
+                    });
+                    return;
+                }
                 if (currentPage < Math.ceil((double) filteredOrders.size() / itemsPerPage)) {
                     player.closeInventory();
                     main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
@@ -377,6 +422,14 @@ public class MainOrderMenu extends FastInv {
                 }
             }
             case "previous-page" -> {
+                if (sortedPage != null) {
+                    if (!sortedPage.hasPrevious()) return;
+                    player.closeInventory();
+                    main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
+                        new MainOrderMenu((Player) player, sort, main.getOrderManager().previousPage(sort, sortedPage, itemsPerPage)).open((Player) player);
+                    });
+                    return;
+                }
                 if (currentPage > 1) {
                     player.closeInventory();
                     main.getMorePaperLib().scheduling().globalRegionalScheduler().run(() -> {
@@ -5,6 +5,7 @@ import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.Settings;
 import com.notpatch.nOrder.model.Order;
 import com.notpatch.nOrder.util.ItemStackHelper;
+import com.notpatch.nOrder.util.Money;
 import com.notpatch.nOrder.util.PlayerUtil;
 import com.notpatch.nOrder.util.StringUtil;
 import com.notpatch.nlib.effect.NSound;
@@ -44,7 +45,7 @@ public class NewOrderMenu extends FastInv implements Listener {
 
     @Getter
     @Setter
-    private double pricePerItem = 1.0;
+    private long pricePerItem = Money.SCALE;
 
     @Getter
     @Setter
@@ -53,10 +54,12 @@ public class NewOrderMenu extends FastInv implements Listener {
     public NewOrderMenu() {
         super(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getInt("new-order-menu.size"),
                 ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("new-order-menu.title")));
+        long start = System.nanoTime();
 
         this.main = NOrder.getInstance();
         this.config = main.getConfigurationManager().getMenuConfiguration().getConfiguration();
         initializeMenu();
+        main.getMetricsRegistry().record("menu.new-order", start);
     }
 
     private void initializeMenu() {
@@ -166,7 +169,7 @@ public class NewOrderMenu extends FastInv implements Listener {
             List<String> lore = quantitySection.getStringList("lore").stream()
                     .map(line -> line
                             .replace("%quantity%", String.valueOf(quantity))
-                            .replace("%total_price%", String.format("%.2f", quantity * pricePerItem)))
+                            .replace("%total_price%", Money.format(Money.times(pricePerItem, quantity))))
                     .map(ColorUtil::hexColor)
                     .collect(Collectors.toList());
 
@@ -187,8 +190,8 @@ public class NewOrderMenu extends FastInv implements Listener {
             String name = ColorUtil.hexColor(priceSection.getString("name"));
             List<String> lore = priceSection.getStringList("lore").stream()
                     .map(line -> line
-                            .replace("%price%", String.format("%.2f", pricePerItem))
-                            .replace("%total_price%", String.format("%.2f", quantity * pricePerItem)))
+                            .replace("%price%", Money.format(pricePerItem))
+                            .replace("%total_price%", Money.format(Money.times(pricePerItem, quantity))))
                     .map(ColorUtil::hexColor)
                     .collect(Collectors.toList());
 
@@ -205,21 +208,20 @@ public class NewOrderMenu extends FastInv implements Listener {
         if (confirmSection != null) {
             Material material = Material.valueOf(confirmSection.getString("material"));
             String name = ColorUtil.hexColor(confirmSection.getString("name"));
-            double totalPrice = quantity * pricePerItem;
+            long totalPrice = Money.times(pricePerItem, quantity);
             if (isHighlighted) {
-                if (Settings.HIGHLIGHT_FEE < 0) {
+                if (Settings.current().getHighlightFee() < 0) {
                     return;
                 }
-                double feePercentage = Settings.HIGHLIGHT_FEE;
-                totalPrice += totalPrice * feePercentage / 100;
+                totalPrice += Money.percent(totalPrice, Settings.current().getHighlightFee());
             }
-            double finalTotalPrice = totalPrice;
+            long finalTotalPrice = totalPrice;
             List<String> lore = confirmSection.getStringList("lore").stream()
                     .map(line -> line
                             .replace("%item%", selectedItem != null ? selectedItem.getType().name() : "None")
                             .replace("%quantity%", String.valueOf(quantity))
-                            .replace("%price%", String.format("%.2f", pricePerItem))
-                            .replace("%total_price%", String.format("%.2f", finalTotalPrice)))
+                            .replace("%price%", Money.format(pricePerItem))
+                            .replace("%total_price%", Money.format(finalTotalPrice)))
                     .map(ColorUtil::hexColor)
                     .collect(Collectors.toList());
 
@@ -239,7 +241,7 @@ public class NewOrderMenu extends FastInv implements Listener {
             List<String> lore = highlightSection.getStringList("lore").stream()
                     .map(line -> line
                             .replace("%status%", isHighlighted ? LanguageLoader.getMessage("enabled") : LanguageLoader.getMessage("disabled"))
-                            .replace("%fee%", String.format("%.2f", Settings.HIGHLIGHT_FEE)))
+                            .replace("%fee%", String.format("%.2f", Settings.current().getHighlightFee())))
                     .map(ColorUtil::hexColor)
                     .collect(Collectors.toList());
             setItem(highlightSection.getInt("slot"),
@@ -274,7 +276,7 @@ public class NewOrderMenu extends FastInv implements Listener {
             }
 
             case "toggle-highlight" -> {
-                if (!humanEntity.hasPermission(Settings.HIGHLIGHT_PERMISSION)) {
+                if (!humanEntity.hasPermission(Settings.current().getHighlightPermission())) {
                     player.sendMessage(LanguageLoader.getMessage("no-permission"));
                     NSound.error(player);
                     return;
@@ -307,26 +309,25 @@ public class NewOrderMenu extends FastInv implements Listener {
                 }
                 
                 // Validate price per item against configured limits
-                double minPrice = Settings.getMinPricePerItem(selectedItem.getType());
-                double maxPrice = Settings.getMaxPricePerItem(selectedItem.getType());
+                Settings.Snapshot settings = Settings.current();
+                long minPrice = Money.of(settings.getMinPricePerItem(selectedItem.getType()));
+                long maxPrice = Money.of(settings.getMaxPricePerItem(selectedItem.getType()));
                 
                 if (pricePerItem < minPrice) {
-                    player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-low")
-                            .replace("%min_price%", String.format("%.2f", minPrice))));
+                    player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-low", "%min_price%", Money.format(minPrice))));
                     NSound.error(player);
                     return;
                 }
                 
                 if (pricePerItem > maxPrice) {
-                    player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-high")
-                            .replace("%max_price%", String.format("%.2f", maxPrice))));
+                    player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-high", "%max_price%", Money.format(maxPrice))));
                     NSound.error(player);
                     return;
                 }
 
-                double totalPrice = quantity * pricePerItem;
-                if (isHighlighted && Settings.HIGHLIGHT_FEE > 0) {
-                    totalPrice += totalPrice * Settings.HIGHLIGHT_FEE / 100;
+                long totalPrice = Money.times(pricePerItem, quantity);
+                if (isHighlighted && Settings.current().getHighlightFee() > 0) {
+                    totalPrice += Money.percent(totalPrice, Settings.current().getHighlightFee());
                 }
 
                 LocalDateTime now = LocalDateTime.now();
@@ -342,8 +343,8 @@ public class NewOrderMenu extends FastInv implements Listener {
 
                 NOrder.getInstance().getOrderManager().addOrder(order);
 
-                if (Settings.BROADCAST_ENABLED) {
-                    if (totalPrice >= Settings.BROADCAST_MIN_TOTAL_PRICE) {
+                if (Settings.current().isBroadcastEnabled()) {
+                    if (totalPrice >= Money.of(Settings.current().getBroadcastMinTotalPrice())) {
                         String playerName = player.getName();
                         if (playerName.isEmpty()) {
                             OfflinePlayer offlinePlayer = main.getServer().getOfflinePlayer(order.getPlayerId());
@@ -353,12 +354,12 @@ public class NewOrderMenu extends FastInv implements Listener {
                             }
                         }
 
-                        String message = LanguageLoader.getMessage("order-broadcast")
-                                .replace("%player%", playerName)
-                                .replace("%material%", StringUtil.formatMaterialName(order.getMaterial()))
-                                .replace("%amount%", String.valueOf(order.getAmount()))
-                                .replace("%price%", String.format("%.2f", order.getPrice()))
-                                .replace("%total_price%", String.format("%.2f", totalPrice));
+                        String message = LanguageLoader.getMessage("order-broadcast",
+                                "%player%", playerName,
+                                "%material%", StringUtil.formatMaterialName(order.getMaterial()),
+                                "%amount%", String.valueOf(order.getAmount()),
+                                "%price%", Money.format(order.getPrice()),
+                                "%total_price%", Money.format(totalPrice));
 
                         main.getServer().broadcast(LegacyComponentSerializer.legacyAmpersand().deserialize(message));
                     }
@@ -390,8 +391,7 @@ public class NewOrderMenu extends FastInv implements Listener {
             }
 
             setQuantity(amount);
-            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("quantity-set")
-                    .replace("%quantity%", String.valueOf(amount))));
+            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("quantity-set", "%quantity%", String.valueOf(amount))));
 
             main.getMorePaperLib().scheduling().globalRegionalScheduler().runDelayed(() -> {
                 updateMenuItems();
@@ -415,15 +415,15 @@ public class NewOrderMenu extends FastInv implements Listener {
 
     private void processPriceInput(Player player, String input) {
         try {
-            double price = Double.parseDouble(input);
+            long price = Money.parse(input);
             
             // Get min and max price for the selected item
-            double minPrice = selectedItem != null ? Settings.getMinPricePerItem(selectedItem.getType()) : Settings.MIN_PRICE_PER_ITEM;
-            double maxPrice = selectedItem != null ? Settings.getMaxPricePerItem(selectedItem.getType()) : Settings.MAX_PRICE_PER_ITEM;
+            Settings.Snapshot settings = Settings.current();
+            long minPrice = Money.of(selectedItem != null ? settings.getMinPricePerItem(selectedItem.getType()) : settings.getMinPricePerItem());
+            long maxPrice = Money.of(selectedItem != null ? settings.getMaxPricePerItem(selectedItem.getType()) : settings.getMaxPricePerItem());
             
             if (price < minPrice) {
-                player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-low")
-                        .replace("%min_price%", String.format("%.2f", minPrice))));
+                player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-low", "%min_price%", Money.format(minPrice))));
                 NSound.error(player);
 
                 main.getMorePaperLib().scheduling().globalRegionalScheduler().runDelayed(() -> {
@@ -438,8 +438,7 @@ public class NewOrderMenu extends FastInv implements Listener {
             }
             
             if (price > maxPrice) {
-                player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-high")
-                        .replace("%max_price%", String.format("%.2f", maxPrice))));
+                player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-too-high", "%max_price%", Money.format(maxPrice))));
                 NSound.error(player);
 
                 main.getMorePaperLib().scheduling().globalRegionalScheduler().runDelayed(() -> {
@@ -454,8 +453,7 @@ public class NewOrderMenu extends FastInv implements Listener {
             }
 
             setPricePerItem(price);
-            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-set")
-                    .replace("%price%", String.valueOf(price))));
+            player.sendMessage(ColorUtil.hexColor(LanguageLoader.getMessage("price-set", "%price%", Money.format(price))));
 
             main.getMorePaperLib().scheduling().globalRegionalScheduler().runDelayed(() -> {
                 updateMenuItems();
@@ -5,11 +5,12 @@ import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.model.Order;
 import com.notpatch.nOrder.model.OrderStatus;
 import com.notpatch.nOrder.util.ItemStackHelper;
+import com.notpatch.nOrder.util.Money;
+import com.notpatch.nOrder.util.SchedulerUtil;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.fastinv.FastInv;
 import com.notpatch.nlib.util.ColorUtil;
 import lombok.Getter;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.entity.Player;
@@ -32,12 +33,13 @@ public class OrderDetailsMenu extends FastInv {
     private int itemsDelivered = 0;
 
     @Getter
-    private double totalEarning = 0;
+    private long totalEarning = 0;
 
     private boolean processed = false;
 
     public OrderDetailsMenu(Order order) {
         super(54, ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("order-details-menu.title")));
+        long start = System.nanoTime();
         main = NOrder.getInstance();
         this.order = order;
 
@@ -46,6 +48,7 @@ public class OrderDetailsMenu extends FastInv {
                 getInventory().clear(i);
             }
         });
+        main.getMetricsRegistry().record("menu.order-details", start);
     }
 
     @Override
@@ -59,7 +62,10 @@ public class OrderDetailsMenu extends FastInv {
 
         Player player = (Player) e.getPlayer();
 
+        long start = System.nanoTime();
         processDelivery(player);
+        main.getMetricsRegistry().record("orders.delivery", start);
+        main.getTickBudget().charge(start);
     }
 
     private void processDelivery(Player player) {
@@ -154,7 +160,7 @@ public class OrderDetailsMenu extends FastInv {
             }
 
             if (!invalidItems.isEmpty()) {
-                player.sendMessage(LanguageLoader.getMessage("delivery-wrong-item").replace("%material%", order.getMaterial().name()));
+                player.sendMessage(LanguageLoader.getMessage("delivery-wrong-item", "%material%", order.getMaterial().name()));
             }
 
             if (!validItems.isEmpty()) {
@@ -186,36 +192,17 @@ public class OrderDetailsMenu extends FastInv {
                         player.getInventory().addItem(excessItem).forEach((slot, leftover) ->
                                 player.getWorld().dropItemNaturally(player.getLocation(), leftover));
 
-                        player.sendMessage(LanguageLoader.getMessage("delivery-excess-items").replace("%amount%", excess + ""));
+                        player.sendMessage(LanguageLoader.getMessage("delivery-excess-items", "%amount%", excess + ""));
                     }
                 }
 
                 if (totalAmount > 0) {
-                    double earning = totalAmount * order.getPrice();
-
-                    order.addDelivered(totalAmount);
-
-                    player.sendMessage(LanguageLoader.getMessage("delivery-success").replace("%material%", order.getMaterial().name()).replace("%amount%", totalAmount + ""));
-                    player.sendMessage(LanguageLoader.getMessage("delivery-earnings").replace("%amount%", String.format("%.2f", earning)));
-
-                    main.getEconomy().depositPlayer(player, earning);
-                    main.getPlayerStatsManager().getStatistics(player.getUniqueId()).addDeliveredItems(totalAmount);
-                    main.getPlayerStatsManager().getStatistics(player.getUniqueId()).addTotalEarnings(earning);
-                    main.getPlayerStatsManager().getStatistics(order.getPlayerId()).addCollectedItems(totalAmount);
-
-                    main.getOrderLogger().logOrderDelivery(order, player.getName(), totalAmount, earning);
-
-                    NSound.success(player);
-
-                    if (order.getRemaining() <= 0) {
-                        order.setStatus(OrderStatus.COMPLETED);
-                        main.getOrderLogger().logOrderCompleted(order);
-
-                        Player orderOwner = Bukkit.getPlayer(order.getPlayerId());
-                        if (orderOwner != null && orderOwner.isOnline()) {
-                            orderOwner.sendMessage(LanguageLoader.getMessage("delivery-completed").replace("%material%", order.getMaterial().name()));
-                        }
-                    }
+                    int delivered = totalAmount;
+                    SchedulerUtil.thenOn(player, main.getOrderManager().deliver(order, player.getUniqueId(), player.getName(), delivered), earning -> {
+                        player.sendMessage(LanguageLoader.getMessage("delivery-success", "%material%", order.getMaterial().name(), "%amount%", delivered + ""));
+                        player.sendMessage(LanguageLoader.getMessage("delivery-earnings", "%amount%", Money.format(earning)));
+                        NSound.success(player);
+                    });
                 }
             } else if (invalidItems.isEmpty()) {
                 NSound.error(player);
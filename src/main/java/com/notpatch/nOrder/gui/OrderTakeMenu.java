@@ -3,7 +3,6 @@ package com.notpatch.nOrder.gui;
 import com.notpatch.nOrder.LanguageLoader;
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.model.Order;
-import com.notpatch.nOrder.model.OrderStatus;
 import com.notpatch.nOrder.util.ItemStackHelper;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.fastinv.FastInv;
@@ -31,10 +30,12 @@ public class OrderTakeMenu extends FastInv {
                         .getInt("order-take-menu.size"),
                 ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration()
                         .getConfiguration().getString("order-take-menu.title")));
+        long start = System.nanoTime();
         this.main = NOrder.getInstance();
         this.order = order;
 
         setupMenu();
+        main.getMetricsRegistry().record("menu.order-take", start);
     }
 
     private void setupMenu() {
@@ -135,13 +136,12 @@ public class OrderTakeMenu extends FastInv {
         if (e.getClick() == ClickType.DROP) {
             getInventory().setItem(clickedSlot, null);
 
-            order.addCollected(itemAmount);
-            main.getOrderLogger().logItemCollection(order, itemAmount);
+            boolean archived = main.getOrderManager().collect(order, itemAmount);
 
             player.getWorld().dropItemNaturally(player.getLocation(), clickedItem.clone());
 
             NSound.success(player);
-            checkAndArchiveOrder(player);
+            if (archived) player.closeInventory();
 
             updateInfoItem();
             loadDeliveredItems();
@@ -154,11 +154,10 @@ public class OrderTakeMenu extends FastInv {
             if (leftover.isEmpty()) {
                 getInventory().setItem(clickedSlot, null);
 
-                order.addCollected(itemAmount);
-                main.getOrderLogger().logItemCollection(order, itemAmount);
+                boolean archived = main.getOrderManager().collect(order, itemAmount);
 
                 NSound.success(player);
-                checkAndArchiveOrder(player);
+                if (archived) player.closeInventory();
 
                 updateInfoItem();
                 loadDeliveredItems();
@@ -206,8 +205,7 @@ public class OrderTakeMenu extends FastInv {
         }
 
         if (totalCollected > 0) {
-            order.addCollected(totalCollected);
-            main.getOrderLogger().logItemCollection(order, totalCollected);
+            boolean archived = main.getOrderManager().collect(order, totalCollected);
             main.getLogger().info("Collected (Take All): " + totalCollected);
 
             if (inventoryFull) {
@@ -215,7 +213,7 @@ public class OrderTakeMenu extends FastInv {
             }
 
             NSound.success(player);
-            checkAndArchiveOrder(player);
+            if (archived) player.closeInventory();
 
             updateInfoItem();
             loadDeliveredItems();
@@ -228,16 +226,6 @@ public class OrderTakeMenu extends FastInv {
         }
     }
 
-    private void checkAndArchiveOrder(Player player) {
-        if (order.getStatus() == OrderStatus.COMPLETED && order.getCollected() >= order.getDelivered()) {
-            order.setStatus(OrderStatus.ARCHIVED);
-            main.getOrderLogger().logOrderArchived(order);
-            player.closeInventory();
-            main.getOrderManager().removeOrder(order);
-        }
-    }
-
-
     @Override
     protected void onClick(InventoryClickEvent event) {
         Player player = (Player) event.getWhoClicked();
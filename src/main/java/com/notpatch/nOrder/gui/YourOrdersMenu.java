@@ -49,6 +49,7 @@ public class YourOrdersMenu extends FastInv {
     public YourOrdersMenu(Player player, int page) {
         super(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getInt("your-orders-menu.size"),
                 ColorUtil.hexColor(NOrder.getInstance().getConfigurationManager().getMenuConfiguration().getConfiguration().getString("your-orders-menu.title")));
+        long start = System.nanoTime();
 
         this.player = player;
         main = NOrder.getInstance();
@@ -68,6 +69,7 @@ public class YourOrdersMenu extends FastInv {
 
         loadMenuItems(configuration);
         loadPlayerOrders();
+        main.getMetricsRegistry().record("menu.your-orders", start);
     }
 
     private void loadMenuItems(Configuration configuration) {
@@ -32,11 +32,11 @@ public class LuckPermsHook {
     }
 
     public int getOrderLimit(Player player, int defaultLimit) {
-        return getPermissionValue(player, Settings.ORDER_LIMIT_PERMISSION, defaultLimit);
+        return getPermissionValue(player, Settings.current().getOrderLimitPermission(), defaultLimit);
     }
 
     public int getOrderExpiration(Player player, int defaultLimit) {
-        return getPermissionValue(player, Settings.ORDER_EXPIRATION_PERMISSION, defaultLimit);
+        return getPermissionValue(player, Settings.current().getOrderExpirationPermission(), defaultLimit);
     }
 
     private int getPermissionValue(Player player, String permissionPrefix, int defaultValue) {
@@ -3,6 +3,12 @@ package com.notpatch.nOrder.hook;
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.manager.OrderManager;
 import com.notpatch.nOrder.manager.PlayerStatisticsManager;
+import com.notpatch.nOrder.model.Leaderboard;
+import com.notpatch.nOrder.model.PlayerStatistics;
+import com.notpatch.nOrder.model.RollingStats;
+import com.notpatch.nOrder.model.StatType;
+import com.notpatch.nOrder.model.TimeWindow;
+import com.notpatch.nOrder.util.Money;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
@@ -63,6 +69,20 @@ public class PlaceholderHook extends PlaceholderExpansion {
             return getOrdersTotal();
         }
 
+        // %norder_top_<stat>_<rank>_name% / %norder_top_<stat>_<rank>_value%
+        if (parts.length == 4 && parts[0].equals("top")) {
+            return getTopEntry(parts[1], parts[2], parts[3]);
+        }
+
+        // %norder_window_<stat>_<day|week|month>% - viewer, %norder_global_<stat>_<day|week|month>% - whole server
+        if (parts.length == 3 && parts[0].equals("window")) {
+            if (player == null) return "";
+            return getWindowValue(player, parts[1], parts[2]);
+        }
+        if (parts.length == 3 && parts[0].equals("global")) {
+            return getWindowValue(null, parts[1], parts[2]);
+        }
+
         // %norder_order_<id>_*
         if (parts.length >= 3 && parts[0].equals("order")) {
             String orderId = parts[1];
@@ -154,8 +174,9 @@ public class PlaceholderHook extends PlaceholderExpansion {
                     }
                     String playerName = playerNameBuilder.toString();
 
-                    // Get OfflinePlayer for player-specific stats that need UUID
-                    OfflinePlayer targetPlayer = org.bukkit.Bukkit.getOfflinePlayer(playerName);
+                    // Get OfflinePlayer for player-specific stats that need UUID, without a blocking name lookup
+                    java.util.UUID targetId = main.getPlayerNameIndex().getUniqueId(playerName);
+                    OfflinePlayer targetPlayer = targetId == null ? null : org.bukkit.Bukkit.getOfflinePlayer(targetId);
 
                     switch (lastPart) {
                         case "totalOrders" -> {
@@ -206,7 +227,7 @@ public class PlaceholderHook extends PlaceholderExpansion {
 
     private String getOrderPrice(String orderId) {
         if (orderManager.getOrderById(orderId) == null) return "";
-        return String.valueOf(orderManager.getOrderById(orderId).getPrice());
+        return Money.format(orderManager.getOrderById(orderId).getPrice());
     }
 
     private String getOrderBuyer(String orderId) {
@@ -229,6 +250,44 @@ public class PlaceholderHook extends PlaceholderExpansion {
         return orderManager.getOrderById(orderId).getExpirationDate().format(dateTimeFormatter);
     }
 
+    private String getTopEntry(String stat, String rankStr, String field) {
+        StatType type = StatType.fromKey(stat);
+        if (type == null) return "";
+
+        int rank;
+        try {
+            rank = Integer.parseInt(rankStr);
+        } catch (NumberFormatException e) {
+            return "";
+        }
+
+        Leaderboard.Entry entry = playerStatsManager.getLeaderboard(type).get(rank);
+        return switch (field) {
+            case "name" -> entry == null || entry.playerName() == null ? "-" : entry.playerName();
+            case "value" -> entry == null ? "0" : type.format(entry.value());
+            default -> "";
+        };
+    }
+
+    private String getWindowValue(OfflinePlayer player, String stat, String windowKey) {
+        StatType type = StatType.fromKey(stat);
+        TimeWindow window = TimeWindow.fromKey(windowKey);
+        if (type == null || window == null) return "";
+
+        RollingStats windows;
+        if (player == null) {
+            windows = playerStatsManager.getGlobalWindows();
+        } else {
+            PlayerStatistics stats = playerStatsManager.getStatisticsMap().get(player.getUniqueId());
+            if (stats == null || !stats.isLoaded()) {
+                playerStatsManager.loadPlayer(player.getUniqueId());
+                return type.format(0);
+            }
+            windows = stats.getWindows();
+        }
+        return type.format(windows.sum(type, window));
+    }
+
     private String getPlayerTotalOrders(String playerName) {
         if (playerStatsManager.getStatisticsByName(playerName) == null) return "0";
         return playerStatsManager.getStatisticsByName(playerName).getTotalOrders() + "";
@@ -236,7 +295,7 @@ public class PlaceholderHook extends PlaceholderExpansion {
 
     private String getPlayerTotalEarnings(String playerName) {
         if (playerStatsManager.getStatisticsByName(playerName) == null) return "0";
-        return playerStatsManager.getStatisticsByName(playerName).getTotalEarnings() + "";
+        return Money.format(playerStatsManager.getStatisticsByName(playerName).getTotalEarnings());
     }
 
     private String getPlayerTotalDeliveredItems(String playerName) {
@@ -0,0 +1,124 @@
+package com.notpatch.nOrder.hook;
+
+import com.notpatch.nOrder.manager.MetricsRegistry;
+import com.notpatch.nOrder.model.LatencyHistogram;
+import com.notpatch.nlib.util.NLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link MetricsRegistry} in the Prometheus text format on {@code /metrics}.
+ * Binds to localhost by default; put a reverse proxy in front of it rather than exposing it.
+ */
+public class PrometheusExporter {
+
+    private static final String PREFIX = "norder_";
+
+    private final MetricsRegistry registry;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PrometheusExporter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void start(String host, int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            NLogger.error("Failed to start the Prometheus endpoint on " + host + ":" + port + ": " + e.getMessage());
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "norder-prometheus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        NLogger.info("Prometheus metrics available at http://" + host + ":" + port + "/metrics");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+
+        for (Map.Entry<String, Long> counter : registry.getCounters().entrySet()) {
+            String name = metricName(counter.getKey()) + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.getValue()).append('\n');
+        }
+
+        for (Map.Entry<String, Long> gauge : registry.getGauges().entrySet()) {
+            String name = metricName(gauge.getKey());
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(gauge.getValue()).append('\n');
+        }
+
+        for (Map.Entry<String, LatencyHistogram.Snapshot> timer : registry.getTimers().entrySet()) {
+            String name = metricName(timer.getKey()) + "_seconds";
+            LatencyHistogram.Snapshot snapshot = timer.getValue();
+            out.append("# TYPE ").append(name).append(" summary\n");
+            quantile(out, name, "0.5", snapshot.p50());
+            quantile(out, name, "0.9", snapshot.p90());
+            quantile(out, name, "0.99", snapshot.p99());
+            quantile(out, name, "0.999", snapshot.p999());
+            out.append(name).append("_sum ").append(seconds(snapshot.sum())).append('\n');
+            out.append(name).append("_count ").append(snapshot.count()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void quantile(StringBuilder out, String name, String quantile, long nanos) {
+        out.append(name).append("{quantile=\"").append(quantile).append("\"} ").append(seconds(nanos)).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String metricName(String name) {
+        StringBuilder builder = new StringBuilder(PREFIX.length() + name.length()).append(PREFIX);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            builder.append(Character.isLetterOrDigit(c) ? c : '_');
+        }
+        return builder.toString();
+    }
+
+}
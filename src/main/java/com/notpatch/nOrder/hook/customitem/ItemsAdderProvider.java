@@ -17,16 +17,16 @@ public class ItemsAdderProvider implements CustomItemProvider {
         boolean iaFound = false;
         try {
             if (Bukkit.getPluginManager().getPlugin("ItemsAdder") != null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("ItemsAdder plugin detected, checking API availability...");
                 }
                 Class.forName("dev.lone.itemsadder.api.CustomStack");
                 iaFound = true;
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("ItemsAdder API is available!");
                 }
             } else {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("ItemsAdder plugin not found in PluginManager");
                 }
             }
@@ -73,24 +73,24 @@ public class ItemsAdderProvider implements CustomItemProvider {
     public ItemStack getCustomItem(String itemId) {
         if (!available || itemId == null) return null;
         try {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("ItemsAdder: Attempting to load item with ID: " + itemId);
             }
             CustomStack customStack = CustomStack.getInstance(itemId);
             if (customStack == null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.error("ItemsAdder: CustomStack.getInstance returned null for: " + itemId);
                 }
                 return null;
             }
             ItemStack result = customStack.getItemStack();
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("ItemsAdder: Successfully loaded item: " + itemId);
             }
             return result;
         } catch (Exception e) {
             NLogger.error("ItemsAdder: Failed to load item '" + itemId + "': " + e.getClass().getName() + " - " + e.getMessage());
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 e.printStackTrace();
             }
             return null;
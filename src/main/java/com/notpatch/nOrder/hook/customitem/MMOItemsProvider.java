@@ -21,17 +21,17 @@ public class MMOItemsProvider implements CustomItemProvider {
         boolean mmoFound = false;
         try {
             if (Bukkit.getPluginManager().getPlugin("MMOItems") != null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("MMOItems plugin detected, checking API availability...");
                 }
                 Class.forName("io.lumine.mythic.lib.api.item.NBTItem");
                 Class.forName("net.Indyuce.mmoitems.MMOItems");
                 mmoFound = true;
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("MMOItems API is available!");
                 }
             } else {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("MMOItems plugin not found in PluginManager");
                 }
             }
@@ -84,12 +84,12 @@ public class MMOItemsProvider implements CustomItemProvider {
     public ItemStack getCustomItem(String itemId) {
         if (!available || itemId == null) return null;
         try {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("MMOItems: Attempting to load item with ID: " + itemId);
             }
             String[] parts = itemId.split(":", 2);
             if (parts.length != 2) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.error("MMOItems: Invalid format for '" + itemId + "'. Expected format: TYPE:ITEMID");
                 }
                 return null;
@@ -100,7 +100,7 @@ public class MMOItemsProvider implements CustomItemProvider {
 
             Type type = MMOItems.plugin.getTypes().get(typeStr);
             if (type == null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.error("MMOItems: Type '" + typeStr + "' not found");
                 }
                 return null;
@@ -108,20 +108,20 @@ public class MMOItemsProvider implements CustomItemProvider {
 
             MMOItem mmoItem = MMOItems.plugin.getMMOItem(type, id);
             if (mmoItem == null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.error("MMOItems: Item '" + id + "' of type '" + typeStr + "' not found");
                 }
                 return null;
             }
 
             ItemStack result = mmoItem.newBuilder().build();
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("MMOItems: Successfully loaded item: " + itemId);
             }
             return result;
         } catch (Exception e) {
             NLogger.error("MMOItems: Failed to load item '" + itemId + "': " + e.getClass().getName() + " - " + e.getMessage());
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 e.printStackTrace();
             }
             return null;
@@ -189,7 +189,7 @@ public class MMOItemsProvider implements CustomItemProvider {
 
             return true;
         } catch (Exception e) {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.error("Error comparing MMOItem stats: " + e.getMessage());
             }
             return false;
@@ -25,18 +25,18 @@ public class NexoProvider implements CustomItemProvider, Listener {
         boolean nexoFound = false;
         try {
             if (Bukkit.getPluginManager().getPlugin("Nexo") != null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("Nexo plugin detected, checking API availability...");
                 }
                 Class.forName("com.nexomc.nexo.api.NexoItems");
                 nexoFound = true;
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("Nexo API is available!");
                 }
 
                 Bukkit.getPluginManager().registerEvents(this, NOrder.getInstance());
             } else {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.info("Nexo plugin not found in PluginManager");
                 }
             }
@@ -88,24 +88,24 @@ public class NexoProvider implements CustomItemProvider, Listener {
     public ItemStack getCustomItem(String itemId) {
         if (!available || itemId == null) return null;
         try {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("Nexo: Attempting to load item with ID: " + itemId);
             }
             var itemBuilder = NexoItems.itemFromId(itemId);
             if (itemBuilder == null) {
-                if (Settings.DEBUG) {
+                if (Settings.current().isDebug()) {
                     NLogger.error("Nexo: itemFromId returned null for: " + itemId);
                 }
                 return null;
             }
             ItemStack result = itemBuilder.build();
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("Nexo: Successfully loaded item: " + itemId);
             }
             return result;
         } catch (Exception e) {
             NLogger.error("Nexo: Failed to load item '" + itemId + "': " + e.getClass().getName() + " - " + e.getMessage());
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 e.printStackTrace();
             }
             return null;
@@ -0,0 +1,36 @@
+package com.notpatch.nOrder.listener;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nlib.util.NLogger;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+public class PlayerConnectionListener implements Listener {
+
+    private final NOrder plugin;
+
+    public PlayerConnectionListener(NOrder plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        plugin.getPlayerNameIndex().put(event.getUniqueId(), event.getName());
+
+        // Already off the main thread: warm the statistics cache before the player joins.
+        try {
+            plugin.getPlayerStatsManager().loadPlayer(event.getUniqueId())
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            NLogger.warn("Statistics for " + event.getName() + " will load in the background: " + e.getCause().getMessage());
+        }
+    }
+
+}
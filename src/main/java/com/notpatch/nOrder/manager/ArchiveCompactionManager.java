@@ -0,0 +1,161 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.database.ArchiveRepository;
+import com.notpatch.nlib.util.NLogger;
+import org.bukkit.configuration.Configuration;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the orders table small. Closed orders leave the live table for orders_archive, and archive rows
+ * past the retention period are exported to dated gzip files and deleted. Work is done in small batches
+ * with a pause in between so the job never holds locks for long.
+ */
+public class ArchiveCompactionManager {
+
+    private final NOrder main;
+    private final Path exportDirectory;
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private boolean enabled;
+    private long intervalMinutes;
+    private long minAgeHours;
+    private int retentionDays;
+    private boolean export;
+    private int batchSize;
+    private long batchDelayMillis;
+    private int maxBatchesPerRun;
+
+    public ArchiveCompactionManager(NOrder main) {
+        this.main = main;
+        this.exportDirectory = main.getDataFolder().toPath().resolve("archive");
+        loadSettings();
+    }
+
+    private void loadSettings() {
+        Configuration config = main.getConfig();
+        enabled = config.getBoolean("archive.compaction.enabled", false);
+        intervalMinutes = Math.max(1, config.getLong("archive.compaction.interval-minutes", 60));
+        minAgeHours = Math.max(0, config.getLong("archive.compaction.min-age-hours", 24));
+        retentionDays = config.getInt("archive.compaction.retention-days", 30);
+        export = config.getBoolean("archive.compaction.export", true);
+        batchSize = Math.max(1, config.getInt("archive.compaction.batch-size", 500));
+        batchDelayMillis = Math.max(0, config.getLong("archive.compaction.batch-delay-ms", 250));
+        maxBatchesPerRun = Math.max(1, config.getInt("archive.compaction.max-batches-per-run", 40));
+    }
+
+    public void startCompactionTask() {
+        if (!enabled) return;
+
+        main.getMorePaperLib().scheduling().asyncScheduler().runAtFixedRate(
+                this::runAsync,
+                Duration.ofMinutes(5),
+                Duration.ofMinutes(intervalMinutes)
+        );
+    }
+
+    /**
+     * Starts a compaction run on its own thread unless one is already in progress.
+     */
+    public boolean runAsync() {
+        if (!running.compareAndSet(false, true)) return false;
+
+        Thread.ofVirtual().name("norder-archive-compaction").start(() -> {
+            try {
+                compact();
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void compact() {
+        long start = System.currentTimeMillis();
+        ArchiveRepository repository = main.getDatabaseManager().getArchiveRepository();
+        int moved = 0;
+        int exported = 0;
+        int batches = 0;
+
+        try {
+            LocalDateTime closedCutoff = LocalDateTime.now().minusHours(minAgeHours);
+            while (batches < maxBatchesPerRun) {
+                int count = repository.moveClosedOrders(closedCutoff, batchSize).join();
+                batches++;
+                moved += count;
+                if (count < batchSize) break;
+                throttle();
+            }
+
+            if (export && retentionDays > 0) {
+                LocalDateTime retentionCutoff = LocalDateTime.now().minusDays(retentionDays);
+                while (batches < maxBatchesPerRun) {
+                    List<ArchiveRepository.ArchivedRow> rows = repository.fetchExpiredArchive(retentionCutoff, batchSize).join();
+                    if (rows.isEmpty()) break;
+
+                    // The file is written before the rows are deleted, a crash in between only duplicates lines.
+                    writeExport(rows);
+                    exported += repository.deleteArchived(rows.stream().map(ArchiveRepository.ArchivedRow::orderId).toList()).join();
+                    batches++;
+                    if (rows.size() < batchSize) break;
+                    throttle();
+                }
+            }
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            NLogger.error("Archive compaction failed: " + cause.getMessage());
+        } catch (IOException e) {
+            NLogger.error("Failed to write archive export: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (moved > 0 || exported > 0) {
+            NLogger.info("Archive compaction moved " + moved + " closed orders to the archive and exported "
+                    + exported + " archived orders in " + (System.currentTimeMillis() - start) + "ms (" + batches + " batches).");
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        if (batchDelayMillis > 0) {
+            Thread.sleep(batchDelayMillis);
+        }
+    }
+
+    /**
+     * Appends a gzip member to today's export file. Concatenated members read back as one stream with zcat.
+     */
+    private void writeExport(List<ArchiveRepository.ArchivedRow> rows) throws IOException {
+        Files.createDirectories(exportDirectory);
+        Path file = exportDirectory.resolve("orders-" + LocalDate.now().format(dateFormatter) + ".csv.gz");
+        boolean newFile = !Files.exists(file);
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)), StandardCharsets.UTF_8))) {
+            if (newFile) {
+                writer.write(ArchiveRepository.CSV_HEADER);
+                writer.newLine();
+            }
+            for (ArchiveRepository.ArchivedRow row : rows) {
+                writer.write(row.csv());
+                writer.newLine();
+            }
+        }
+    }
+
+}
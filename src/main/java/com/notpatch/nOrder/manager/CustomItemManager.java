@@ -23,22 +23,22 @@ public class CustomItemManager {
 
     private void registerProviderSafely(String name, ProviderSupplier supplier) {
         try {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("Attempting to load " + name + " provider...");
             }
             CustomItemProvider provider = supplier.get();
             registerProvider(provider);
         } catch (NoClassDefFoundError e) {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("Skipping " + name + " provider (missing dependency: " + e.getMessage() + ")");
             }
         } catch (ClassNotFoundException e) {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info("Skipping " + name + " provider (class not found: " + e.getMessage() + ")");
             }
         } catch (Exception e) {
             NLogger.error("Failed to load " + name + " provider: " + e.getClass().getName() + " - " + e.getMessage());
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 e.printStackTrace();
             }
         }
@@ -49,7 +49,7 @@ public class CustomItemManager {
             providers.add(provider);
             NLogger.info(provider.getProviderName() + " custom item provider registered.");
         } else {
-            if (Settings.DEBUG) {
+            if (Settings.current().isDebug()) {
                 NLogger.info(provider.getProviderName() + " provider loaded but not available (plugin not enabled)");
             }
         }
@@ -111,7 +111,7 @@ public class CustomItemManager {
             for (CustomItemProvider provider : providers) {
                 if (provider.getProviderName().toLowerCase().equals(firstPart)) {
                     String itemId = fullItemId.substring(firstPart.length() + 1);
-                    if (Settings.DEBUG) {
+                    if (Settings.current().isDebug()) {
                         NLogger.info("Loading " + provider.getProviderName() + " item: " + itemId);
                     }
                     try {
@@ -127,7 +127,7 @@ public class CustomItemManager {
                 try {
                     ItemStack item = provider.getCustomItem(fullItemId);
                     if (item != null) {
-                        if (Settings.DEBUG) {
+                        if (Settings.current().isDebug()) {
                             NLogger.info("Loaded item from " + provider.getProviderName() + ": " + fullItemId);
                         }
                         return item;
@@ -140,7 +140,7 @@ public class CustomItemManager {
                 try {
                     ItemStack item = provider.getCustomItem(fullItemId);
                     if (item != null) {
-                        if (Settings.DEBUG) {
+                        if (Settings.current().isDebug()) {
                             NLogger.info("Loaded item from " + provider.getProviderName() + ": " + fullItemId);
                         }
                         return item;
@@ -150,7 +150,7 @@ public class CustomItemManager {
             }
         }
 
-        if (Settings.DEBUG) {
+        if (Settings.current().isDebug()) {
             NLogger.error("Failed to load custom item: " + fullItemId);
         }
         return null;
@@ -0,0 +1,259 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.database.EscrowRepository;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.util.Money;
+import com.notpatch.nOrder.util.SchedulerUtil;
+import com.notpatch.nlib.util.NLogger;
+import net.milkbowl.vault.economy.EconomyResponse;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Routes order money through the escrow ledger. Payments into an order are still withdrawn right away,
+ * everything paid out (deliveries, refunds) is credited to the player in the ledger and settled in
+ * batches, so a burst of deliveries costs one economy call per player instead of one per stack.
+ */
+public class EscrowManager {
+
+    private final NOrder main;
+    private final EscrowRepository repository;
+
+    private final long intervalMillis;
+    private final int batchSize;
+
+    // Starts set so payouts left over from the last run are settled on startup.
+    private final AtomicBoolean pending = new AtomicBoolean(true);
+    private final AtomicBoolean settling = new AtomicBoolean(false);
+
+    // Payouts claimed from the ledger that are not yet deposited.
+    private final Map<UUID, Long> unpaid = new ConcurrentHashMap<>();
+    // Transfers whose ledger write failed, retried by the next settlement.
+    private final Queue<Transfer> failedTransfers = new ConcurrentLinkedQueue<>();
+
+    public EscrowManager(NOrder main) {
+        this.main = main;
+        this.repository = main.getDatabaseManager().getEscrowRepository();
+        Configuration config = main.getConfig();
+        this.intervalMillis = Math.max(50, config.getLong("escrow.settlement-interval-ms", 1000));
+        this.batchSize = Math.max(1, config.getInt("escrow.settlement-batch-size", 200));
+    }
+
+    public void startSettlementTask() {
+        main.getMorePaperLib().scheduling().asyncScheduler().runAtFixedRate(
+                this::settle,
+                Duration.ofMillis(intervalMillis),
+                Duration.ofMillis(intervalMillis)
+        );
+    }
+
+    /**
+     * Records money withdrawn from the owner for a new order.
+     */
+    public void hold(Order order, long amount) {
+        if (amount <= 0) return;
+        repository.hold(order.getId(), order.getPlayerId(), amount).exceptionally(error -> {
+            NLogger.error("Failed to record escrow hold for order " + order.getId() + ": " + error.getCause().getMessage());
+            return 0;
+        });
+    }
+
+    /**
+     * Pays a supplier for a delivery out of the order's hold.
+     */
+    public void release(Order order, UUID supplierId, long amount) {
+        transfer(order, supplierId, EscrowRepository.RELEASE, amount);
+    }
+
+    /**
+     * Returns what is left of an order's hold to its owner.
+     */
+    public void refund(Order order, long amount) {
+        transfer(order, order.getPlayerId(), EscrowRepository.REFUND, amount);
+    }
+
+    /**
+     * Writes off the remaining hold of an order removed without a refund.
+     */
+    public void forfeit(Order order) {
+        repository.forfeit(order.getId()).exceptionally(error -> {
+            NLogger.error("Failed to close escrow for order " + order.getId() + ": " + error.getCause().getMessage());
+            return 0;
+        });
+    }
+
+    private void transfer(Order order, UUID beneficiaryId, String entryType, long amount) {
+        if (amount <= 0) return;
+        submit(new Transfer(order.getId(), beneficiaryId, entryType, amount));
+    }
+
+    private void submit(Transfer transfer) {
+        repository.transfer(transfer.orderId(), transfer.beneficiaryId(), transfer.entryType(), transfer.amount()).whenComplete((moved, error) -> {
+            if (error == null) {
+                warnIfShort(transfer, moved);
+                pending.set(true);
+                return;
+            }
+            // Retried through the ledger, never paid directly: a retry takes no more than the order still
+            // holds, a direct payment would come on top of a write whose commit may have gone through.
+            NLogger.error("Failed to record escrow " + transfer.entryType() + " for order " + transfer.orderId() + ", retrying: " + error.getCause().getMessage());
+            failedTransfers.add(transfer);
+            pending.set(true);
+        });
+    }
+
+    private void retryTransfers() {
+        for (int i = failedTransfers.size(); i > 0; i--) {
+            Transfer transfer = failedTransfers.poll();
+            if (transfer == null) return;
+            submit(transfer);
+        }
+    }
+
+    private void warnIfShort(Transfer transfer, long moved) {
+        if (moved < transfer.amount()) {
+            NLogger.warn("Escrow hold of order " + transfer.orderId() + " covered only " + Money.format(moved)
+                    + " of a " + transfer.entryType() + " of " + Money.format(transfer.amount()));
+        }
+    }
+
+    /**
+     * Claims one batch of pending payouts and pays each player once on the global region.
+     */
+    public void settle() {
+        if (!pending.getAndSet(false)) return;
+        if (!settling.compareAndSet(false, true)) {
+            pending.set(true);
+            return;
+        }
+
+        retryTransfers();
+        repository.claimPayouts(batchSize)
+                .thenAccept(payouts -> {
+                    payouts.forEach((playerId, amount) -> unpaid.merge(playerId, amount, Long::sum));
+                    if (payouts.size() >= batchSize) pending.set(true);
+                    if (!payouts.isEmpty()) SchedulerUtil.global().execute(this::payUnpaid);
+                })
+                .whenComplete((ignored, error) -> {
+                    settling.set(false);
+                    if (error != null) {
+                        pending.set(true);
+                        NLogger.error("Escrow settlement failed: " + error.getCause().getMessage());
+                        // The claim may have committed with the payment never scheduled: credit it back.
+                        reverseUnpaid();
+                    }
+                });
+    }
+
+    /**
+     * Settles everything still owed. Called on shutdown, on the main thread, before the database closes.
+     */
+    public void settleNow() {
+        // Claimed by a settlement whose payment task the shutdown cancelled.
+        payUnpaid();
+        Transfer transfer;
+        while ((transfer = failedTransfers.poll()) != null) {
+            try {
+                warnIfShort(transfer, main.getMainThreadWatchdog().join("db", repository.transfer(
+                        transfer.orderId(), transfer.beneficiaryId(), transfer.entryType(), transfer.amount())));
+            } catch (CompletionException e) {
+                NLogger.error("Escrow " + transfer.entryType() + " of " + Money.format(transfer.amount()) + " for order "
+                        + transfer.orderId() + " to " + transfer.beneficiaryId() + " was never recorded: " + e.getCause().getMessage());
+            }
+        }
+        try {
+            Map<UUID, Long> payouts;
+            do {
+                payouts = main.getMainThreadWatchdog().join("db", repository.claimPayouts(batchSize));
+                payouts.forEach((playerId, amount) -> unpaid.merge(playerId, amount, Long::sum));
+                payUnpaid();
+            } while (payouts.size() >= batchSize);
+        } catch (CompletionException e) {
+            NLogger.error("Failed to settle escrow payouts on shutdown: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Pays every claimed payout. Each one is taken out of {@link #unpaid} before it is deposited, so it is
+     * paid or credited back exactly once whichever thread gets to it.
+     */
+    private void payUnpaid() {
+        for (UUID playerId : unpaid.keySet()) {
+            Long amount = unpaid.remove(playerId);
+            if (amount != null && !deposit(playerId, amount)) {
+                reverse(playerId, amount);
+            }
+        }
+    }
+
+    private void reverseUnpaid() {
+        for (UUID playerId : unpaid.keySet()) {
+            Long amount = unpaid.remove(playerId);
+            if (amount != null) {
+                reverse(playerId, amount);
+            }
+        }
+    }
+
+    private void reverse(UUID playerId, long amount) {
+        repository.reverse(playerId, amount).exceptionally(error -> {
+            NLogger.error("Failed to re-credit payout of " + Money.format(amount) + " to " + playerId + ": " + error.getCause().getMessage());
+            return 0;
+        });
+    }
+
+    private boolean deposit(UUID playerId, long amount) {
+        try {
+            EconomyResponse response = main.getEconomy().depositPlayer(Bukkit.getOfflinePlayer(playerId), Money.toDouble(amount));
+            if (response.transactionSuccess()) return true;
+            NLogger.warn("Economy rejected payout of " + Money.format(amount) + " to " + playerId + ": " + response.errorMessage);
+        } catch (RuntimeException e) {
+            NLogger.warn("Economy failed to pay " + Money.format(amount) + " to " + playerId + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Checks the ledger against its balance tables and against the orders in memory.
+     */
+    public CompletableFuture<Report> reconcile() {
+        return repository.reconcile().thenApply(reconciliation -> {
+            List<String> liveMismatches = new ArrayList<>();
+            for (Order order : main.getOrderManager().getTrackedOrders()) {
+                if (order.getStatus() != OrderStatus.ACTIVE) continue;
+                if (order.getRemainingValue() != reconciliation.holds().getOrDefault(order.getId(), 0L)) {
+                    liveMismatches.add(order.getId());
+                }
+            }
+            return new Report(reconciliation, liveMismatches);
+        });
+    }
+
+    private record Transfer(String orderId, UUID beneficiaryId, String entryType, long amount) {
+
+    }
+
+    public record Report(EscrowRepository.Reconciliation ledger, List<String> liveMismatches) {
+
+        public boolean balanced() {
+            return ledger.orderMismatches().isEmpty() && ledger.playerMismatches().isEmpty()
+                    && liveMismatches.isEmpty() && ledger.imbalance() == 0;
+        }
+
+    }
+
+}
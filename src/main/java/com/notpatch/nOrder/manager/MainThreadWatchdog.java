@@ -0,0 +1,134 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.Settings;
+import com.notpatch.nlib.util.NLogger;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Debug aid that catches blocking I/O on a server tick thread. With {@code settings.debug} on, every
+ * database, file or HTTP call that runs on a tick thread is recorded per call site with its duration
+ * and listed by {@code /orderadmin perf}. When debug is off a check is a single field read.
+ */
+public class MainThreadWatchdog {
+
+    private static final String PLUGIN_PACKAGE = "com.notpatch.nOrder.";
+    private static final int CALL_SITE_DEPTH = 4;
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final MetricsRegistry metrics;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final StackWalker walker = StackWalker.getInstance();
+
+    public MainThreadWatchdog(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Records the I/O started at {@code startNanos} if it ran on a tick thread. Call it from a finally block.
+     */
+    public void check(String kind, long startNanos) {
+        if (!Settings.current().isDebug() || !Bukkit.isPrimaryThread()) return;
+
+        long elapsed = System.nanoTime() - startNanos;
+        String callSite = callSite();
+        Site site = sites.computeIfAbsent(kind + " " + callSite, key -> new Site(kind, callSite));
+        site.record(elapsed);
+        metrics.timer("watchdog." + kind).record(elapsed);
+
+        if (site.shouldWarn(elapsed, Settings.current().getWatchdogWarnMillis() * 1_000_000L)) {
+            NLogger.warn("Blocking " + kind + " I/O on the server thread took " + MetricsRegistry.formatMillis(elapsed) + " at " + callSite);
+        }
+    }
+
+    /**
+     * Joins the future, recording the wait if the caller is a tick thread.
+     */
+    public <T> T join(String kind, CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        try {
+            return future.join();
+        } finally {
+            check(kind, start);
+        }
+    }
+
+    /**
+     * Recorded call sites, most total time first.
+     */
+    public List<Site> getSites() {
+        return sites.values().stream()
+                .sorted(Comparator.comparingLong(Site::getTotalNanos).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        sites.clear();
+    }
+
+    private String callSite() {
+        return walker.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(PLUGIN_PACKAGE))
+                .filter(frame -> !frame.getClassName().equals(MainThreadWatchdog.class.getName()))
+                .limit(CALL_SITE_DEPTH)
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" < ")));
+    }
+
+    public static class Site {
+
+        @Getter
+        private final String kind;
+        @Getter
+        private final String callSite;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLong lastWarned = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+
+        private Site(String kind, String callSite) {
+            this.kind = kind;
+            this.callSite = callSite;
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        // At most one warning per call site per interval, so a hot path cannot flood the console.
+        private boolean shouldWarn(long nanos, long thresholdNanos) {
+            if (nanos < thresholdNanos) return false;
+            long now = System.nanoTime();
+            long last = lastWarned.get();
+            return now - last >= WARN_INTERVAL_NANOS && lastWarned.compareAndSet(last, now);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return total.sum();
+        }
+
+        public long getMaxNanos() {
+            return max.get();
+        }
+
+    }
+
+}
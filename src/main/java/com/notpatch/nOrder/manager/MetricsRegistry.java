@@ -0,0 +1,103 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.model.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Internal performance metrics: counters, gauges and latency timers, shown by {@code /orderadmin perf}
+ * and optionally scraped in Prometheus format. Unlike bStats this never leaves the server.
+ * Recording is lock-free and allocation-free once a metric exists, so it is safe on hot paths.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private volatile long resetAt = System.nanoTime();
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Records the time since {@code startNanos}, taken from {@link System#nanoTime()}.
+     */
+    public void record(String name, long startNanos) {
+        timer(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records how long the future takes to complete, successfully or not, from now.
+     */
+    public <T> CompletableFuture<T> time(String name, CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        LatencyHistogram histogram = timer(name);
+        future.whenComplete((result, error) -> histogram.record(System.nanoTime() - start));
+        return future;
+    }
+
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        return values;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getTimers() {
+        Map<String, LatencyHistogram.Snapshot> values = new TreeMap<>();
+        timers.forEach((name, histogram) -> values.put(name, histogram.snapshot()));
+        return values;
+    }
+
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, supplier) -> {
+            try {
+                values.put(name, supplier.getAsLong());
+            } catch (RuntimeException ignored) {
+                // A gauge whose source is shut down or not ready yet is left out.
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Seconds since the counters and timers were last reset, the base for every rate.
+     */
+    public double getSecondsSinceReset() {
+        return Math.max(1e-9, (System.nanoTime() - resetAt) / 1e9);
+    }
+
+    public double rate(long count) {
+        return count / getSecondsSinceReset();
+    }
+
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        timers.values().forEach(LatencyHistogram::reset);
+        resetAt = System.nanoTime();
+    }
+
+    public static String formatMillis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+}
@@ -2,6 +2,7 @@ package com.notpatch.nOrder.manager;
 
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.util.Money;
 import com.notpatch.nOrder.util.StringUtil;
 import com.notpatch.nlib.util.NLogger;
 
@@ -42,6 +43,7 @@ public class OrderLogger {
     }
 
     private void log(String message) {
+        long start = System.nanoTime();
         String timestamp = LocalDateTime.now().format(timeFormatter);
         String logLine = "[" + timestamp + "] " + message;
 
@@ -53,33 +55,36 @@ public class OrderLogger {
                     StandardOpenOption.APPEND);
         } catch (IOException e) {
             NLogger.error("Failed to write to log file: " + e.getMessage());
+        } finally {
+            main.getMetricsRegistry().record("log.write", start);
+            main.getMainThreadWatchdog().check("file", start);
         }
     }
 
-    public void logOrderCreated(Order order, double totalPrice) {
+    public void logOrderCreated(Order order, long totalPrice) {
         String message = String.format(
-                "[ORDER_CREATED] Player: %s | Order ID: %s | Item: %s | Amount: %d | Price Per Item: %.2f | Total Price: %.2f | Highlight: %s | Expires: %s",
+                "[ORDER_CREATED] Player: %s | Order ID: %s | Item: %s | Amount: %d | Price Per Item: %s | Total Price: %s | Highlight: %s | Expires: %s",
                 order.getPlayerName(),
                 order.getId(),
                 StringUtil.formatMaterialName(order.getMaterial()),
                 order.getAmount(),
-                order.getPrice(),
-                totalPrice,
+                Money.format(order.getPrice()),
+                Money.format(totalPrice),
                 order.isHighlight() ? "Yes" : "No",
                 order.getExpirationDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
         );
         log(message);
     }
 
-    public void logOrderDelivery(Order order, String delivererName, int deliveredAmount, double earnedMoney) {
+    public void logOrderDelivery(Order order, String delivererName, int deliveredAmount, long earnedMoney) {
         String message = String.format(
-                "[ORDER_DELIVERY] Deliverer: %s | Order Owner: %s | Order ID: %s | Item: %s | Delivered: %d | Earned: %.2f | Progress: %d/%d",
+                "[ORDER_DELIVERY] Deliverer: %s | Order Owner: %s | Order ID: %s | Item: %s | Delivered: %d | Earned: %s | Progress: %d/%d",
                 delivererName,
                 order.getPlayerName(),
                 order.getId(),
                 StringUtil.formatMaterialName(order.getMaterial()),
                 deliveredAmount,
-                earnedMoney,
+                Money.format(earnedMoney),
                 order.getDelivered(),
                 order.getAmount()
         );
@@ -99,14 +104,14 @@ public class OrderLogger {
         log(message);
     }
 
-    public void logOrderCancelled(Order order, double refundAmount) {
+    public void logOrderCancelled(Order order, long refundAmount) {
         String message = String.format(
-                "[ORDER_CANCELLED] Player: %s | Order ID: %s | Item: %s | Remaining: %d | Refund: %.2f",
+                "[ORDER_CANCELLED] Player: %s | Order ID: %s | Item: %s | Remaining: %d | Refund: %s",
                 order.getPlayerName(),
                 order.getId(),
                 StringUtil.formatMaterialName(order.getMaterial()),
                 order.getAmount() - order.getDelivered(),
-                refundAmount
+                Money.format(refundAmount)
         );
         log(message);
     }
@@ -123,15 +128,31 @@ public class OrderLogger {
         log(message);
     }
 
-    public void logOrderExpired(Order order, double refundAmount) {
+    public void logOrderExpired(Order order, long refundAmount) {
         String message = String.format(
-                "[ORDER_EXPIRED] Player: %s | Order ID: %s | Item: %s | Delivered: %d/%d | Refund: %.2f",
+                "[ORDER_EXPIRED] Player: %s | Order ID: %s | Item: %s | Delivered: %d/%d | Refund: %s",
                 order.getPlayerName(),
                 order.getId(),
                 StringUtil.formatMaterialName(order.getMaterial()),
                 order.getDelivered(),
                 order.getAmount(),
-                refundAmount
+                Money.format(refundAmount)
+        );
+        log(message);
+    }
+
+    /**
+     * Items another server delivered at the same time beyond what the order asked for. They were taken
+     * from the supplier without a place in the order, and escrow can only pay what the order still holds.
+     */
+    public void logOrderOverDelivered(Order order, int excessAmount, long excessValue) {
+        String message = String.format(
+                "[ORDER_OVER_DELIVERED] Player: %s | Order ID: %s | Item: %s | Excess: %d | Unpaid Value: %s",
+                order.getPlayerName(),
+                order.getId(),
+                StringUtil.formatMaterialName(order.getMaterial()),
+                excessAmount,
+                Money.format(excessValue)
         );
         log(message);
     }
@@ -4,26 +4,34 @@ import com.notpatch.nOrder.LanguageLoader;
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.Settings;
 import com.notpatch.nOrder.model.DiscordWebhook;
+import com.notpatch.nOrder.model.NGramIndex;
 import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderSort;
+import com.notpatch.nOrder.model.OrderSortIndex;
 import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.util.Money;
 import com.notpatch.nOrder.util.PlayerUtil;
+import com.notpatch.nOrder.util.SchedulerUtil;
 import com.notpatch.nOrder.util.StringUtil;
 import com.notpatch.nlib.effect.NSound;
 import com.notpatch.nlib.util.NLogger;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
 
 import java.io.IOException;
-import java.sql.*;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class OrderManager {
@@ -31,9 +39,13 @@ public class OrderManager {
     private final NOrder main;
 
     private final Map<UUID, List<Order>> ordersByPlayer = new ConcurrentHashMap<>();
+    private final Map<String, Order> ordersById = new ConcurrentHashMap<>();
+    private final NGramIndex<String> searchIndex = new NGramIndex<>();
+    private final OrderSortIndex sortIndex = new OrderSortIndex();
 
     public OrderManager(NOrder main) {
         this.main = main;
+        main.getMetricsRegistry().gauge("orders.tracked", () -> ordersById.size());
     }
 
     public void loadOrders() {
@@ -42,195 +54,195 @@ public class OrderManager {
             return;
         }
 
-        try (Connection conn = main.getDatabaseManager().getDataSource().getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM orders")) {
-
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                String orderId = rs.getString("order_id");
-                UUID playerId = UUID.fromString(rs.getString("player_id"));
-                String playerName = rs.getString("player_name");
-
-                String materialName = rs.getString("material");
-                Material material = Material.valueOf(materialName);
-                ItemStack item = new ItemStack(material);
-
-                String customItemId = rs.getString("custom_item_id");
-
-                String enchantmentsStr = rs.getString("enchantments");
-                if (enchantmentsStr != null && !enchantmentsStr.isEmpty()) {
-                    try {
-                        String[] enchantPairs = enchantmentsStr.split(",");
-                        for (String pair : enchantPairs) {
-                            String[] parts = pair.split(":");
-                            if (parts.length == 2) {
-                                Enchantment enchant = Enchantment.getByKey(org.bukkit.NamespacedKey.minecraft(parts[0]));
-                                int level = Integer.parseInt(parts[1]);
-                                if (enchant != null) {
-                                    if (material == Material.ENCHANTED_BOOK) {
-                                        EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
-                                        if (meta != null) {
-                                            meta.addStoredEnchant(enchant, level, true);
-                                            item.setItemMeta(meta);
-                                        }
-                                    } else {
-                                        item.addEnchantment(enchant, level);
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        NLogger.warn("Error parsing enchantments for order " + orderId + ": " + e.getMessage());
-                    }
-                }
-
-                int amount = rs.getInt("amount");
-                double price = rs.getDouble("price");
-                int delivered = rs.getInt("delivered");
-                int collected = rs.getInt("collected");
-                LocalDateTime expiresAt = rs.getTimestamp("expires_at").toLocalDateTime();
-                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                boolean highlight = rs.getBoolean("highlight");
-                String status = rs.getString("status");
-
-                if (status.equalsIgnoreCase("ARCHIVED") || status.equalsIgnoreCase("CANCELLED")) continue;
-
-                Order order = new Order(orderId, playerId, playerName, item, customItemId, amount, price, createdAt, expiresAt, highlight);
-                order.setStatus(OrderStatus.valueOf(status));
-                order.setDelivered(delivered);
-                order.setCollected(collected);
-
+        try {
+            for (Order order : main.getDatabaseManager().getOrderStore().loadOrders().join()) {
                 addOrderAdmin(order);
             }
-
             NLogger.info("Total " + getAllOrders().size() + " orders loaded successfully.");
-
-        } catch (SQLException e) {
-            NLogger.error("An error occurred while loading orders: " + e.getMessage());
+        } catch (CompletionException e) {
+            NLogger.error("An error occurred while loading orders: " + e.getCause().getMessage());
         }
     }
 
-
-    public void saveOrders() {
-        if (!main.getDatabaseManager().isConnectionValid()) {
-            NLogger.error("Database connection is null. Cannot save orders.");
-            return;
-        }
-        String sql = """
-                INSERT INTO orders (order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, delivered, collected, created_at, expires_at, highlight, status)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                ON DUPLICATE KEY UPDATE
-                delivered = VALUES(delivered),
-                collected = VALUES(collected),
-                status = VALUES(status)
-                """;
-
-        if (main.getDatabaseManager().isUsingSQLite()) {
-            sql = """
-                    INSERT OR REPLACE INTO orders (order_id, player_id, player_name, material, custom_item_id, enchantments, amount, price, delivered, collected, created_at, expires_at, highlight, status)
-                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                    """;
+    public CompletableFuture<Integer> saveOrders() {
+        OrderSyncManager syncManager = main.getOrderSyncManager();
+        if (syncManager != null && syncManager.isEnabled()) {
+            // Versioned pushes keep other servers' progress intact; a blind upsert would overwrite it.
+            return main.getMetricsRegistry().time("orders.autosave", syncManager.pushChanges());
         }
 
-        try (Connection conn = main.getDatabaseManager().getDataSource().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        List<Order> orders = ordersByPlayer.values().stream()
+                .flatMap(List::stream)
+                .toList();
+
+        return main.getMetricsRegistry().time("orders.autosave", main.getDatabaseManager().getOrderStore().saveOrders(orders))
+                .whenComplete((saved, error) -> {
+                    if (error != null) {
+                        NLogger.error("Failed to save orders: " + error.getCause().getMessage());
+                    } else {
+                        NLogger.info("Orders saved successfully.");
+                    }
+                });
+    }
 
-            for (List<Order> orders : ordersByPlayer.values()) {
-                for (Order order : orders) {
+    public List<Order> getPlayerOrders(UUID playerId) {
+        return ordersByPlayer.computeIfAbsent(playerId, k -> new ArrayList<>());
+    }
 
-                    stmt.setString(1, order.getId());
-                    stmt.setString(2, order.getPlayerId().toString());
-                    stmt.setString(3, order.getPlayerName());
-                    stmt.setString(4, order.getMaterial().name());
-                    stmt.setString(5, order.getCustomItemId()); // custom_item_id
+    public List<Order> getPlayerOrders(String playerName) {
+        List<Order> orders = ordersOf(playerName);
+        if (orders == null || orders.isEmpty() || orders.getFirst().getStatus() != OrderStatus.ACTIVE) {
+            return new ArrayList<>();
+        }
+        return orders;
+    }
 
-                    String enchantments = formatEnchantments(order.getItem());
-                    stmt.setString(6, enchantments);
+    public List<Order> getPlayerOrdersIncludingCompleted(UUID playerId) {
+        return ordersByPlayer.computeIfAbsent(playerId, k -> new ArrayList<>());
+    }
 
-                    stmt.setInt(7, order.getAmount());
-                    stmt.setDouble(8, order.getPrice());
-                    stmt.setInt(9, order.getDelivered());
-                    stmt.setInt(10, order.getCollected());
-                    stmt.setTimestamp(11, Timestamp.valueOf(order.getCreatedAt()));
-                    stmt.setTimestamp(12, Timestamp.valueOf(order.getExpirationDate()));
-                    stmt.setBoolean(13, order.isHighlight());
-                    stmt.setString(14, order.getStatus().name());
+    public List<Order> getPlayerOrdersIncludingCompleted(String playerName) {
+        List<Order> orders = ordersOf(playerName);
+        if (orders == null) return new ArrayList<>();
+        return orders.stream()
+                .filter(order -> order.getStatus() != OrderStatus.CANCELLED)
+                .collect(Collectors.toList());
+    }
 
-                    stmt.addBatch();
-                }
-            }
+    private List<Order> ordersOf(String playerName) {
+        UUID playerId = main.getPlayerNameIndex().getUniqueId(playerName);
+        return playerId == null ? null : ordersByPlayer.get(playerId);
+    }
 
-            stmt.executeBatch();
-            NLogger.info("Orders saved successfully.");
+    public List<Order> getOrdersByMaterial(String material) {
+        return getAllOrders().stream()
+                .filter(o -> o.getMaterial().name().toUpperCase().contains(material.toUpperCase()))
+                .collect(Collectors.toList());
+    }
 
-        } catch (SQLException e) {
-            NLogger.error("Failed to save orders: " + e.getMessage());
-        }
+    public void addOrderAdmin(Order order) {
+        trackOrder(order);
     }
 
-    private String formatEnchantments(ItemStack item) {
-        if (item == null) return "";
+    private void trackOrder(Order order) {
+        main.getPlayerNameIndex().put(order.getPlayerId(), order.getPlayerName());
+        getPlayerOrders(order.getPlayerId()).add(order);
+        ordersById.put(order.getId(), order);
+        searchIndex.put(order.getId(), searchTexts(order));
+        sortIndex.update(order);
+    }
 
-        Map<Enchantment, Integer> enchants;
-        if (item.getType() == Material.ENCHANTED_BOOK) {
-            EnchantmentStorageMeta meta = (EnchantmentStorageMeta) item.getItemMeta();
-            if (meta != null) {
-                enchants = meta.getStoredEnchants();
-            } else {
-                return "";
+    /**
+     * What an order can be found by: its ID, owner, material, custom item and display name, and the
+     * names of its enchantments.
+     */
+    private static List<String> searchTexts(Order order) {
+        List<String> texts = new ArrayList<>();
+        texts.add(order.getId());
+        texts.add(order.getPlayerName());
+        texts.add(order.getMaterial().name());
+
+        ItemStack item = null;
+        if (order.isCustomItem()) {
+            texts.add(order.getCustomItemId());
+            item = Settings.getCustomItemFromCache(order.getCustomItemId());
+        }
+        if (item == null) item = order.getItem();
+
+        ItemMeta meta = item != null ? item.getItemMeta() : null;
+        if (meta != null) {
+            if (meta.hasDisplayName()) texts.add(meta.getDisplayName());
+            Map<Enchantment, Integer> enchants = meta instanceof EnchantmentStorageMeta storageMeta
+                    ? storageMeta.getStoredEnchants() : meta.getEnchants();
+            for (Enchantment enchantment : enchants.keySet()) {
+                texts.add(enchantment.getKey().getKey());
             }
-        } else {
-            enchants = item.getEnchantments();
         }
+        return texts;
+    }
 
-        if (enchants.isEmpty()) return "";
+    /**
+     * Re-indexes custom item orders, whose display names come from the custom item cache. Orders loaded
+     * before the cache was filled were indexed without them.
+     */
+    public void reindexCustomItems() {
+        for (Order order : ordersById.values()) {
+            if (order.isCustomItem()) {
+                searchIndex.put(order.getId(), searchTexts(order));
+            }
+        }
+    }
 
-        return enchants.entrySet().stream()
-                .map(entry -> entry.getKey().getKey().getKey() + ":" + entry.getValue())
-                .collect(Collectors.joining(","));
+    /**
+     * Active orders matching {@code query}, best match first. Typos and partial words still match.
+     */
+    public List<Order> searchOrders(String query) {
+        long start = System.nanoTime();
+        List<Order> results = searchIndex.search(query, id -> {
+                    Order order = ordersById.get(id);
+                    return order != null && order.getStatus() == OrderStatus.ACTIVE;
+                }, Integer.MAX_VALUE).stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        main.getMetricsRegistry().record("orders.search", start);
+        return results;
     }
 
+    /**
+     * Looks up an order in memory regardless of its status.
+     */
+    public Order findOrder(String orderId) {
+        return ordersById.get(orderId);
+    }
 
-    public List<Order> getPlayerOrders(UUID playerId) {
-        return ordersByPlayer.computeIfAbsent(playerId, k -> new ArrayList<>());
+    public Collection<Order> getTrackedOrders() {
+        return ordersById.values();
     }
 
-    public List<Order> getPlayerOrders(String playerName) {
-        return ordersByPlayer.values().stream()
-                .filter(orders -> !orders.isEmpty() &&
-                        orders.getFirst().getPlayerName().equalsIgnoreCase(playerName) && orders.getFirst().getStatus() == OrderStatus.ACTIVE)
-                .findFirst()
-                .orElse(new ArrayList<>());
+    /**
+     * Drops an order from memory without touching the database. Used when another server removed it.
+     */
+    public boolean forgetOrder(Order order) {
+        if (ordersById.remove(order.getId(), order)) {
+            searchIndex.remove(order.getId());
+            sortIndex.remove(order.getId());
+        }
+        List<Order> playerOrders = ordersByPlayer.get(order.getPlayerId());
+        if (playerOrders == null) return false;
+        boolean removed = playerOrders.removeIf(o -> o.getId().equals(order.getId()));
+        if (playerOrders.isEmpty()) {
+            ordersByPlayer.remove(order.getPlayerId());
+        }
+        return removed;
     }
 
-    public List<Order> getPlayerOrdersIncludingCompleted(UUID playerId) {
-        return ordersByPlayer.computeIfAbsent(playerId, k -> new ArrayList<>());
+    public int getPlayerOrderCount(UUID playerId) {
+        return getPlayerOrders(playerId).size();
     }
 
-    public List<Order> getPlayerOrdersIncludingCompleted(String playerName) {
-        return ordersByPlayer.values().stream()
-                .filter(orders -> !orders.isEmpty() &&
-                        orders.getFirst().getPlayerName().equalsIgnoreCase(playerName))
-                .findFirst()
-                .map(orders -> orders.stream()
-                        .filter(order -> order.getStatus() != OrderStatus.CANCELLED)
-                        .collect(Collectors.toList()))
-                .orElse(new ArrayList<>());
+    /**
+     * Re-sorts an order after its status or progress changed outside this manager, e.g. by sync.
+     */
+    public void reindexOrder(Order order) {
+        if (ordersById.get(order.getId()) == order) {
+            sortIndex.update(order);
+        }
     }
 
-    public List<Order> getOrdersByMaterial(String material) {
-        return getAllOrders().stream()
-                .filter(o -> o.getMaterial().name().toUpperCase().contains(material.toUpperCase()))
-                .collect(Collectors.toList());
+    /**
+     * First page of the active orders in {@code sort} order.
+     */
+    public OrderSortIndex.Page firstPage(OrderSort sort, int size) {
+        return sortIndex.first(sort, size);
     }
 
-    public void addOrderAdmin(Order order) {
-        getPlayerOrders(order.getPlayerId()).add(order);
+    public OrderSortIndex.Page nextPage(OrderSort sort, OrderSortIndex.Page page, int size) {
+        return sortIndex.next(sort, page, size);
     }
 
-    public int getPlayerOrderCount(UUID playerId) {
-        return getPlayerOrders(playerId).size();
+    public OrderSortIndex.Page previousPage(OrderSort sort, OrderSortIndex.Page page, int size) {
+        return sortIndex.previous(sort, page, size);
     }
 
     public List<Order> getHighlightedOrdersFirst() {
@@ -240,10 +252,10 @@ public class OrderManager {
     }
 
     public void addOrder(Order order) {
-        double totalPrice = order.getPrice() * order.getAmount();
+        long totalPrice = order.getTotalPrice();
 
-        if (order.isHighlight() && Settings.HIGHLIGHT_FEE > 0) {
-            totalPrice += totalPrice * Settings.HIGHLIGHT_FEE / 100;
+        if (order.isHighlight() && Settings.current().getHighlightFee() > 0) {
+            totalPrice += Money.percent(totalPrice, Settings.current().getHighlightFee());
         }
 
         OfflinePlayer offlinePlayer = main.getServer().getOfflinePlayer(order.getPlayerId());
@@ -254,45 +266,38 @@ public class OrderManager {
         Player player = PlayerUtil.getPlayer(offlinePlayer);
 
         if (PlayerUtil.isPlayerAdmin(player)) {
-            getPlayerOrders(order.getPlayerId()).add(order);
-            player.sendMessage(LanguageLoader.getMessage("order-created")
-                    .replace("%material%", order.getMaterial().name())
-                    .replace("%amount%", String.valueOf(order.getAmount()))
-                    .replace("%total_price%", String.format("%.2f", totalPrice))
-                    .replace("%price%", String.valueOf(order.getPrice())));
+            trackOrder(order);
             order.setStatus(OrderStatus.ACTIVE);
-            main.getPlayerStatsManager().getStatistics(order.getPlayerId()).addTotalOrders(1);
+            sortIndex.update(order);
+            acknowledgeCreated(player, order, totalPrice);
+            main.getMetricsRegistry().increment("orders.created");
+            main.getPlayerStatsManager().recordOrderCreated(order.getPlayerId());
             main.getOrderLogger().logOrderCreated(order, totalPrice);
-            NSound.success(player);
             return;
         }
 
         int playerOrderLimit = PlayerUtil.getPlayerOrderLimit(player);
 
         if (getPlayerOrderCount(order.getPlayerId()) >= playerOrderLimit) {
-            player.sendMessage(LanguageLoader.getMessage("order-limit-reached")
-                    .replace("%limit%", String.valueOf(playerOrderLimit)));
+            player.sendMessage(LanguageLoader.getMessage("order-limit-reached", "%limit%", String.valueOf(playerOrderLimit)));
             NSound.error(player);
             return;
         }
 
-        if (main.getEconomy().getBalance(offlinePlayer) < totalPrice) {
+        if (Money.of(main.getEconomy().getBalance(offlinePlayer)) < totalPrice) {
             player.sendMessage(LanguageLoader.getMessage("not-enough-money"));
             NSound.error(player);
             return;
         }
 
-        main.getEconomy().withdrawPlayer(offlinePlayer, totalPrice);
-        getPlayerOrders(order.getPlayerId()).add(order);
-        player.sendMessage(LanguageLoader.getMessage("order-created")
-                .replace("%material%", order.getMaterial().name())
-                .replace("%amount%", String.valueOf(order.getAmount()))
-                .replace("%total_price%", String.format("%.2f", totalPrice))
-                .replace("%price%", String.valueOf(order.getPrice())));
+        main.getEconomy().withdrawPlayer(offlinePlayer, Money.toDouble(totalPrice));
+        trackOrder(order);
         order.setStatus(OrderStatus.ACTIVE);
-        main.getPlayerStatsManager().getStatistics(order.getPlayerId()).addTotalOrders(1);
+        sortIndex.update(order);
+        acknowledgeCreated(player, order, totalPrice);
+        main.getMetricsRegistry().increment("orders.created");
+        main.getPlayerStatsManager().recordOrderCreated(order.getPlayerId());
         main.getOrderLogger().logOrderCreated(order, totalPrice);
-        NSound.success(player);
         DiscordWebhook webhook = main.getWebhookManager().getWebhooks().get("order-create");
         if (webhook != null) {
             DiscordWebhook clonedWebhook = webhook.clone();
@@ -313,8 +318,8 @@ public class OrderManager {
                     String value = field.getValue()
                             .replace("%material%", order.getMaterial().name())
                             .replace("%amount%", String.valueOf(order.getAmount()))
-                            .replace("%price%", String.format("%.2f", order.getPrice()))
-                            .replace("%total_price%", String.format("%.2f", order.getPrice() * order.getAmount()))
+                            .replace("%price%", Money.format(order.getPrice()))
+                            .replace("%total_price%", Money.format(order.getTotalPrice()))
                             .replace("%enchantments%", formatEnchantmentsForWebhook(order.getItem()))
                             .replace("%duration%", order.getRemainingHours() + " saat");
 
@@ -326,10 +331,15 @@ public class OrderManager {
                 }
             }
 
+            long start = System.nanoTime();
             try {
                 clonedWebhook.execute();
             } catch (IOException e) {
+                main.getMetricsRegistry().increment("webhook.errors");
                 NLogger.error("An error occurred while sending order creation webhook: " + e.getMessage());
+            } finally {
+                main.getMetricsRegistry().record("webhook.send", start);
+                main.getMainThreadWatchdog().check("http", start);
             }
         }
     }
@@ -364,7 +374,7 @@ public class OrderManager {
             return;
         }
 
-        if (!player.hasPermission(Settings.ORDER_CANCEL_PERMISSION)) {
+        if (!player.hasPermission(Settings.current().getOrderCancelPermission())) {
             return;
         }
 
@@ -374,71 +384,177 @@ public class OrderManager {
             return;
         }
 
+        if (order.getStatus() != OrderStatus.ACTIVE) {
+            order.unlock();
+            player.sendMessage(LanguageLoader.getMessage("order-not-active"));
+            NSound.error(player);
+            return;
+        }
+
+        // The lock is held until the claim settles, so nothing changes the order in between. Without
+        // sync the claim is already won and the cancel finishes right here.
+        CompletableFuture<Boolean> claim = claim(order, OrderStatus.CANCELLED);
+        if (claim.isDone()) {
+            claim.whenComplete((won, error) -> finishCancel(player, order, won, error));
+        } else {
+            claim.whenCompleteAsync((won, error) -> finishCancel(player, order, won, error), SchedulerUtil.entity(player));
+        }
+    }
+
+    private void finishCancel(Player player, Order order, Boolean won, Throwable error) {
         try {
-            if (order.getStatus() != OrderStatus.ACTIVE) {
+            if (error != null || !won) {
+                if (error != null) {
+                    NLogger.warn("Failed to claim order " + order.getId() + " for cancelling: " + error.getCause().getMessage());
+                }
                 player.sendMessage(LanguageLoader.getMessage("order-not-active"));
                 NSound.error(player);
                 return;
             }
 
-            double refundAmount = (order.getAmount() - order.getDelivered()) * order.getPrice();
-            main.getEconomy().depositPlayer(offlinePlayer, refundAmount);
+            long refundAmount = order.getRemainingValue();
             main.getOrderLogger().logOrderCancelled(order, refundAmount);
 
             order.setStatus(OrderStatus.CANCELLED);
-            removeOrder(order);
+            // Refunded, and the owner told, only once the removal is durable
+            CompletableFuture<Boolean> removed = removeOrder(order);
+            removed.thenRun(() -> main.getEscrowManager().refund(order, refundAmount));
+            main.getMetricsRegistry().increment("orders.cancelled");
 
             if (player.isOnline()) {
-                player.sendMessage(LanguageLoader.getMessage("order-cancelled")
-                        .replace("%id%", order.getId())
-                        .replace("%material%", StringUtil.formatMaterialName(order.getMaterial()))
-                        .replace("%amount%", String.valueOf(order.getAmount() - order.getDelivered()))
-                        .replace("%refund_amount%", String.format("%.2f", refundAmount)));
-                NSound.success(player);
+                SchedulerUtil.thenOn(player, removed, ignored -> {
+                    player.sendMessage(LanguageLoader.getMessage("order-cancelled",
+                            "%id%", order.getId(),
+                            "%material%", StringUtil.formatMaterialName(order.getMaterial()),
+                            "%amount%", String.valueOf(order.getAmount() - order.getDelivered()),
+                            "%refund_amount%", Money.format(refundAmount)));
+                    NSound.success(player);
+                });
             }
         } finally {
             order.unlock();
         }
+    }
 
+    /**
+     * With sync on, several servers hold the same order; only the one that claims it may refund.
+     */
+    private CompletableFuture<Boolean> claim(Order order, OrderStatus status) {
+        OrderSyncManager syncManager = main.getOrderSyncManager();
+        if (syncManager == null) return CompletableFuture.completedFuture(true);
+        return syncManager.claim(order, status);
     }
 
-    public boolean removeOrder(Order order) {
-        List<Order> playerOrders = ordersByPlayer.get(order.getPlayerId());
-        if (playerOrders == null) return false;
+    /**
+     * Records a new order and, once that is durable, holds its value in escrow and tells the owner.
+     */
+    private void acknowledgeCreated(Player player, Order order, long totalPrice) {
+        CompletableFuture<Boolean> recorded = recordChange(order);
+        // The highlight fee is spent, only the refundable order value is held
+        recorded.thenRun(() -> main.getEscrowManager().hold(order, order.getTotalPrice()));
+        SchedulerUtil.thenOn(player, recorded, ignored -> {
+            player.sendMessage(LanguageLoader.getMessage("order-created",
+                    "%material%", order.getMaterial().name(),
+                    "%amount%", String.valueOf(order.getAmount()),
+                    "%total_price%", Money.format(totalPrice),
+                    "%price%", Money.format(order.getPrice())));
+            NSound.success(player);
+        });
+    }
 
-        boolean removed = playerOrders.removeIf(o -> o.getId().equals(order.getId()));
+    /**
+     * Credits {@code amount} delivered items to the order and pays the supplier out of escrow.
+     * The caller holds the order lock and has already capped the amount at {@link Order#getRemaining()}.
+     * Completes with what the supplier earned once the delivery is durable; only then is the payout
+     * released, so the caller should tell the supplier when it completes.
+     */
+    public CompletableFuture<Long> deliver(Order order, UUID supplierId, String supplierName, int amount) {
+        long earning = Money.times(order.getPrice(), amount);
 
-        if (playerOrders.isEmpty()) {
-            ordersByPlayer.remove(order.getPlayerId());
-        }
+        order.addDelivered(amount);
+        main.getMetricsRegistry().add("orders.delivered-items", amount);
 
-        try (Connection conn = main.getDatabaseManager().getDataSource().getConnection();
-             PreparedStatement stmt = conn.prepareStatement("DELETE FROM orders WHERE order_id = ?")) {
+        main.getPlayerStatsManager().recordDelivery(supplierId, order.getPlayerId(), amount, earning);
+        main.getOrderLogger().logOrderDelivery(order, supplierName, amount, earning);
 
-            stmt.setString(1, order.getId());
-            stmt.executeUpdate();
+        boolean completed = order.getRemaining() <= 0;
+        if (completed) {
+            order.setStatus(OrderStatus.COMPLETED);
+            main.getOrderLogger().logOrderCompleted(order);
+        }
+        sortIndex.update(order);
+
+        CompletableFuture<Long> recorded = recordChange(order).thenApply(ignored -> {
+            main.getEscrowManager().release(order, supplierId, earning);
+            return earning;
+        });
+        Player orderOwner = completed ? Bukkit.getPlayer(order.getPlayerId()) : null;
+        if (orderOwner != null && orderOwner.isOnline()) {
+            SchedulerUtil.thenOn(orderOwner, recorded, ignored ->
+                    orderOwner.sendMessage(LanguageLoader.getMessage("delivery-completed", "%material%", order.getMaterial().name())));
+        }
+        return recorded;
+    }
 
-        } catch (SQLException e) {
-            NLogger.error("Failed to remove order from database: " + e.getMessage());
-            return false;
+    /**
+     * Marks {@code amount} delivered items as taken by the owner. A completed order is archived once
+     * everything is collected, in which case this returns true. The items leave the menu before the
+     * change is flushed, an inventory click cannot wait for it, so a crash inside the journal's group
+     * commit window can show them as uncollected again.
+     */
+    public boolean collect(Order order, int amount) {
+        order.addCollected(amount);
+        main.getOrderLogger().logItemCollection(order, amount);
+
+        if (order.getStatus() == OrderStatus.COMPLETED && order.getCollected() >= order.getDelivered()) {
+            archiveOrder(order);
+            main.getOrderLogger().logOrderArchived(order);
+            return true;
         }
+        recordChange(order);
+        return false;
+    }
 
-        return removed;
+    /**
+     * Hands a changed order to the store right away. With the journal backend the change is appended
+     * before this returns and the future completes once the group commit has flushed it to disk; the
+     * database backend waits for the next save and completes at once. Never completes exceptionally.
+     */
+    private CompletableFuture<Boolean> recordChange(Order order) {
+        return main.getDatabaseManager().getOrderStore().recordChange(order)
+                .exceptionally(error -> {
+                    NLogger.error("Failed to record a change to order " + order.getId() + ": " + error.getCause().getMessage());
+                    return false;
+                });
     }
 
-    private void updateOrderStatusInDatabase(Order order) {
-        String sql = "UPDATE orders SET status = ? WHERE order_id = ?";
+    public CompletableFuture<Boolean> removeOrder(Order order) {
+        if (!ordersByPlayer.containsKey(order.getPlayerId())) return CompletableFuture.completedFuture(false);
 
-        try (Connection conn = main.getDatabaseManager().getDataSource().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        boolean removed = forgetOrder(order);
 
-            stmt.setString(1, order.getStatus().name());
-            stmt.setString(2, order.getId());
-            stmt.executeUpdate();
+        return main.getDatabaseManager().getOrderStore().deleteOrder(order.getId())
+                .handle((deleted, error) -> {
+                    if (error != null) {
+                        NLogger.error("Failed to remove order from database: " + error.getCause().getMessage());
+                        return false;
+                    }
+                    return removed;
+                });
+    }
 
-        } catch (SQLException e) {
-            NLogger.error("Failed to update order status in database: " + e.getMessage());
-        }
+    /**
+     * Marks the order archived, drops it from memory and archives it in the order store.
+     */
+    public CompletableFuture<Boolean> archiveOrder(Order order) {
+        order.setStatus(OrderStatus.ARCHIVED);
+        forgetOrder(order);
+
+        return main.getDatabaseManager().getOrderStore().archiveOrder(order)
+                .exceptionally(error -> {
+                    NLogger.error("Failed to archive order in database: " + error.getCause().getMessage());
+                    return false;
+                });
     }
 
     public String createRandomId() {
@@ -454,6 +570,7 @@ public class OrderManager {
 
 
     public void cleanExpiredOrders() {
+        long start = System.nanoTime();
         List<Order> expiredOrders = new ArrayList<>();
 
         for (List<Order> orders : new ArrayList<>(ordersByPlayer.values())) {
@@ -466,25 +583,47 @@ public class OrderManager {
             }
         }
 
+        AtomicInteger expired = new AtomicInteger();
+        List<CompletableFuture<Void>> claims = new ArrayList<>();
         for (Order order : expiredOrders) {
-            order.setStatus(OrderStatus.COMPLETED);
-
-            double refundAmount = Math.max(0, order.getAmount() - order.getDelivered()) * order.getPrice();
-            if (refundAmount > 0) {
-                OfflinePlayer player = main.getServer().getOfflinePlayer(order.getPlayerId());
-                main.getEconomy().depositPlayer(player, refundAmount);
+            // A locked order is being delivered to or cancelled; the next run picks it up
+            if (!order.tryLock()) continue;
+            if (order.getStatus() != OrderStatus.ACTIVE) {
+                order.unlock();
+                continue;
             }
-            main.getOrderLogger().logOrderExpired(order, refundAmount);
 
-            removeOrder(order);
+            claims.add(claim(order, OrderStatus.ARCHIVED).handle((won, error) -> {
+                try {
+                    if (error != null) {
+                        NLogger.warn("Failed to claim expired order " + order.getId() + ": " + error.getCause().getMessage());
+                        return null;
+                    }
+                    // Lost to another server, which refunds it
+                    if (!won) return null;
 
-            order.setStatus(OrderStatus.ARCHIVED);
-            main.getOrderLogger().logOrderArchived(order);
+                    order.setStatus(OrderStatus.COMPLETED);
+                    long refundAmount = order.getRemainingValue();
+                    main.getOrderLogger().logOrderExpired(order, refundAmount);
 
-            updateOrderStatusInDatabase(order);
+                    CompletableFuture<Boolean> archived = archiveOrder(order);
+                    if (refundAmount > 0) {
+                        archived.thenRun(() -> main.getEscrowManager().refund(order, refundAmount));
+                    }
+                    main.getOrderLogger().logOrderArchived(order);
+                    expired.incrementAndGet();
+                    return null;
+                } finally {
+                    order.unlock();
+                }
+            }));
         }
 
-        ordersByPlayer.values().removeIf(List::isEmpty);
+        CompletableFuture.allOf(claims.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            ordersByPlayer.values().removeIf(List::isEmpty);
+            main.getMetricsRegistry().add("orders.expired", expired.get());
+            main.getMetricsRegistry().record("orders.expiry", start);
+        });
 
         /*try (Connection conn = main.getDatabaseManager().getDataSource().getConnection();
              PreparedStatement stmt = conn.prepareStatement("DELETE FROM orders WHERE expires_at < ?")) {
@@ -526,12 +665,8 @@ public class OrderManager {
     }
 
     public Order getOrderById(String orderId) {
-        for (Order order : getAllOrders()) {
-            if (order.getId().equals(orderId)) {
-                return order;
-            }
-        }
-        return null;
+        Order order = ordersById.get(orderId);
+        return order != null && order.getStatus() == OrderStatus.ACTIVE ? order : null;
     }
 
     public void startCleanupTask() {
@@ -544,7 +679,7 @@ public class OrderManager {
     }
 
     public void startAutoSaveTask() {
-        int intervalMinutes = Settings.AUTO_SAVE_INTERVAL_MINUTES;
+        int intervalMinutes = Settings.current().getAutoSaveIntervalMinutes();
         if (intervalMinutes <= 0) {
             NLogger.warn("Auto-save interval is disabled or invalid. Orders will only be saved on server shutdown.");
             return;
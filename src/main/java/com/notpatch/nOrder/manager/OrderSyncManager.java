@@ -0,0 +1,268 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.database.OrderChange;
+import com.notpatch.nOrder.database.OrderRepository;
+import com.notpatch.nOrder.database.StorageBackend;
+import com.notpatch.nOrder.model.Order;
+import com.notpatch.nOrder.model.OrderStatus;
+import com.notpatch.nOrder.util.Money;
+import com.notpatch.nOrder.util.SchedulerUtil;
+import com.notpatch.nlib.util.NLogger;
+import lombok.Getter;
+import org.bukkit.configuration.Configuration;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps orders consistent between servers sharing one MySQL database.
+ * Local changes are pushed as versioned updates and every server tails the order_changes feed
+ * to pick up what the others wrote, instead of reloading the whole table.
+ */
+public class OrderSyncManager {
+
+    private final NOrder main;
+
+    @Getter
+    private final boolean enabled;
+    @Getter
+    private final String serverId;
+    private final long pollIntervalSeconds;
+    private final int batchSize;
+    private final int retentionHours;
+
+    private final AtomicBoolean cycleRunning = new AtomicBoolean(false);
+    private volatile long lastSeq;
+
+    public OrderSyncManager(NOrder main) {
+        this.main = main;
+        Configuration config = main.getConfig();
+
+        String configuredId = config.getString("sync.server-id", "");
+        this.serverId = configuredId == null || configuredId.isBlank() ? UUID.randomUUID().toString() : configuredId;
+        this.pollIntervalSeconds = Math.max(1, config.getLong("sync.poll-interval-seconds", 2));
+        this.batchSize = Math.max(1, config.getInt("sync.batch-size", 500));
+        this.retentionHours = Math.max(1, config.getInt("sync.change-log-retention-hours", 24));
+
+        boolean requested = config.getBoolean("sync.enabled", false);
+        DatabaseManager databaseManager = main.getDatabaseManager();
+        if (requested && databaseManager.isUsingSQLite()) {
+            NLogger.warn("Order sync requires a shared MySQL database. Sync is disabled while using SQLite.");
+        } else if (requested && databaseManager.getStorageBackend() != StorageBackend.DATABASE) {
+            NLogger.warn("Order sync requires the database storage backend. Sync is disabled while using " + databaseManager.getStorageBackend().getKey() + ".");
+        }
+        this.enabled = requested && !databaseManager.isUsingSQLite() && databaseManager.getStorageBackend() == StorageBackend.DATABASE;
+    }
+
+    /**
+     * Must run before orders are loaded so nothing written in between is missed.
+     */
+    public void initialize() {
+        if (!enabled) return;
+
+        OrderRepository repository = main.getDatabaseManager().getOrderRepository();
+        try {
+            lastSeq = repository.latestChangeSeq().join();
+            repository.enableChangeLog(serverId);
+            NLogger.info("Order sync enabled as server " + serverId + ".");
+        } catch (RuntimeException e) {
+            NLogger.error("Failed to initialize order sync: " + e.getCause().getMessage());
+        }
+    }
+
+    public void start() {
+        if (!enabled) return;
+
+        main.getMorePaperLib().scheduling().asyncScheduler().runAtFixedRate(
+                this::runCycle,
+                Duration.ofSeconds(pollIntervalSeconds),
+                Duration.ofSeconds(pollIntervalSeconds)
+        );
+        main.getMorePaperLib().scheduling().asyncScheduler().runAtFixedRate(
+                this::pruneChanges,
+                Duration.ofHours(1),
+                Duration.ofHours(1)
+        );
+    }
+
+    private void runCycle() {
+        if (!cycleRunning.compareAndSet(false, true)) return;
+
+        pushChanges()
+                .thenCompose(pushed -> pullChanges())
+                .whenComplete((pulled, error) -> {
+                    if (error != null) {
+                        NLogger.error("Order sync cycle failed: " + error.getCause().getMessage());
+                    }
+                    cycleRunning.set(false);
+                });
+    }
+
+    /**
+     * Writes every locally modified order with an optimistic version check.
+     * Orders that lost the race stay dirty and are rebased by the next pull.
+     */
+    public CompletableFuture<Integer> pushChanges() {
+        OrderRepository repository = main.getDatabaseManager().getOrderRepository();
+        AtomicInteger applied = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (Order order : main.getOrderManager().getTrackedOrders()) {
+            if (!order.isDirty()) continue;
+
+            order.setDirty(false);
+            long version = order.getVersion();
+            int delivered = order.getDelivered();
+            int collected = order.getCollected();
+            OrderStatus status = order.getStatus();
+
+            CompletableFuture<Boolean> write = version == 0
+                    ? repository.insertOrder(order, serverId)
+                    : repository.updateOrderVersioned(order.getId(), delivered, collected, status, version, serverId);
+
+            // Bookkeeping runs where the write completes: shutdown joins this future on the server
+            // thread, so it must never wait for a tick.
+            futures.add(write.handle((success, error) -> {
+                if (error == null && success) {
+                    applied.incrementAndGet();
+                    if (order.getVersion() == version) {
+                        order.setVersion(version + 1);
+                        order.setSyncedDelivered(delivered);
+                        order.setSyncedCollected(collected);
+                    }
+                } else {
+                    if (error != null) {
+                        NLogger.warn("Failed to push order " + order.getId() + ": " + error.getCause().getMessage());
+                    }
+                    order.setDirty(true);
+                }
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> applied.get());
+    }
+
+    /**
+     * Claims a status change that pays money back, a cancel or an expiry, against the shared row with
+     * the same optimistic version check as a push. Only the server whose update wins may refund; the
+     * others lose the race and drop the order with their next pull. Always wins when sync is off.
+     */
+    public CompletableFuture<Boolean> claim(Order order, OrderStatus status) {
+        // Not pushed yet, so no other server knows the order
+        if (!enabled || order.getVersion() == 0) return CompletableFuture.completedFuture(true);
+
+        long version = order.getVersion();
+        return main.getDatabaseManager().getOrderRepository()
+                .updateOrderVersioned(order.getId(), order.getDelivered(), order.getCollected(), status, version, serverId)
+                .thenApply(won -> {
+                    if (won && order.getVersion() == version) {
+                        order.setVersion(version + 1);
+                    }
+                    return won;
+                });
+    }
+
+    private CompletableFuture<Integer> pullChanges() {
+        OrderRepository repository = main.getDatabaseManager().getOrderRepository();
+
+        return repository.fetchChanges(lastSeq, serverId, batchSize).thenCompose(changes -> {
+            if (changes.isEmpty()) return CompletableFuture.completedFuture(0);
+
+            lastSeq = changes.getLast().seq();
+
+            Map<String, OrderChange> latest = new LinkedHashMap<>();
+            for (OrderChange change : changes) {
+                if (change.operation() != null) {
+                    latest.put(change.orderId(), change);
+                }
+            }
+            if (latest.isEmpty()) return CompletableFuture.completedFuture(0);
+
+            List<String> upserted = latest.values().stream()
+                    .filter(change -> !change.isDelete())
+                    .map(OrderChange::orderId)
+                    .toList();
+
+            // One task per change, so a large batch is spread over several ticks by the tick budget.
+            return repository.loadOrdersByIds(upserted).thenCompose(remoteOrders -> CompletableFuture.allOf(
+                    latest.values().stream()
+                            .map(change -> CompletableFuture.runAsync(() -> applyRemote(change, remoteOrders.get(change.orderId())), SchedulerUtil.deferred()))
+                            .toArray(CompletableFuture[]::new)
+            ).thenApply(ignored -> latest.size()));
+        });
+    }
+
+    private void applyRemote(OrderChange change, Order remote) {
+        OrderManager orderManager = main.getOrderManager();
+        Order local = orderManager.findOrder(change.orderId());
+
+        if (change.isDelete() || remote == null
+                || remote.getStatus() == OrderStatus.ARCHIVED || remote.getStatus() == OrderStatus.CANCELLED) {
+            if (local != null) {
+                orderManager.forgetOrder(local);
+            }
+            return;
+        }
+
+        if (local == null) {
+            orderManager.addOrderAdmin(remote);
+            return;
+        }
+
+        if (remote.getVersion() <= local.getVersion()) return;
+
+        if (local.isDirty()) {
+            // Replay our unpushed progress on top of the remote row instead of discarding either side.
+            int deliveredDelta = local.getDelivered() - local.getSyncedDelivered();
+            int collectedDelta = local.getCollected() - local.getSyncedCollected();
+            int merged = remote.getDelivered() + deliveredDelta;
+            if (merged > local.getAmount()) {
+                // Both servers filled the same remainder; the excess was already taken from our supplier
+                int excess = merged - local.getAmount();
+                long excessValue = Money.times(local.getPrice(), excess);
+                NLogger.warn("Order " + local.getId() + " was over-delivered by " + excess + " items across servers, "
+                        + Money.format(excessValue) + " of it cannot be paid from escrow. See the order log.");
+                main.getOrderLogger().logOrderOverDelivered(local, excess, excessValue);
+            }
+            int delivered = Math.min(local.getAmount(), merged);
+            local.setDelivered(Math.max(0, delivered));
+            local.setCollected(Math.max(0, Math.min(local.getDelivered(), remote.getCollected() + collectedDelta)));
+            OrderStatus status = local.getStatus().ordinal() >= remote.getStatus().ordinal() ? local.getStatus() : remote.getStatus();
+            if (status == OrderStatus.ACTIVE && local.getDelivered() >= local.getAmount()) {
+                status = OrderStatus.COMPLETED;
+            }
+            local.setStatus(status);
+            local.setVersion(remote.getVersion());
+            local.setSyncedDelivered(remote.getDelivered());
+            local.setSyncedCollected(remote.getCollected());
+        } else {
+            local.setDelivered(remote.getDelivered());
+            local.setCollected(remote.getCollected());
+            local.setStatus(remote.getStatus());
+            local.setVersion(remote.getVersion());
+            local.markSynced();
+        }
+        orderManager.reindexOrder(local);
+    }
+
+    private void pruneChanges() {
+        main.getDatabaseManager().getOrderRepository()
+                .pruneChanges(LocalDateTime.now().minusHours(retentionHours))
+                .whenComplete((pruned, error) -> {
+                    if (error != null) {
+                        NLogger.warn("Failed to prune order change log: " + error.getCause().getMessage());
+                    } else if (pruned > 0) {
+                        NLogger.info("Pruned " + pruned + " old order sync entries.");
+                    }
+                });
+    }
+
+}
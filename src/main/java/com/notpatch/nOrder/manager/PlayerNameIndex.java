@@ -0,0 +1,70 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.util.SchedulerUtil;
+import org.bukkit.Bukkit;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive name to UUID index, fed by logins, loaded orders and loaded statistics.
+ * Lookups never touch Bukkit's user cache; unknown UUIDs are resolved off the main thread.
+ */
+public class PlayerNameIndex {
+
+    private final Map<String, UUID> idsByName = new ConcurrentHashMap<>();
+    private final Map<UUID, String> namesById = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    public void put(UUID playerId, String playerName) {
+        if (playerId == null || playerName == null || playerName.isEmpty()) return;
+
+        String previous = namesById.put(playerId, playerName);
+        if (previous != null && !previous.equalsIgnoreCase(playerName)) {
+            idsByName.remove(key(previous), playerId);
+        }
+        idsByName.put(key(playerName), playerId);
+    }
+
+    public UUID getUniqueId(String playerName) {
+        return playerName == null ? null : idsByName.get(key(playerName));
+    }
+
+    public String getName(UUID playerId) {
+        return namesById.get(playerId);
+    }
+
+    /**
+     * Returns the cached name, or looks it up on an async thread and indexes the result.
+     * Concurrent requests for the same UUID share one lookup.
+     */
+    public CompletableFuture<String> resolveName(UUID playerId) {
+        String cached = namesById.get(playerId);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> existing = pending.putIfAbsent(playerId, lookup);
+        if (existing != null) return existing;
+
+        SchedulerUtil.async().execute(() -> {
+            try {
+                String name = Bukkit.getOfflinePlayer(playerId).getName();
+                put(playerId, name);
+                pending.remove(playerId, lookup);
+                lookup.complete(name);
+            } catch (RuntimeException e) {
+                pending.remove(playerId, lookup);
+                lookup.completeExceptionally(e);
+            }
+        });
+        return lookup;
+    }
+
+    private static String key(String playerName) {
+        return playerName.toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -2,114 +2,323 @@ package com.notpatch.nOrder.manager;
 
 import com.notpatch.nOrder.NOrder;
 import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.model.Leaderboard;
 import com.notpatch.nOrder.model.PlayerStatistics;
+import com.notpatch.nOrder.model.RollingStats;
+import com.notpatch.nOrder.model.StatType;
 import com.notpatch.nlib.util.NLogger;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.util.HashMap;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Player statistics are loaded per player (on login or on demand) instead of all at startup.
+ * Offline entries are evicted least recently used first once they are flushed, so memory follows
+ * the online player count. Leaderboards keep their own compact entries and never need the full table.
+ */
 public class PlayerStatisticsManager {
 
     private final NOrder main;
     private final DatabaseManager databaseManager;
 
     @Getter
-    private HashMap<UUID, PlayerStatistics> statisticsMap = new HashMap<>();
+    private final Map<UUID, PlayerStatistics> statisticsMap = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<PlayerStatistics>> loading = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<PlayerStatistics>> loadingByName = new ConcurrentHashMap<>();
+
+    private final Map<StatType, Leaderboard> leaderboards = new EnumMap<>(StatType.class);
+
+    @Getter
+    private volatile RollingStats globalWindows = new RollingStats();
+    private final AtomicBoolean globalWindowsDirty = new AtomicBoolean(false);
+
+    private final int maxOfflineEntries;
+    private final long idleMillis;
 
     public PlayerStatisticsManager(NOrder main) {
         this.main = main;
         this.databaseManager = main.getDatabaseManager();
+        int size = main.getConfig().getInt("settings.leaderboard-size", 100);
+        for (StatType type : StatType.values()) {
+            leaderboards.put(type, new Leaderboard(type, size));
+        }
+        this.maxOfflineEntries = Math.max(0, main.getConfig().getInt("settings.stats-cache.max-offline", 1000));
+        this.idleMillis = Duration.ofMinutes(Math.max(1, main.getConfig().getLong("settings.stats-cache.idle-minutes", 15))).toMillis();
+        main.getMetricsRegistry().gauge("stats.cached", () -> statisticsMap.size());
     }
 
+    /**
+     * Startup load: only the leaderboards and global windows. Player rows come in per player.
+     */
     public void loadStatistics() {
         if (!databaseManager.isConnectionValid()) {
             NLogger.error("Database connection is null or invalid. Cannot load player statistics.");
             return;
         }
-        String query = "SELECT * FROM player_stats";
-
-        try (Connection conn = databaseManager.getDataSource().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
 
+        try {
             statisticsMap.clear();
+            for (Leaderboard leaderboard : leaderboards.values()) {
+                leaderboard.clear();
+                for (Leaderboard.Entry entry : databaseManager.getStatsStore().loadTop(leaderboard.getType(), leaderboard.getCapacity()).join()) {
+                    leaderboard.offer(entry.playerId(), entry.playerName(), entry.value());
+                    main.getPlayerNameIndex().put(entry.playerId(), entry.playerName());
+                }
+            }
+            globalWindows = databaseManager.getStatsStore().loadGlobalWindows().join();
+        } catch (CompletionException e) {
+            NLogger.error("Failed to load player statistics: " + e.getCause().getMessage());
+        }
+
+        Bukkit.getOnlinePlayers().forEach(player -> loadPlayer(player.getUniqueId()));
+    }
+
+    /**
+     * Loads a player's row into the cache, merging anything recorded while it was loading.
+     * Concurrent calls for the same player share one query.
+     */
+    public CompletableFuture<PlayerStatistics> loadPlayer(UUID playerId) {
+        PlayerStatistics cached = statisticsMap.get(playerId);
+        if (cached != null && cached.isLoaded()) {
+            cached.touch();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<PlayerStatistics> result = new CompletableFuture<>();
+        CompletableFuture<PlayerStatistics> existing = loading.putIfAbsent(playerId, result);
+        if (existing != null) return existing;
+
+        databaseManager.getStatsStore().loadStatistics(playerId).whenComplete((persisted, error) -> {
+            loading.remove(playerId, result);
+            if (error != null) {
+                NLogger.warn("Failed to load statistics for " + playerId + ": " + error.getCause().getMessage());
+                result.completeExceptionally(error);
+                return;
+            }
+            result.complete(adopt(playerId, persisted));
+        });
+        return result;
+    }
 
-            while (rs.next()) {
-                UUID playerId = UUID.fromString(rs.getString("player_id"));
-                PlayerStatistics stats = new PlayerStatistics(playerId, rs.getString("player_name"));
-                stats.setDeliveredItems(rs.getInt("delivered_items"));
-                stats.setCollectedItems(rs.getInt("collected_items"));
-                stats.setTotalOrders(rs.getInt("total_orders"));
-                stats.setTotalEarnings(rs.getDouble("total_earnings"));
-                statisticsMap.put(playerId, stats);
+    private PlayerStatistics adopt(UUID playerId, PlayerStatistics persisted) {
+        PlayerNameIndex nameIndex = main.getPlayerNameIndex();
+        PlayerStatistics stats = statisticsMap.computeIfAbsent(playerId, id -> new PlayerStatistics(id, nameIndex.getName(id)));
+        if (!stats.isLoaded()) {
+            if (persisted != null) {
+                stats.mergeLoaded(persisted);
+            } else {
+                stats.setLoaded(true);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+        if (stats.getPlayerName() == null) {
+            nameIndex.resolveName(playerId).thenAccept(resolved -> {
+                if (resolved != null) {
+                    stats.setPlayerName(resolved);
+                    stats.markDirty();
+                }
+            });
+        } else {
+            nameIndex.put(playerId, stats.getPlayerName());
+        }
+        stats.touch();
+        updateLeaderboards(stats);
+        return stats;
     }
 
-    public void saveStatistics() {
-        if (!databaseManager.isConnectionValid()) {
-            NLogger.error("Database connection is null or invalid. Cannot save player statistics.");
+    /**
+     * Writes only the players whose statistics changed since the last save.
+     */
+    public CompletableFuture<Integer> saveStatistics() {
+        List<PlayerStatistics> changed = new ArrayList<>();
+        for (PlayerStatistics stats : statisticsMap.values()) {
+            // Rows still loading or without a resolved name stay dirty until they are complete.
+            if (stats.isLoaded() && stats.getPlayerName() != null && stats.clearDirty()) {
+                changed.add(stats);
+            }
+        }
+
+        CompletableFuture<Integer> globalSave = CompletableFuture.completedFuture(0);
+        if (globalWindowsDirty.getAndSet(false)) {
+            globalSave = databaseManager.getStatsStore().saveGlobalWindows(globalWindows)
+                    .whenComplete((saved, error) -> {
+                        if (error != null) globalWindowsDirty.set(true);
+                    });
+        }
+
+        return databaseManager.getStatsStore().saveStatistics(changed)
+                .thenCombine(globalSave, (saved, ignored) -> saved)
+                .whenComplete((saved, error) -> {
+                    if (error != null) {
+                        changed.forEach(PlayerStatistics::markDirty);
+                        NLogger.error("Failed to save player statistics: " + error.getCause().getMessage());
+                    }
+                });
+    }
+
+    public void startFlushTask() {
+        int intervalSeconds = main.getConfig().getInt("settings.stats-flush-interval", 30);
+        if (intervalSeconds <= 0) {
+            NLogger.warn("Statistics flush interval is disabled. Statistics will only be saved on server shutdown.");
             return;
         }
-        String query = """
-                INSERT INTO player_stats (player_id, player_name, delivered_items, collected_items, total_orders, total_earnings)
-                VALUES (?, ?, ?, ?, ?, ?)
-                ON CONFLICT(player_id) DO UPDATE SET
-                player_name = ?,
-                delivered_items = ?,
-                collected_items = ?,
-                total_orders = ?,
-                total_earnings = ?
-                """;
-
-        try (Connection conn = databaseManager.getDataSource().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            for (PlayerStatistics stats : statisticsMap.values()) {
-                stmt.setString(1, stats.getPlayerId().toString());
-                stmt.setString(2, stats.getPlayerName());
-                stmt.setInt(3, stats.getDeliveredItems());
-                stmt.setInt(4, stats.getCollectedItems());
-                stmt.setInt(5, stats.getTotalOrders());
-                stmt.setDouble(6, stats.getTotalEarnings());
-
-                stmt.setString(7, stats.getPlayerName());
-                stmt.setInt(8, stats.getDeliveredItems());
-                stmt.setInt(9, stats.getCollectedItems());
-                stmt.setInt(10, stats.getTotalOrders());
-                stmt.setDouble(11, stats.getTotalEarnings());
-
-                stmt.addBatch();
-            }
-            stmt.executeBatch();
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        main.getMorePaperLib().scheduling().asyncScheduler().runAtFixedRate(
+                () -> saveStatistics().whenComplete((saved, error) -> evictOffline()),
+                Duration.ofSeconds(intervalSeconds),
+                Duration.ofSeconds(intervalSeconds)
+        );
+    }
+
+    /**
+     * Drops flushed entries of offline players, least recently used first, once the cache is over its
+     * size limit or an entry has been idle too long.
+     */
+    public int evictOffline() {
+        long idleCutoff = System.currentTimeMillis() - idleMillis;
+        List<PlayerStatistics> candidates = statisticsMap.values().stream()
+                .filter(stats -> stats.isLoaded() && !stats.isDirty())
+                .filter(stats -> Bukkit.getPlayer(stats.getPlayerId()) == null)
+                .sorted(Comparator.comparingLong(PlayerStatistics::getLastAccess))
+                .toList();
+
+        int excess = candidates.size() - maxOfflineEntries;
+        int evicted = 0;
+        for (PlayerStatistics stats : candidates) {
+            if (excess <= 0 && stats.getLastAccess() > idleCutoff) break;
+            if (statisticsMap.remove(stats.getPlayerId(), stats)) {
+                // Changed between the scan and the removal: keep it so the update is not lost.
+                if (stats.isDirty()) {
+                    statisticsMap.putIfAbsent(stats.getPlayerId(), stats);
+                    continue;
+                }
+                evicted++;
+                excess--;
+            }
         }
+        return evicted;
     }
 
+    /**
+     * Returns the cached entry, creating one that fills in from the database in the background.
+     * Counts recorded before the load finishes are merged, never overwritten.
+     */
     public PlayerStatistics getStatistics(UUID playerId) {
-        return statisticsMap.computeIfAbsent(playerId, id -> new PlayerStatistics(id, Bukkit.getOfflinePlayer(id).getName()));
+        PlayerStatistics existing = statisticsMap.get(playerId);
+        if (existing != null) {
+            existing.touch();
+            if (!existing.isLoaded()) {
+                // Retries a load that failed earlier; an in-flight load is shared.
+                loadPlayer(playerId);
+            }
+            return existing;
+        }
+
+        PlayerStatistics stats = statisticsMap.computeIfAbsent(playerId, id -> new PlayerStatistics(id, main.getPlayerNameIndex().getName(id)));
+        if (!stats.isLoaded()) {
+            loadPlayer(playerId);
+        }
+        return stats;
     }
 
     public void addStatistics(PlayerStatistics stats) {
         statisticsMap.put(stats.getPlayerId(), stats);
+        updateLeaderboards(stats);
+    }
+
+    /**
+     * Records a delivery: the supplier earns and delivers, the order owner collects.
+     */
+    public void recordDelivery(UUID supplierId, UUID ownerId, int amount, long earnings) {
+        PlayerStatistics supplier = getStatistics(supplierId);
+        supplier.addDeliveredItems(amount);
+        supplier.addTotalEarnings(earnings);
+        if (supplier.isLoaded()) {
+            leaderboards.get(StatType.DELIVERED).update(supplier);
+            leaderboards.get(StatType.EARNINGS).update(supplier);
+        }
+
+        PlayerStatistics owner = getStatistics(ownerId);
+        owner.addCollectedItems(amount);
+        if (owner.isLoaded()) {
+            leaderboards.get(StatType.COLLECTED).update(owner);
+        }
+
+        globalWindows.add(StatType.DELIVERED, amount);
+        globalWindows.add(StatType.EARNINGS, earnings);
+        globalWindows.add(StatType.COLLECTED, amount);
+        globalWindowsDirty.set(true);
+    }
+
+    public void recordOrderCreated(UUID ownerId) {
+        PlayerStatistics owner = getStatistics(ownerId);
+        owner.addTotalOrders(1);
+        if (owner.isLoaded()) {
+            leaderboards.get(StatType.ORDERS).update(owner);
+        }
+
+        globalWindows.add(StatType.ORDERS, 1);
+        globalWindowsDirty.set(true);
     }
 
+    public Leaderboard getLeaderboard(StatType type) {
+        return leaderboards.get(type);
+    }
+
+    private void updateLeaderboards(PlayerStatistics stats) {
+        for (Leaderboard leaderboard : leaderboards.values()) {
+            leaderboard.update(stats);
+        }
+    }
+
+    /**
+     * Cached lookup for placeholders. A miss starts a background load and returns null for now.
+     */
     public PlayerStatistics getStatisticsByName(String playerName) {
-        for (PlayerStatistics stats : statisticsMap.values()) {
-            if (stats.getPlayerName().equalsIgnoreCase(playerName)) {
-                return stats;
-            }
+        UUID playerId = main.getPlayerNameIndex().getUniqueId(playerName);
+        if (playerId == null) {
+            findStatisticsByName(playerName);
+            return null;
         }
-        return null;
+
+        PlayerStatistics stats = statisticsMap.get(playerId);
+        if (stats == null || !stats.isLoaded()) {
+            loadPlayer(playerId);
+            return null;
+        }
+        stats.touch();
+        return stats;
+    }
+
+    /**
+     * Resolves a player's statistics by name, loading them if needed. Completes with null when the
+     * player has no statistics.
+     */
+    public CompletableFuture<PlayerStatistics> findStatisticsByName(String playerName) {
+        UUID playerId = main.getPlayerNameIndex().getUniqueId(playerName);
+        if (playerId != null) {
+            return loadPlayer(playerId);
+        }
+
+        String key = playerName.toLowerCase(Locale.ROOT);
+        CompletableFuture<PlayerStatistics> result = new CompletableFuture<>();
+        CompletableFuture<PlayerStatistics> existing = loadingByName.putIfAbsent(key, result);
+        if (existing != null) return existing;
+
+        databaseManager.getStatsStore().loadStatisticsByName(playerName).whenComplete((persisted, error) -> {
+            loadingByName.remove(key, result);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(persisted == null ? null : adopt(persisted.getPlayerId(), persisted));
+            }
+        });
+        return result;
     }
 
 }
@@ -0,0 +1,116 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.database.DatabaseManager;
+import com.notpatch.nOrder.database.JournalStore;
+import com.notpatch.nOrder.database.OrderStore;
+import com.notpatch.nOrder.database.SqlMigrator;
+import com.notpatch.nOrder.database.StatsStore;
+import com.notpatch.nOrder.database.StorageBackend;
+import com.notpatch.nOrder.database.StoreMigrator;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@code /orderadmin migrate}: copies everything from one storage backend, or one SQL database, to
+ * another while the server keeps running. The active backend can only be the source, it is flushed first
+ * so the copy includes unsaved changes.
+ */
+public class StorageMigrationManager {
+
+    private final NOrder main;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public StorageMigrationManager(NOrder main) {
+        this.main = main;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Both backends must be persistent, different, and {@code to} must not be the active one.
+     */
+    public CompletableFuture<StoreMigrator.Result> migrate(StorageBackend from, StorageBackend to) {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new CompletionException(new IllegalStateException("A migration is already running.")));
+        }
+
+        DatabaseManager databaseManager = main.getDatabaseManager();
+        int batchSize = Math.max(1, main.getConfig().getInt("storage.migration.batch-size", 500));
+
+        CompletableFuture<Void> flushed = CompletableFuture.completedFuture(null);
+        if (from == databaseManager.getStorageBackend()) {
+            flushed = CompletableFuture.allOf(main.getOrderManager().saveOrders(), main.getPlayerStatsManager().saveStatistics());
+        }
+
+        return flushed.thenComposeAsync(ignored -> {
+            JournalStore journal = null;
+            if (databaseManager.getStorageBackend() != StorageBackend.JOURNAL && (from == StorageBackend.JOURNAL || to == StorageBackend.JOURNAL)) {
+                journal = databaseManager.createJournalStore();
+                try {
+                    journal.open();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+
+            JournalStore opened = journal;
+            return StoreMigrator.migrate(orderStore(from, opened), statsStore(from, opened),
+                            orderStore(to, opened), statsStore(to, opened), batchSize)
+                    .whenComplete((result, error) -> {
+                        // Closing takes a snapshot, so the copy is on disk before it is reported.
+                        if (opened != null) opened.close();
+                    });
+        }, databaseManager.getExecutor()).whenComplete((result, error) -> running.set(false));
+    }
+
+    /**
+     * Copies every table from the SQLite file to the configured MySQL server, or the other way around.
+     * Both sides get their own single connection, so the plugin's pool is untouched. The target must not
+     * be the database the plugin is connected to.
+     */
+    public CompletableFuture<StoreMigrator.Result> migrateDatabase(boolean fromSQLite, Consumer<SqlMigrator.Progress> progress) {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new CompletionException(new IllegalStateException("A migration is already running.")));
+        }
+
+        DatabaseManager databaseManager = main.getDatabaseManager();
+        int batchSize = Math.max(1, main.getConfig().getInt("storage.migration.batch-size", 500));
+        int fetchSize = Math.max(1, main.getConfig().getInt("storage.migration.fetch-size", 1000));
+
+        CompletableFuture<Void> flushed = CompletableFuture.completedFuture(null);
+        if (databaseManager.getStorageBackend() == StorageBackend.DATABASE && databaseManager.isUsingSQLite() == fromSQLite) {
+            flushed = CompletableFuture.allOf(main.getOrderManager().saveOrders(), main.getPlayerStatsManager().saveStatistics());
+        }
+
+        return flushed.thenApplyAsync(ignored -> {
+            try (HikariDataSource source = databaseManager.openStandalone(fromSQLite);
+                 HikariDataSource target = databaseManager.openStandalone(!fromSQLite)) {
+                return new SqlMigrator(source, target, !fromSQLite, fetchSize, batchSize, progress).migrate();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, databaseManager.getExecutor()).whenComplete((result, error) -> running.set(false));
+    }
+
+    private OrderStore orderStore(StorageBackend backend, JournalStore opened) {
+        DatabaseManager databaseManager = main.getDatabaseManager();
+        if (backend == StorageBackend.DATABASE) return databaseManager.getOrderRepository();
+        return opened != null ? opened : databaseManager.getOrderStore();
+    }
+
+    private StatsStore statsStore(StorageBackend backend, JournalStore opened) {
+        DatabaseManager databaseManager = main.getDatabaseManager();
+        if (backend == StorageBackend.DATABASE) return databaseManager.getStatsRepository();
+        return opened != null ? opened : databaseManager.getStatsStore();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.notpatch.nOrder.manager;
+
+import com.notpatch.nOrder.NOrder;
+import com.notpatch.nOrder.Settings;
+import com.notpatch.nlib.util.NLogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor for non-urgent work on the global region, such as applying orders synced from other servers
+ * or refreshing a menu after a background change. Tasks run in submission order, each tick only until
+ * the plugin has used {@code settings.tick-budget.max-ms}; the rest waits for a later tick, but never
+ * longer than {@code max-defer-ticks}. Urgent work {@link #charge charges} its time so deferred work
+ * yields to it within the same tick.
+ */
+public class TickBudget implements Executor {
+
+    private final NOrder main;
+    private final MetricsRegistry metrics;
+    private final Queue<Deferred> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong charged = new AtomicLong();
+
+    // Only advanced by the drain task on the global region.
+    private volatile long tick;
+
+    public TickBudget(NOrder main) {
+        this.main = main;
+        this.metrics = main.getMetricsRegistry();
+        metrics.gauge("tick.deferred-queue", pending::get);
+    }
+
+    public void start() {
+        main.getMorePaperLib().scheduling().globalRegionalScheduler().runAtFixedRate(this::drain, 1L, 1L);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        queue.add(new Deferred(task, tick));
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Counts urgent work started at {@code startNanos} against the budget of the current tick.
+     */
+    public void charge(long startNanos) {
+        charged.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    private void drain() {
+        long now = ++tick;
+        long start = System.nanoTime();
+        long budget = (long) (Settings.current().getTickBudgetMillis() * 1_000_000) - charged.getAndSet(0);
+
+        int ran = 0;
+        Deferred next;
+        while ((next = queue.peek()) != null) {
+            boolean overdue = now - next.queuedAt() >= Settings.current().getTickBudgetMaxDeferTicks();
+            if (!overdue && System.nanoTime() - start >= budget) break;
+
+            queue.poll();
+            pending.decrementAndGet();
+            try {
+                next.task().run();
+            } catch (RuntimeException e) {
+                NLogger.error("A deferred task failed: " + e.getMessage());
+            }
+            ran++;
+        }
+
+        if (ran > 0) metrics.record("tick.deferred-work", start);
+        if (next != null) metrics.increment("tick.over-budget");
+    }
+
+    private record Deferred(Runnable task, long queuedAt) {
+    }
+
+}
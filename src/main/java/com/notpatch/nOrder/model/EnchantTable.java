@@ -0,0 +1,117 @@
+package com.notpatch.nOrder.model;
+
+import com.notpatch.nOrder.util.ItemStackHelper;
+import com.notpatch.nlib.util.ColorUtil;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Which enchantments each selectable material accepts, and the enchant menu's button for every
+ * enchantment at every level from none to its maximum, built with the item catalog. Picking a level
+ * in the menu swaps in a ready button instead of rendering one. Immutable; a reload builds a new table.
+ */
+public class EnchantTable {
+
+    public static final EnchantTable EMPTY = new EnchantTable(new EnumMap<>(Material.class), new HashMap<>());
+
+    private final Map<Material, List<Enchantment>> applicable;
+    private final Map<Enchantment, ItemStack[]> buttons;
+
+    private EnchantTable(Map<Material, List<Enchantment>> applicable, Map<Enchantment, ItemStack[]> buttons) {
+        this.applicable = applicable;
+        this.buttons = buttons;
+    }
+
+    /**
+     * Renders the buttons from {@code template} (the menu's enchant-item-template, may be null).
+     */
+    public static EnchantTable build(List<Material> materials, ConfigurationSection template) {
+        List<Enchantment> enchantments = Arrays.asList(Enchantment.values());
+
+        Map<Material, List<Enchantment>> applicable = new EnumMap<>(Material.class);
+        // A book takes any enchantment, whether or not it is selectable itself
+        applicable.put(Material.ENCHANTED_BOOK, List.copyOf(enchantments));
+        for (Material material : materials) {
+            if (material == Material.ENCHANTED_BOOK) continue;
+            ItemStack item = new ItemStack(material);
+            List<Enchantment> accepted = enchantments.stream()
+                    .filter(enchantment -> enchantment.canEnchantItem(item))
+                    .toList();
+            if (!accepted.isEmpty()) applicable.put(material, accepted);
+        }
+
+        Map<Enchantment, ItemStack[]> buttons = new HashMap<>();
+        for (Enchantment enchantment : enchantments) {
+            ItemStack[] levels = new ItemStack[enchantment.getMaxLevel() + 1];
+            for (int level = 0; level < levels.length; level++) {
+                levels[level] = button(enchantment, level, template);
+            }
+            buttons.put(enchantment, levels);
+        }
+        return new EnchantTable(applicable, buttons);
+    }
+
+    public List<Enchantment> getApplicable(Material material) {
+        return applicable.getOrDefault(material, List.of());
+    }
+
+    /**
+     * Whether selecting the material opens the enchant menu.
+     */
+    public boolean isEnchantable(Material material) {
+        return material.name().contains("ENCHANTED") || applicable.containsKey(material);
+    }
+
+    public int getMaxLevel(Enchantment enchantment) {
+        ItemStack[] levels = buttons.get(enchantment);
+        return levels != null ? levels.length - 1 : enchantment.getMaxLevel();
+    }
+
+    /**
+     * The button showing {@code enchantment} at {@code level}, 0 meaning not selected. Shared, do not modify.
+     */
+    public ItemStack getButton(Enchantment enchantment, int level) {
+        ItemStack[] levels = buttons.get(enchantment);
+        if (levels == null) return button(enchantment, level, null);
+        return levels[Math.max(0, Math.min(level, levels.length - 1))];
+    }
+
+    private static ItemStack button(Enchantment enchantment, int level, ConfigurationSection template) {
+        String enchantName = formatEnchantmentName(enchantment.getKey().getKey());
+
+        List<String> lore = new ArrayList<>();
+        String displayName = "&f" + enchantName;
+        if (template != null) {
+            for (String line : template.getStringList("lore")) {
+                lore.add(ColorUtil.hexColor(line
+                        .replace("%level%", level > 0 ? String.valueOf(level) : "None")
+                        .replace("%max_level%", String.valueOf(enchantment.getMaxLevel()))));
+            }
+            displayName = template.getString("name", displayName).replace("%enchant_name%", enchantName);
+        }
+
+        return ItemStackHelper.builder()
+                .material(Material.ENCHANTED_BOOK)
+                .displayName(ColorUtil.hexColor(displayName))
+                .lore(lore)
+                .glow(level > 0)
+                .build();
+    }
+
+    private static String formatEnchantmentName(String name) {
+        return Arrays.stream(name.split("_"))
+                .map(s -> s.substring(0, 1).toUpperCase() + s.substring(1).toLowerCase())
+                .collect(Collectors.joining(" "));
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.notpatch.nOrder.model;
+
+import com.notpatch.nOrder.manager.CustomItemManager;
+import com.notpatch.nOrder.util.ItemStackHelper;
+import com.notpatch.nlib.util.ColorUtil;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Everything the item select menu can offer, built once when settings or custom items load: the
+ * selectable materials followed by the custom items, each with its finished menu button and an
+ * n-gram index over their names. Search results are cached per query, so typing a search and paging
+ * through it only costs a map lookup. Immutable; a reload builds a new catalog.
+ */
+public class ItemCatalog {
+
+    public static final ItemCatalog EMPTY = new ItemCatalog(List.of());
+
+    private static final int MAX_CACHED_QUERIES = 512;
+
+    private final List<Entry> entries;
+    private final NGramIndex<Integer> index = new NGramIndex<>();
+    private final Map<String, List<Entry>> results = new ConcurrentHashMap<>();
+
+    private ItemCatalog(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+        for (int i = 0; i < entries.size(); i++) {
+            index.put(i, entries.get(i).searchTexts());
+        }
+    }
+
+    /**
+     * Builds the buttons from {@code template} (the menu's select-item-template, may be null).
+     */
+    public static ItemCatalog build(List<Material> materials, List<ItemStack> customItems, EnchantTable enchantTable,
+                                    CustomItemManager customItemManager, ConfigurationSection template) {
+        List<ItemFlag> itemFlags = new ArrayList<>();
+        if (template != null) {
+            for (String flag : template.getStringList("item-flags")) {
+                try {
+                    itemFlags.add(ItemFlag.valueOf(flag));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(materials.size() + customItems.size());
+        for (Material material : materials) {
+            String name = ItemStackHelper.formatMaterialName(material);
+            entries.add(new Entry(material, null, null, name, materialButton(material, name, template, itemFlags),
+                    enchantTable.isEnchantable(material)));
+        }
+        for (ItemStack customItem : customItems) {
+            String customId = customItemManager != null ? customItemManager.getCustomItemId(customItem) : null;
+            String name = ItemStackHelper.getItemDisplayName(customItem);
+            entries.add(new Entry(customItem.getType(), customItem, customId, name,
+                    customButton(customItem, customId, name, template, itemFlags), false));
+        }
+        return new ItemCatalog(entries);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Entries matching {@code query}, best match first; every entry in catalog order for a blank query.
+     */
+    public List<Entry> search(String query) {
+        String key = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) return entries;
+
+        List<Entry> cached = results.get(key);
+        if (cached != null) return cached;
+
+        List<Entry> found = index.search(key, i -> true, entries.size()).stream()
+                .map(entries::get)
+                .toList();
+        if (results.size() >= MAX_CACHED_QUERIES) results.clear();
+        results.put(key, found);
+        return found;
+    }
+
+    private static ItemStack materialButton(Material material, String name, ConfigurationSection template, List<ItemFlag> itemFlags) {
+        if (template == null) {
+            return ItemStackHelper.builder()
+                    .material(material)
+                    .displayName(ColorUtil.hexColor("&f" + name))
+                    .build();
+        }
+        return ItemStackHelper.builder()
+                .material(material)
+                .displayName(ColorUtil.hexColor(template.getString("name", "&f%item_name%").replace("%item_name%", name)))
+                .lore(template.getStringList("lore"))
+                .flags(itemFlags)
+                .build();
+    }
+
+    private static ItemStack customButton(ItemStack customItem, String customId, String name,
+                                          ConfigurationSection template, List<ItemFlag> itemFlags) {
+        ItemStack button = customItem.clone();
+        if (template == null) return button;
+
+        button.editMeta(meta -> {
+            meta.setDisplayName(ColorUtil.hexColor(template.getString("name", "&f%item_name%").replace("%item_name%", name)));
+            meta.setLore(template.getStringList("lore").stream()
+                    .map(line -> ColorUtil.hexColor(line
+                            .replace("%item_id%", customId != null ? customId : "")
+                            .replace("%item_name%", name)))
+                    .collect(Collectors.toList()));
+            for (ItemFlag flag : itemFlags) {
+                meta.addItemFlags(flag);
+            }
+        });
+        return button;
+    }
+
+    /**
+     * One selectable item. {@code customItem} is null for plain materials; {@code enchantable} decides
+     * whether picking it opens the enchantment menu.
+     */
+    public record Entry(Material material, ItemStack customItem, String customId, String name,
+                        ItemStack button, boolean enchantable) {
+
+        public boolean isCustom() {
+            return customItem != null;
+        }
+
+        private List<String> searchTexts() {
+            return customId != null ? List.of(name, customId) : List.of(name);
+        }
+
+    }
+
+}
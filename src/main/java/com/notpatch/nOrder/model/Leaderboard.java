@@ -0,0 +1,88 @@
+package com.notpatch.nOrder.model;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Bounded top-N ranking for one statistic. Statistics only ever grow, so a player that drops out
+ * can only come back through an update, which makes a bounded set exact. Updates are O(log N)
+ * and reads never touch players outside the top N.
+ */
+public class Leaderboard {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::value).reversed()
+            .thenComparing(Entry::playerId);
+
+    @Getter
+    private final StatType type;
+    @Getter
+    private final int capacity;
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    public Leaderboard(StatType type, int capacity) {
+        this.type = type;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void update(PlayerStatistics stats) {
+        offer(stats.getPlayerId(), stats.getPlayerName(), type.valueOf(stats));
+    }
+
+    public synchronized void offer(UUID playerId, String playerName, long value) {
+        if (value <= 0) return;
+
+        Entry previous = entries.get(playerId);
+        if (previous != null) {
+            if (previous.value() == value) return;
+            ranking.remove(previous);
+        } else if (ranking.size() >= capacity && value <= ranking.last().value()) {
+            return;
+        }
+
+        Entry entry = new Entry(playerId, playerName, value);
+        ranking.add(entry);
+        entries.put(entry.playerId(), entry);
+
+        while (ranking.size() > capacity) {
+            Entry evicted = ranking.pollLast();
+            if (evicted != null) {
+                entries.remove(evicted.playerId());
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        ranking.clear();
+        entries.clear();
+    }
+
+    /**
+     * Entry at the given 1-based rank, or null if nobody holds it.
+     */
+    public Entry get(int rank) {
+        if (rank < 1 || rank > capacity) return null;
+        int position = 1;
+        for (Entry entry : ranking) {
+            if (position++ == rank) return entry;
+        }
+        return null;
+    }
+
+    public List<Entry> top(int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, capacity));
+        for (Entry entry : ranking) {
+            if (top.size() >= limit) break;
+            top.add(entry);
+        }
+        return top;
+    }
+
+    public record Entry(UUID playerId, String playerName, long value) {
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.notpatch.nOrder.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Fuzzy full-text index from keys to the texts describing them. Texts are split into lowercase words
+ * and every word into trigrams, plus its one- and two-letter prefixes so short queries still match
+ * word starts. A search ranks keys by how many of the query's grams they share, so typos and partial
+ * words match while unrelated keys are never scanned. Keys are added and removed one at a time.
+ */
+public class NGramIndex<K> {
+
+    private static final int N = 3;
+    private static final char WORD_START = '\u0001';
+    private static final double MIN_SIMILARITY = 0.6;
+    private static final Pattern COLOR_CODES = Pattern.compile("(?i)[&§](#[0-9a-f]{6}|[0-9a-fk-or])");
+    private static final Pattern HEX_CODES = Pattern.compile("(?i)<#[0-9a-f]{6}>");
+
+    private final Map<String, Set<K>> postings = new HashMap<>();
+    private final Map<K, Set<String>> gramsByKey = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes {@code key} under {@code texts}, replacing what it was indexed under before.
+     */
+    public void put(K key, Collection<String> texts) {
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) continue;
+            for (String word : words(text)) {
+                addGrams(word, grams, true);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            unindex(key);
+            gramsByKey.put(key, grams);
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, ignored -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            unindex(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            gramsByKey.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return gramsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keys matching at least most of the query, best first; ties go to keys with less text, which are
+     * the closer match. At most {@code limit} keys accepted by {@code filter} are returned.
+     */
+    public List<K> search(String query, Predicate<K> filter, int limit) {
+        List<String> queryGrams = new ArrayList<>();
+        for (String word : words(query)) {
+            Set<String> grams = new LinkedHashSet<>();
+            addGrams(word, grams, false);
+            queryGrams.addAll(grams);
+        }
+        if (queryGrams.isEmpty() || limit <= 0) return List.of();
+
+        int required = Math.max(1, (int) Math.ceil(queryGrams.size() * MIN_SIMILARITY));
+        Map<K, int[]> hits = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (String gram : queryGrams) {
+                Set<K> keys = postings.get(gram);
+                if (keys == null) continue;
+                for (K key : keys) {
+                    hits.computeIfAbsent(key, ignored -> new int[2])[0]++;
+                }
+            }
+
+            List<Map.Entry<K, int[]>> matches = new ArrayList<>();
+            for (Map.Entry<K, int[]> entry : hits.entrySet()) {
+                if (entry.getValue()[0] < required || !filter.test(entry.getKey())) continue;
+                entry.getValue()[1] = gramsByKey.get(entry.getKey()).size();
+                matches.add(entry);
+            }
+
+            return matches.stream()
+                    .sorted(Comparator.<Map.Entry<K, int[]>>comparingInt(entry -> -entry.getValue()[0])
+                            .thenComparingInt(entry -> entry.getValue()[1]))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(K key) {
+        Set<String> grams = gramsByKey.remove(key);
+        if (grams == null) return;
+        for (String gram : grams) {
+            Set<K> keys = postings.get(gram);
+            if (keys == null) continue;
+            keys.remove(key);
+            if (keys.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    // A word shorter than N is looked up by its prefix gram, a longer one by its trigrams only
+    private static void addGrams(String word, Set<String> grams, boolean indexing) {
+        String padded = WORD_START + word;
+        if (indexing || word.length() < N) {
+            for (int length = 2; length < N + 1 && length <= padded.length(); length++) {
+                if (indexing || length == padded.length()) grams.add(padded.substring(0, length));
+            }
+        }
+        for (int i = 0; i + N <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + N));
+        }
+    }
+
+    /**
+     * Lowercase words of {@code text}, without color codes; underscores and punctuation separate words.
+     */
+    public static List<String> words(String text) {
+        String plain = HEX_CODES.matcher(COLOR_CODES.matcher(text).replaceAll(" ")).replaceAll(" ");
+        List<String> words = new ArrayList<>();
+        for (String word : plain.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+}
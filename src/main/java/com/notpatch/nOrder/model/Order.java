@@ -1,5 +1,6 @@
 package com.notpatch.nOrder.model;
 
+import com.notpatch.nOrder.util.Money;
 import lombok.Data;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -18,7 +19,10 @@ public class Order {
     private final ItemStack item;
     private final String customItemId;
     private final int amount;
-    private final double price;
+    /**
+     * Unit price in minor units, see {@link com.notpatch.nOrder.util.Money}.
+     */
+    private final long price;
     private int delivered;
     private int collected;
     private final LocalDateTime createdAt;
@@ -26,6 +30,11 @@ public class Order {
     private final boolean highlight;
     private OrderStatus status;
 
+    private long version;
+    private int syncedDelivered;
+    private int syncedCollected;
+    private volatile boolean dirty = false;
+
     private volatile boolean processing = false;
 
     public boolean isCustomItem() {
@@ -37,11 +46,23 @@ public class Order {
         return amount - delivered;
     }
 
+    public long getTotalPrice() {
+        return Money.times(price, amount);
+    }
+
+    /**
+     * Value of the items still to be delivered, i.e. what escrow holds for this order.
+     */
+    public long getRemainingValue() {
+        return Money.times(price, Math.max(0, amount - delivered));
+    }
+
     public void addDelivered(int quantity) {
         this.delivered += quantity;
         if (delivered > amount) {
             delivered = amount;
         }
+        this.dirty = true;
     }
 
     public void addCollected(int quantity) {
@@ -49,6 +70,21 @@ public class Order {
         if (collected > delivered) {
             collected = delivered;
         }
+        this.dirty = true;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+        this.dirty = true;
+    }
+
+    /**
+     * Records the current progress as the state last seen in the database.
+     */
+    public void markSynced() {
+        this.syncedDelivered = delivered;
+        this.syncedCollected = collected;
+        this.dirty = false;
     }
 
     public Material getMaterial() {
@@ -60,6 +96,7 @@ public class Order {
         if (this.delivered < 0) {
             this.delivered = 0;
         }
+        this.dirty = true;
     }
 
     public boolean isOwner(Player player) {
@@ -0,0 +1,49 @@
+package com.notpatch.nOrder.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.ToLongFunction;
+
+/**
+ * Orders the market can be sorted by. Each sort maps an order to a key, smallest first, so
+ * descending sorts negate their value.
+ */
+public enum OrderSort {
+
+    // Highlighted orders first, newest first within each group
+    HIGHLIGHTED("highlighted", order -> (order.isHighlight() ? 0 : 1L << 62) - epochSecond(order.getCreatedAt())),
+    PRICE("price", order -> -order.getPrice()),
+    TOTAL_VALUE("total-value", order -> -order.getTotalPrice()),
+    NEWEST("newest", order -> -epochSecond(order.getCreatedAt())),
+    EXPIRING("expiring", order -> epochSecond(order.getExpirationDate())),
+    REMAINING("remaining", order -> -order.getRemaining());
+
+    private final String key;
+    private final ToLongFunction<Order> keyFunction;
+
+    OrderSort(String key, ToLongFunction<Order> keyFunction) {
+        this.key = key;
+        this.keyFunction = keyFunction;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long keyOf(Order order) {
+        return keyFunction.applyAsLong(order);
+    }
+
+    /**
+     * The sort after this one, wrapping around; what the sort button switches to.
+     */
+    public OrderSort next() {
+        OrderSort[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time == null ? 0 : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.notpatch.nOrder.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The active orders kept sorted by every {@link OrderSort}, one skip list of (key, order ID) entries
+ * per sort. Pages are read with cursors, starting after or before an entry of the previous page, so
+ * any page of any sort costs O(log n + page size) however far into the market it is.
+ */
+public class OrderSortIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::key).thenComparing(Entry::id);
+
+    private final Map<OrderSort, NavigableSet<Entry>> sorted = new EnumMap<>(OrderSort.class);
+    // The keys each order is indexed under, to find its entries again after the order changed
+    private final Map<String, long[]> keysById = new ConcurrentHashMap<>();
+
+    public OrderSortIndex() {
+        for (OrderSort sort : OrderSort.values()) {
+            sorted.put(sort, new ConcurrentSkipListSet<>(ORDER));
+        }
+    }
+
+    /**
+     * Moves the order to where it now belongs in every sort, or drops it if it is no longer active.
+     */
+    public void update(Order order) {
+        keysById.compute(order.getId(), (id, previous) -> {
+            unindex(id, previous);
+            if (order.getStatus() != OrderStatus.ACTIVE) return null;
+
+            OrderSort[] sorts = OrderSort.values();
+            long[] keys = new long[sorts.length];
+            for (OrderSort sort : sorts) {
+                keys[sort.ordinal()] = sort.keyOf(order);
+                sorted.get(sort).add(new Entry(keys[sort.ordinal()], id, order));
+            }
+            return keys;
+        });
+    }
+
+    public void remove(String orderId) {
+        keysById.computeIfPresent(orderId, (id, previous) -> {
+            unindex(id, previous);
+            return null;
+        });
+    }
+
+    public void clear() {
+        keysById.clear();
+        sorted.values().forEach(NavigableSet::clear);
+    }
+
+    public Page first(OrderSort sort, int size) {
+        return forward(sort, sorted.get(sort), size);
+    }
+
+    /**
+     * The page following {@code page}; the last page again if there is nothing after it.
+     */
+    public Page next(OrderSort sort, Page page, int size) {
+        if (page.entries().isEmpty()) return first(sort, size);
+        Page next = forward(sort, sorted.get(sort).tailSet(page.entries().getLast(), false), size);
+        return next.entries().isEmpty() ? page : next;
+    }
+
+    /**
+     * The page before {@code page}, the first page if fewer than {@code size} orders precede it.
+     */
+    public Page previous(OrderSort sort, Page page, int size) {
+        if (page.entries().isEmpty()) return first(sort, size);
+        NavigableSet<Entry> set = sorted.get(sort);
+
+        List<Entry> entries = new ArrayList<>(size);
+        Iterator<Entry> before = set.headSet(page.entries().getFirst(), false).descendingIterator();
+        while (entries.size() < size && before.hasNext()) {
+            entries.add(before.next());
+        }
+        if (entries.size() < size) return first(sort, size);
+
+        Collections.reverse(entries);
+        return new Page(entries, set.lower(entries.getFirst()) != null, true);
+    }
+
+    private Page forward(OrderSort sort, NavigableSet<Entry> from, int size) {
+        List<Entry> entries = new ArrayList<>(size);
+        Iterator<Entry> iterator = from.iterator();
+        while (entries.size() < size && iterator.hasNext()) {
+            entries.add(iterator.next());
+        }
+        boolean hasPrevious = !entries.isEmpty() && sorted.get(sort).lower(entries.getFirst()) != null;
+        return new Page(entries, hasPrevious, iterator.hasNext());
+    }
+
+    private void unindex(String id, long[] keys) {
+        if (keys == null) return;
+        for (OrderSort sort : OrderSort.values()) {
+            sorted.get(sort).remove(new Entry(keys[sort.ordinal()], id, null));
+        }
+    }
+
+    public record Entry(long key, String id, Order order) {
+    }
+
+    /**
+     * One page of a sort. Its first and last entries are the cursors for the neighbouring pages.
+     */
+    public record Page(List<Entry> entries, boolean hasPrevious, boolean hasNext) {
+
+        public List<Order> orders() {
+            return entries.stream().map(Entry::order).toList();
+        }
+
+    }
+
+}
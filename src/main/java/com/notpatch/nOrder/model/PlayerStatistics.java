@@ -1,35 +1,141 @@
 package com.notpatch.nOrder.model;
 
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
-@Data
+/**
+ * Counters are adders so delivery handlers on different region threads never contend,
+ * and the dirty flag lets the flush task write only the rows that changed.
+ */
 public class PlayerStatistics {
 
+    @Getter
     private final UUID playerId;
-    private final String playerName;
-    private int deliveredItems;
-    private int collectedItems;
+    @Getter
+    @Setter
+    private volatile String playerName;
 
-    private int totalOrders;
+    private final LongAdder deliveredItems = new LongAdder();
+    private final LongAdder collectedItems = new LongAdder();
+    private final LongAdder totalOrders = new LongAdder();
+    // Minor units
+    private final LongAdder totalEarnings = new LongAdder();
 
-    private double totalEarnings;
+    @Getter
+    private final RollingStats windows = new RollingStats();
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    /**
+     * False while the row is still being read from the database. Such entries only hold deltas
+     * and must not be saved until {@link #mergeLoaded} runs.
+     */
+    @Getter
+    @Setter
+    private volatile boolean loaded;
+
+    @Getter
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    public PlayerStatistics(UUID playerId, String playerName) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+    }
+
+    public int getDeliveredItems() {
+        return deliveredItems.intValue();
+    }
+
+    public int getCollectedItems() {
+        return collectedItems.intValue();
+    }
+
+    public int getTotalOrders() {
+        return totalOrders.intValue();
+    }
+
+    /**
+     * All-time earnings in minor units.
+     */
+    public long getTotalEarnings() {
+        return totalEarnings.sum();
+    }
 
     public void addDeliveredItems(int amount) {
-        this.deliveredItems += amount;
+        deliveredItems.add(amount);
+        windows.add(StatType.DELIVERED, amount);
+        dirty.set(true);
     }
 
     public void addCollectedItems(int amount) {
-        this.collectedItems += amount;
+        collectedItems.add(amount);
+        windows.add(StatType.COLLECTED, amount);
+        dirty.set(true);
     }
 
     public void addTotalOrders(int amount) {
-        this.totalOrders += amount;
+        totalOrders.add(amount);
+        windows.add(StatType.ORDERS, amount);
+        dirty.set(true);
+    }
+
+    public void addTotalEarnings(long amount) {
+        totalEarnings.add(amount);
+        windows.add(StatType.EARNINGS, amount);
+        dirty.set(true);
+    }
+
+    /**
+     * Sets the values read from the database without marking the entry dirty.
+     */
+    public void load(int delivered, int collected, int orders, long earnings) {
+        deliveredItems.reset();
+        deliveredItems.add(delivered);
+        collectedItems.reset();
+        collectedItems.add(collected);
+        totalOrders.reset();
+        totalOrders.add(orders);
+        totalEarnings.reset();
+        totalEarnings.add(earnings);
+    }
+
+    /**
+     * Adds the persisted values to whatever was recorded while the row was loading.
+     */
+    public void mergeLoaded(PlayerStatistics persisted) {
+        deliveredItems.add(persisted.getDeliveredItems());
+        collectedItems.add(persisted.getCollectedItems());
+        totalOrders.add(persisted.getTotalOrders());
+        totalEarnings.add(persisted.getTotalEarnings());
+        windows.merge(persisted.getWindows());
+        if (playerName == null) {
+            playerName = persisted.getPlayerName();
+        }
+        loaded = true;
+    }
+
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * Clears the dirty flag and reports whether it was set. Call before reading the values to save,
+     * so an increment racing with the save marks the entry dirty again.
+     */
+    public boolean clearDirty() {
+        return dirty.getAndSet(false);
     }
 
-    public void addTotalEarnings(double amount) {
-        this.totalEarnings += amount;
+    public void markDirty() {
+        dirty.set(true);
     }
 
 }
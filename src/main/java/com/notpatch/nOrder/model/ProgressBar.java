@@ -15,13 +15,14 @@ public class ProgressBar {
     }
 
     public String render() {
+        Settings.Snapshot settings = Settings.current();
         StringBuilder bar = new StringBuilder();
-        int completeLength = (int) ((double) current / max * Settings.PROGRESS_BAR_LENGTH);
-        for (int i = 0; i < Settings.PROGRESS_BAR_LENGTH; i++) {
+        int completeLength = (int) ((double) current / max * settings.getProgressBarLength());
+        for (int i = 0; i < settings.getProgressBarLength(); i++) {
             if (i < completeLength) {
-                bar.append(Settings.PROGRESS_BAR_COMPLETE_COLOR).append(Settings.PROGRESS_BAR_COMPLETE_CHAR);
+                bar.append(settings.getProgressBarCompleteColor()).append(settings.getProgressBarCompleteChar());
             } else {
-                bar.append(Settings.PROGRESS_BAR_INCOMPLETE_COLOR).append(Settings.PROGRESS_BAR_INCOMPLETE_CHAR);
+                bar.append(settings.getProgressBarIncompleteColor()).append(settings.getProgressBarIncompleteChar());
             }
         }
         return bar.toString();
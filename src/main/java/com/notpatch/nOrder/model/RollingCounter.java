@@ -0,0 +1,133 @@
+package com.notpatch.nOrder.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Ring buffers of hourly and daily buckets for a single value. Old buckets are zeroed lazily when
+ * time moves forward, so memory is fixed and a query sums at most {@link #DAYS} buckets.
+ */
+public class RollingCounter {
+
+    public static final int HOURS = 24;
+    public static final int DAYS = 31;
+
+    private final long[] hours = new long[HOURS];
+    private final long[] days = new long[DAYS];
+    private long currentHour = -1;
+    private long currentDay = -1;
+
+    public synchronized void add(long value, long hour) {
+        advance(hour);
+        hours[(int) (currentHour % HOURS)] += value;
+        days[(int) (currentDay % DAYS)] += value;
+    }
+
+    /**
+     * Sum of the last {@code window} buckets, the current (partial) bucket included.
+     */
+    public synchronized long sum(TimeWindow window, long hour) {
+        advance(hour);
+        if (currentHour < 0) return 0;
+
+        long[] buckets = window.isDaily() ? days : hours;
+        long newest = window.isDaily() ? currentDay : currentHour;
+        int count = Math.min(window.getBuckets(), buckets.length);
+        long total = 0;
+        for (int i = 0; i < count && newest - i >= 0; i++) {
+            total += buckets[(int) ((newest - i) % buckets.length)];
+        }
+        return total;
+    }
+
+    /**
+     * Adds another counter's buckets to this one, both aligned to {@code hour} first.
+     */
+    public void merge(RollingCounter other, long hour) {
+        long[] otherHours;
+        long[] otherDays;
+        synchronized (other) {
+            other.advance(hour);
+            if (other.currentHour < 0) return;
+            otherHours = other.hours.clone();
+            otherDays = other.days.clone();
+        }
+        synchronized (this) {
+            advance(hour);
+            for (int i = 0; i < HOURS; i++) {
+                hours[i] += otherHours[i];
+            }
+            for (int i = 0; i < DAYS; i++) {
+                days[i] += otherDays[i];
+            }
+        }
+    }
+
+    private void advance(long hour) {
+        if (currentHour < 0) {
+            currentHour = hour;
+            currentDay = hour / 24;
+            return;
+        }
+        if (hour > currentHour) {
+            long steps = Math.min(HOURS, hour - currentHour);
+            for (long i = 1; i <= steps; i++) {
+                hours[(int) ((currentHour + i) % HOURS)] = 0;
+            }
+            currentHour = hour;
+        }
+        long day = currentHour / 24;
+        if (day > currentDay) {
+            long steps = Math.min(DAYS, day - currentDay);
+            for (long i = 1; i <= steps; i++) {
+                days[(int) ((currentDay + i) % DAYS)] = 0;
+            }
+            currentDay = day;
+        }
+    }
+
+    /**
+     * Writes the newest hour followed by the non-zero buckets only, most counters are sparse.
+     */
+    public synchronized void write(DataOutputStream out) throws IOException {
+        out.writeLong(currentHour);
+        writeBuckets(out, hours);
+        writeBuckets(out, days);
+    }
+
+    public synchronized void read(DataInputStream in) throws IOException {
+        currentHour = in.readLong();
+        currentDay = currentHour < 0 ? -1 : currentHour / 24;
+        readBuckets(in, hours);
+        readBuckets(in, days);
+    }
+
+    private static void writeBuckets(DataOutputStream out, long[] buckets) throws IOException {
+        int nonZero = 0;
+        for (long bucket : buckets) {
+            if (bucket != 0) nonZero++;
+        }
+        out.writeByte(nonZero);
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != 0) {
+                out.writeByte(i);
+                out.writeLong(buckets[i]);
+            }
+        }
+    }
+
+    private static void readBuckets(DataInputStream in, long[] buckets) throws IOException {
+        Arrays.fill(buckets, 0);
+        int count = in.readUnsignedByte();
+        for (int i = 0; i < count; i++) {
+            int index = in.readUnsignedByte();
+            long value = in.readLong();
+            if (index < buckets.length) {
+                buckets[index] = value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.notpatch.nOrder.model;
+
+import java.io.*;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Rolling hourly/daily counters for every {@link StatType}. Earnings are counted in minor units.
+ */
+public class RollingStats {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private final Map<StatType, RollingCounter> counters = new EnumMap<>(StatType.class);
+
+    public RollingStats() {
+        for (StatType type : StatType.values()) {
+            counters.put(type, new RollingCounter());
+        }
+    }
+
+    public static long currentHour() {
+        return System.currentTimeMillis() / MILLIS_PER_HOUR;
+    }
+
+    public void add(StatType type, long value) {
+        counters.get(type).add(value, currentHour());
+    }
+
+    public long sum(StatType type, TimeWindow window) {
+        return counters.get(type).sum(window, currentHour());
+    }
+
+    public void merge(RollingStats other) {
+        long hour = currentHour();
+        for (StatType type : StatType.values()) {
+            counters.get(type).merge(other.counters.get(type), hour);
+        }
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            for (StatType type : StatType.values()) {
+                counters.get(type).write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public void decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unknown rolling stats format " + version);
+            }
+            for (StatType type : StatType.values()) {
+                counters.get(type).read(in);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.notpatch.nOrder.model;
+
+import com.notpatch.nOrder.util.Money;
+
+import java.util.function.ToLongFunction;
+
+public enum StatType {
+
+    EARNINGS("earnings", "earnings_minor", PlayerStatistics::getTotalEarnings),
+    DELIVERED("delivered", "delivered_items", PlayerStatistics::getDeliveredItems),
+    COLLECTED("collected", "collected_items", PlayerStatistics::getCollectedItems),
+    ORDERS("orders", "total_orders", PlayerStatistics::getTotalOrders);
+
+    private final String key;
+    private final String column;
+    private final ToLongFunction<PlayerStatistics> getter;
+
+    StatType(String key, String column, ToLongFunction<PlayerStatistics> getter) {
+        this.key = key;
+        this.column = column;
+        this.getter = getter;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Column in player_stats holding the all-time value.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Current value, earnings in minor units.
+     */
+    public long valueOf(PlayerStatistics stats) {
+        return getter.applyAsLong(stats);
+    }
+
+    public String format(long value) {
+        return this == EARNINGS ? Money.format(value) : String.valueOf(value);
+    }
+
+    public static StatType fromKey(String key) {
+        for (StatType type : values()) {
+            if (type.key.equalsIgnoreCase(key)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.notpatch.nOrder.model;
+
+public enum TimeWindow {
+
+    DAY("day", 24, false),
+    WEEK("week", 7, true),
+    MONTH("month", 30, true);
+
+    private final String key;
+    private final int buckets;
+    private final boolean daily;
+
+    TimeWindow(String key, int buckets, boolean daily) {
+        this.key = key;
+        this.buckets = buckets;
+        this.daily = daily;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Number of buckets summed, hours for DAY and days otherwise.
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public boolean isDaily() {
+        return daily;
+    }
+
+    public static TimeWindow fromKey(String key) {
+        for (TimeWindow window : values()) {
+            if (window.key.equalsIgnoreCase(key)) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+}
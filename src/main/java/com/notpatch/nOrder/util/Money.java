@@ -0,0 +1,139 @@
+package com.notpatch.nOrder.util;
+
+/**
+ * Money is kept as a {@code long} count of minor units (cents) so prices, totals and aggregates add up
+ * exactly. Doubles only appear at the edges: config values, player input and Vault calls.
+ */
+public final class Money {
+
+    public static final int DECIMALS = 2;
+    public static final long SCALE = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a major-unit amount, rounding half away from zero to the nearest minor unit.
+     */
+    public static long of(double amount) {
+        return Math.round(amount * SCALE);
+    }
+
+    public static double toDouble(long minor) {
+        return (double) minor / SCALE;
+    }
+
+    public static long times(long unitPrice, long quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    /**
+     * {@code percent} percent of {@code amount}, rounded to the nearest minor unit.
+     */
+    public static long percent(long amount, double percent) {
+        return Math.round(amount * percent / 100.0);
+    }
+
+    /**
+     * Parses player input like {@code 12}, {@code 12.5} or {@code 12.50}. Throws
+     * {@link NumberFormatException} for anything else, including more than two decimals.
+     */
+    public static long parse(String input) {
+        String text = input.trim();
+        int length = text.length();
+        if (length == 0) throw new NumberFormatException("Empty amount");
+
+        int i = 0;
+        boolean negative = text.charAt(0) == '-';
+        if (negative) i++;
+
+        long major = 0;
+        int digits = 0;
+        for (; i < length && text.charAt(i) != '.' && text.charAt(i) != ','; i++) {
+            major = Math.addExact(Math.multiplyExact(major, 10), digit(text, i));
+            digits++;
+        }
+
+        long minor = 0;
+        int decimals = 0;
+        if (i < length) {
+            for (i++; i < length; i++) {
+                if (++decimals > DECIMALS) throw new NumberFormatException("Too many decimals: " + input);
+                minor = minor * 10 + digit(text, i);
+                digits++;
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("No digits: " + input);
+        for (; decimals < DECIMALS; decimals++) {
+            minor *= 10;
+        }
+
+        long value = Math.addExact(Math.multiplyExact(major, SCALE), minor);
+        return negative ? -value : value;
+    }
+
+    private static int digit(String text, int index) {
+        char c = text.charAt(index);
+        if (c < '0' || c > '9') throw new NumberFormatException("Invalid amount: " + text);
+        return c - '0';
+    }
+
+    /**
+     * Plain two-decimal form such as {@code 1234.50}, the same output as {@code %.2f} without the
+     * formatter machinery: one char buffer and the resulting string.
+     */
+    public static String format(long minor) {
+        char[] buffer = new char[21];
+        int pos = buffer.length;
+
+        boolean negative = minor < 0;
+        // Work with negative values so Long.MIN_VALUE needs no special case.
+        long value = negative ? minor : -minor;
+
+        for (int i = 0; i < DECIMALS; i++) {
+            buffer[--pos] = (char) ('0' - (value % 10));
+            value /= 10;
+        }
+        buffer[--pos] = '.';
+        do {
+            buffer[--pos] = (char) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (negative) buffer[--pos] = '-';
+
+        return new String(buffer, pos, buffer.length - pos);
+    }
+
+    /**
+     * Appends {@code value / divisor} rounded half up to {@code decimals} places, without going through doubles.
+     */
+    static void appendScaled(StringBuilder builder, long value, long divisor, int decimals) {
+        if (value < 0) {
+            builder.append('-');
+            value = -value;
+        }
+
+        long factor = 1;
+        for (int i = 0; i < decimals; i++) {
+            factor *= 10;
+        }
+
+        long scaled;
+        try {
+            scaled = Math.addExact(Math.multiplyExact(value, factor), divisor / 2) / divisor;
+        } catch (ArithmeticException e) {
+            scaled = Math.round((double) value / divisor * factor);
+        }
+
+        builder.append(scaled / factor);
+        if (decimals > 0) {
+            builder.append('.');
+            long fraction = scaled % factor;
+            for (long pad = factor / 10; pad > fraction && pad > 1; pad /= 10) {
+                builder.append('0');
+            }
+            builder.append(fraction);
+        }
+    }
+
+}
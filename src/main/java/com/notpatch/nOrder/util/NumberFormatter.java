@@ -5,6 +5,10 @@ import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.List;
 
+/**
+ * Compact display form with configurable suffixes, e.g. {@code 1.5k}. Works on integers only,
+ * so there is no {@code String.format}, logarithm or rounding drift on the way.
+ */
 public class NumberFormatter {
 
     private static final List<String> suffixes;
@@ -13,26 +17,42 @@ public class NumberFormatter {
     static {
         FileConfiguration config = NOrder.getInstance().getConfig();
         suffixes = config.getStringList("number-format.suffixes");
-        decimalPlaces = config.getInt("number-format.decimal-places", 1);
+        decimalPlaces = Math.max(0, Math.min(6, config.getInt("number-format.decimal-places", 1)));
+    }
+
+    /**
+     * Formats an amount of money given in minor units.
+     */
+    public static String formatMoney(long minor) {
+        return format(minor, Money.SCALE);
     }
 
     public static String format(double value) {
+        return format(Math.round(value * Money.SCALE), Money.SCALE);
+    }
 
-        if (value < 1000) {
+    private static String format(long value, long unit) {
+        StringBuilder builder = new StringBuilder(16);
+        long magnitude = Math.abs(value);
+
+        if (magnitude < 1000 * unit || suffixes.isEmpty()) {
             if (decimalPlaces <= 0) {
-                return String.valueOf((long) value);
+                builder.append(value / unit);
+            } else {
+                Money.appendScaled(builder, value, unit, decimalPlaces);
             }
-            return String.format("%." + decimalPlaces + "f", value);
+            return builder.toString();
         }
 
-        int exponent = (int) (Math.log(value) / Math.log(1000));
-        if (exponent >= suffixes.size()) {
-            exponent = suffixes.size() - 1;
+        int exponent = 0;
+        long divisor = unit;
+        while (exponent < suffixes.size() - 1 && magnitude / divisor >= 1000 && divisor <= Long.MAX_VALUE / 1000) {
+            divisor *= 1000;
+            exponent++;
         }
 
-        double formattedValue = value / Math.pow(1000, exponent);
-        String suffix = suffixes.get(exponent);
-
-        return String.format("%." + decimalPlaces + "f%s", formattedValue, suffix);
+        Money.appendScaled(builder, value, divisor, decimalPlaces);
+        return builder.append(suffixes.get(exponent)).toString();
     }
+
 }
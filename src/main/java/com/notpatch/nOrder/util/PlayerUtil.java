@@ -17,16 +17,16 @@ public class PlayerUtil {
     }
 
     public static int getPlayerOrderLimit(Player player) {
-        return getPermissionValue(player, Settings.ORDER_LIMIT_PERMISSION, 5, true);
+        return getPermissionValue(player, Settings.current().getOrderLimitPermission(), 5, true);
     }
 
     public static int getPlayerOrderExpiration(Player player) {
-        return getPermissionValue(player, Settings.ORDER_EXPIRATION_PERMISSION, 7, false);
+        return getPermissionValue(player, Settings.current().getOrderExpirationPermission(), 7, false);
     }
 
     public static boolean isPlayerAdmin(Player player) {
         if (player == null) return false;
-        return player.hasPermission(Settings.ORDER_ADMIN_PERMISSION) || player.isOp();
+        return player.hasPermission(Settings.current().getOrderAdminPermission()) || player.isOp();
     }
 
     /**
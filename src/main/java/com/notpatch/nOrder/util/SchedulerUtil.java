@@ -0,0 +1,65 @@
+package com.notpatch.nOrder.util;
+
+import com.notpatch.nOrder.NOrder;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+public class SchedulerUtil {
+
+    /**
+     * Executor that runs callbacks on the global region (main thread on Paper).
+     */
+    public static Executor global() {
+        return task -> NOrder.getInstance().getMorePaperLib().scheduling().globalRegionalScheduler().run(task);
+    }
+
+    /**
+     * Executor for global region work that can wait, run within the plugin's per-tick budget. It only
+     * runs while the server ticks, so nothing the server thread blocks on may depend on it.
+     */
+    public static Executor deferred() {
+        return NOrder.getInstance().getTickBudget();
+    }
+
+    /**
+     * Executor that runs work on the plugin's async scheduler, off the main thread.
+     */
+    public static Executor async() {
+        return task -> NOrder.getInstance().getMorePaperLib().scheduling().asyncScheduler().run(task);
+    }
+
+    /**
+     * Executor that runs callbacks on the thread owning the given entity (Folia safe).
+     */
+    public static Executor entity(Entity entity) {
+        return task -> NOrder.getInstance().getMorePaperLib().scheduling().entitySpecificScheduler(entity).run(task, null);
+    }
+
+    /**
+     * Hands the result of {@code future} to {@code action} for {@code entity}: right away when it is
+     * already complete, so callers on the entity's thread see no delay, otherwise on that thread once
+     * it completes.
+     */
+    public static <T> void thenOn(Entity entity, CompletableFuture<T> future, Consumer<? super T> action) {
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            action.accept(future.join());
+        } else {
+            future.thenAcceptAsync(action, entity(entity));
+        }
+    }
+
+    /**
+     * Picks the right executor to reply to a command sender.
+     */
+    public static Executor of(CommandSender sender) {
+        if (sender instanceof Entity entity) {
+            return entity(entity);
+        }
+        return global();
+    }
+
+}
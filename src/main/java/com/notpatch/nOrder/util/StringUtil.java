@@ -20,7 +20,7 @@ import java.time.format.DateTimeFormatter;
 public class StringUtil {
 
     public static String replaceOrderPlaceholders(String text, Order order) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(Settings.DATE_FORMAT);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(Settings.current().getDateFormat());
         String countdown = "";
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime expireAt = order.getExpirationDate();
@@ -49,9 +49,9 @@ public class StringUtil {
                 .replace("%status%", order.getStatus().name())
                 .replace("%delivered%", String.valueOf(order.getDelivered()))
                 .replace("%remaining%", String.valueOf(order.getRemaining()))
-                .replace("%price%", NumberFormatter.format(order.getPrice()))
-                .replace("%total_price%", NumberFormatter.format(order.getPrice() * order.getAmount()))
-                .replace("%paid_price%", NumberFormatter.format(order.getPrice() * order.getDelivered()))
+                .replace("%price%", NumberFormatter.formatMoney(order.getPrice()))
+                .replace("%total_price%", NumberFormatter.formatMoney(order.getTotalPrice()))
+                .replace("%paid_price%", NumberFormatter.formatMoney(Money.times(order.getPrice(), order.getDelivered())))
                 .replace("%created_at%", order.getCreatedAt().format(formatter))
                 .replace("%expire_at%", order.getExpirationDate().format(formatter))
                 .replace("%order_id%", order.getId())